@@ -0,0 +1,189 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AuthorIndex groups a growing list of tweets by author, so that the tweets of
+ * one author are found without comparing the author of every tweet.
+ *
+ * Authors are keyed by username with case folded, through a UsernameDictionary,
+ * and each author has a timeline: a TimeIndex over just that author's tweets.
+ * "Tweets by X" then costs the number of tweets by X, and "tweets by X in a
+ * timespan" and "latest N by X" a binary search on X's timeline.
+ */
+public class AuthorIndex {
+
+    private final List<Tweet> tweets = new ArrayList<>();
+    private final UsernameDictionary authors = new UsernameDictionary();
+    private final List<TimeIndex> timelines = new ArrayList<>();
+    /* Rep invariant:
+     *    timelines.size() == authors.size()
+     *    timelines.get(id) indexes, in tweets, exactly the positions of the tweets
+     *    whose author has id in authors
+     * Abstraction function:
+     *    represents the list tweets, with each author's tweets ordered by time
+     */
+
+    /**
+     * Index a list of tweets.
+     *
+     * @param tweets tweets to index; not modified, and copied so later changes to
+     *               the list don't affect this index
+     */
+    public AuthorIndex(List<Tweet> tweets) {
+        addAll(tweets);
+    }
+
+    /**
+     * Append tweets to the indexed list, and index them.
+     *
+     * @param newer tweets to append, in order; not modified by this method
+     */
+    public void addAll(List<Tweet> newer) {
+        int first = tweets.size();
+        tweets.addAll(newer);
+        // group the new positions by author, in list order, then add each group at once
+        Grouping groups = groupByAuthor(tweets, first, authors);
+        for (int id = 0; id < authors.size(); id++) {
+            int[] group = Arrays.copyOfRange(groups.positions, groups.offsets[id], groups.offsets[id + 1]);
+            if (id == timelines.size()) {
+                timelines.add(new TimeIndex(tweets, group, group.length));
+            } else if (group.length > 0) {
+                timelines.get(id).addPositions(group, group.length);
+            }
+        }
+    }
+
+    /* Positions of tweets grouped by author id, as made by groupByAuthor. */
+    static class Grouping {
+        final int[] offsets;
+        final int[] positions;
+
+        private Grouping(int[] offsets, int[] positions) {
+            this.offsets = offsets;
+            this.positions = positions;
+        }
+    }
+
+    /*
+     * Group the positions first .. tweets.size() - 1 of tweets by author, with a
+     * counting sort, giving new authors ids in authors. The positions of the
+     * tweets of author id are positions[offsets[id] .. offsets[id + 1]) of the
+     * result, in list order; offsets has length authors.size() + 1.
+     */
+    static Grouping groupByAuthor(List<Tweet> tweets, int first, UsernameDictionary authors) {
+        int[] authorIds = new int[tweets.size() - first];
+        for (int i = 0; i < authorIds.length; i++) {
+            authorIds[i] = authors.idOf(tweets.get(first + i).getAuthor());
+        }
+        int[] offsets = new int[authors.size() + 1];
+        for (int id: authorIds) {
+            offsets[id + 1]++;
+        }
+        for (int id = 0; id < authors.size(); id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        int[] positions = new int[authorIds.length];
+        int[] filled = Arrays.copyOf(offsets, authors.size());
+        for (int i = 0; i < authorIds.length; i++) {
+            positions[filled[authorIds[i]]++] = first + i;
+        }
+        return new Grouping(offsets, positions);
+    }
+
+    /**
+     * @return number of tweets indexed
+     */
+    public int size() {
+        return tweets.size();
+    }
+
+    /**
+     * @return the distinct authors of the indexed tweets, in lowercase, in order
+     *         of their first tweet
+     */
+    public List<String> authors() {
+        return authors.usernames();
+    }
+
+    /**
+     * @param username Twitter username, in any case
+     * @return number of indexed tweets by the user
+     */
+    public int tweetCount(String username) {
+        TimeIndex timeline = timelineOf(username);
+        return timeline == null ? 0 : timeline.size();
+    }
+
+    /**
+     * Find the tweets written by a user.
+     *
+     * @param username Twitter username, as for Filter.writtenBy
+     * @return all and only the indexed tweets whose author is username, in list
+     *         order; the same as Filter.writtenBy on the indexed list
+     */
+    public List<Tweet> writtenBy(String username) {
+        return tweetsAt(positionsWrittenBy(username, Instant.MIN, Instant.MAX));
+    }
+
+    /**
+     * Find the tweets written by a user during a timespan.
+     *
+     * @param username Twitter username, as for Filter.writtenBy
+     * @param timespan timespan
+     * @return all and only the indexed tweets whose author is username that were
+     *         sent during the timespan, in list order
+     */
+    public List<Tweet> writtenBy(String username, Timespan timespan) {
+        return tweetsAt(positionsWrittenBy(username, timespan.getStart(), timespan.getEnd()));
+    }
+
+    /**
+     * @param username Twitter username, as for Filter.writtenBy
+     * @return the set of positions of the indexed tweets whose author is username
+     */
+    public TweetBitmap bitmapWrittenBy(String username) {
+        int[] positions = positionsWrittenBy(username, Instant.MIN, Instant.MAX);
+        return TweetBitmap.fromSorted(positions, positions.length);
+    }
+
+    /**
+     * Find the latest tweets written by a user.
+     *
+     * @param username Twitter username, as for Filter.writtenBy
+     * @param count number of tweets wanted, requires count >= 0
+     * @return the (at most) count latest indexed tweets whose author is username,
+     *         latest first, to the millisecond; tweets sent in the same millisecond
+     *         are given latest in the list first
+     */
+    public List<Tweet> latest(String username, int count) {
+        TimeIndex timeline = timelineOf(username);
+        return timeline == null ? new ArrayList<Tweet>() : tweetsAt(timeline.latestPositions(count));
+    }
+
+    private int[] positionsWrittenBy(String username, Instant start, Instant end) {
+        TimeIndex timeline = timelineOf(username);
+        if (timeline == null) {
+            return new int[0];
+        }
+        int[] positions = timeline.slice(start, end);
+        TimeIndex.sortIfNeeded(positions);
+        return positions;
+    }
+
+    private TimeIndex timelineOf(String username) {
+        int id = authors.find(username);
+        return id < 0 ? null : timelines.get(id);
+    }
+
+    private List<Tweet> tweetsAt(int[] positions) {
+        List<Tweet> found = new ArrayList<Tweet>(positions.length);
+        for (int position: positions) {
+            found.add(tweets.get(position));
+        }
+        return found;
+    }
+}
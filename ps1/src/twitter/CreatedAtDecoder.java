@@ -0,0 +1,184 @@
+package twitter;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * CreatedAtDecoder decodes the "created_at" timestamps of tweets, which have
+ * the fixed layout "EEE MMM dd HH:mm:ss Z yyyy" (for example
+ * "Wed Feb 17 10:00:00 +0000 2016").
+ *
+ * Well-formed timestamps are decoded directly from their characters without
+ * allocating; anything that does not fit the fixed layout exactly is handed to
+ * the general DateTimeFormatter, so the results are always the same as
+ * ZonedDateTime.parse with that pattern.
+ */
+public class CreatedAtDecoder {
+
+    /** The general formatter for created_at timestamps, as used by TweetReader. */
+    public static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss Z yyyy", Locale.US);
+
+    private static final int LENGTH = 30;
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /**
+     * Decode a created_at timestamp.
+     *
+     * @param text timestamp in the layout "EEE MMM dd HH:mm:ss Z yyyy"
+     * @return the number of seconds from the epoch of 1970-01-01T00:00:00Z
+     * @throws DateTimeParseException if text cannot be parsed by FORMAT
+     */
+    public static long parseEpochSecond(CharSequence text) {
+        long epochSecond = decodeFixedLayout(text);
+        if (epochSecond != Long.MIN_VALUE) {
+            return epochSecond;
+        }
+        return ZonedDateTime.parse(text, FORMAT).toEpochSecond();
+    }
+
+    /**
+     * Decode a created_at timestamp.
+     *
+     * @param text timestamp in the layout "EEE MMM dd HH:mm:ss Z yyyy"
+     * @return the instant represented by text
+     * @throws DateTimeParseException if text cannot be parsed by FORMAT
+     */
+    public static Instant parse(CharSequence text) {
+        return Instant.ofEpochSecond(parseEpochSecond(text));
+    }
+
+    /*
+     * Decode text if it follows the fixed layout exactly and names a valid,
+     * self-consistent date and time.
+     *
+     * @return the epoch second of text, or Long.MIN_VALUE if the general
+     *         formatter must decide what text means
+     */
+    private static long decodeFixedLayout(CharSequence text) {
+        if (text.length() != LENGTH
+                || text.charAt(3) != ' ' || text.charAt(7) != ' ' || text.charAt(10) != ' '
+                || text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != ' '
+                || text.charAt(25) != ' ') {
+            return Long.MIN_VALUE;
+        }
+        int dayOfWeek = dayOfWeek(text.charAt(0), text.charAt(1), text.charAt(2));
+        int month = month(text.charAt(4), text.charAt(5), text.charAt(6));
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        int offsetHours = digits(text, 21, 2);
+        int offsetMinutes = digits(text, 23, 2);
+        int year = digits(text, 26, 4);
+        char sign = text.charAt(20);
+        if (dayOfWeek < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0
+                || offsetHours < 0 || offsetMinutes < 0 || year < 0 || (sign != '+' && sign != '-')) {
+            return Long.MIN_VALUE;
+        }
+        int offsetSeconds = offsetHours * 3600 + offsetMinutes * 60;
+        if (year < 1 || day < 1 || day > daysInMonth(year, month) || hour > 23 || minute > 59 || second > 59
+                || offsetMinutes > 59 || offsetSeconds > MAX_OFFSET_SECONDS) {
+            return Long.MIN_VALUE;
+        }
+        long epochDay = epochDay(year, month, day);
+        if (Math.floorMod(epochDay + 3, 7) != dayOfWeek) {// day name disagrees with the date
+            return Long.MIN_VALUE;
+        }
+        if (sign == '-') {
+            offsetSeconds = -offsetSeconds;
+        }
+        return epochDay * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second - offsetSeconds;
+    }
+
+    /*
+     * @return the value of count decimal digits starting at start, or -1 if any is not a digit
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /*
+     * @return 0 for "Mon" through 6 for "Sun", or -1 for anything else
+     */
+    private static int dayOfWeek(char c0, char c1, char c2) {
+        switch (c0) {
+        case 'M':
+            return c1 == 'o' && c2 == 'n' ? 0 : -1;
+        case 'T':
+            if (c1 == 'u' && c2 == 'e') return 1;
+            return c1 == 'h' && c2 == 'u' ? 3 : -1;
+        case 'W':
+            return c1 == 'e' && c2 == 'd' ? 2 : -1;
+        case 'F':
+            return c1 == 'r' && c2 == 'i' ? 4 : -1;
+        case 'S':
+            if (c1 == 'a' && c2 == 't') return 5;
+            return c1 == 'u' && c2 == 'n' ? 6 : -1;
+        default:
+            return -1;
+        }
+    }
+
+    /*
+     * @return 1 for "Jan" through 12 for "Dec", or -1 for anything else
+     */
+    private static int month(char c0, char c1, char c2) {
+        switch (c0) {
+        case 'J':
+            if (c1 == 'a' && c2 == 'n') return 1;
+            if (c1 == 'u' && c2 == 'n') return 6;
+            return c1 == 'u' && c2 == 'l' ? 7 : -1;
+        case 'F':
+            return c1 == 'e' && c2 == 'b' ? 2 : -1;
+        case 'M':
+            if (c1 == 'a' && c2 == 'r') return 3;
+            return c1 == 'a' && c2 == 'y' ? 5 : -1;
+        case 'A':
+            if (c1 == 'p' && c2 == 'r') return 4;
+            return c1 == 'u' && c2 == 'g' ? 8 : -1;
+        case 'S':
+            return c1 == 'e' && c2 == 'p' ? 9 : -1;
+        case 'O':
+            return c1 == 'c' && c2 == 't' ? 10 : -1;
+        case 'N':
+            return c1 == 'o' && c2 == 'v' ? 11 : -1;
+        case 'D':
+            return c1 == 'e' && c2 == 'c' ? 12 : -1;
+        default:
+            return -1;
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    /*
+     * @return days from 1970-01-01 to the given proleptic Gregorian date
+     */
+    private static long epochDay(int year, int month, int day) {
+        // shift the year to start in March so the leap day falls at its end
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,392 @@
+package twitter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable social network over the ids of a UsernameDictionary, stored in
+ * compressed sparse row form: every edge costs one int, instead of the entries
+ * of a HashMap and HashSet per edge of the Map form of SocialNetwork.
+ *
+ * The users that user a follows are neighbors[offsets[a] .. offsets[a + 1]),
+ * in ascending order. Which users are keys of the network (as in the Map
+ * form, a user may follow nobody and still be a key) is kept in a bitset, and
+ * the in-degree of every user is kept alongside. Neighbors and edges are
+ * visited through IntConsumer and EdgeConsumer, without boxing.
+ *
+ * Graphs are made from tweets, from the int[][] form of IdSocialNetwork, or
+ * from the Map form, and can be turned back into either.
+ */
+public class CsrFollowsGraph {
+
+    /**
+     * Receives the edges of a graph.
+     */
+    public interface EdgeConsumer {
+        /**
+         * @param follower id of a user
+         * @param followed id of a user that follower follows
+         */
+        void edge(int follower, int followed);
+    }
+
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final long[] keys;
+    private final int[] inDegrees;
+    /* Rep invariant:
+     *    offsets.length == inDegrees.length + 1, offsets[0] == 0,
+     *    offsets is non-decreasing, and offsets[offsets.length - 1] == neighbors.length
+     *    each row neighbors[offsets[a] .. offsets[a + 1]) is strictly ascending,
+     *    with ids in [0, userCount()), and is empty unless a is a key
+     *    keys.length == (userCount() + 63) / 64, with no bits set at or after userCount()
+     *    inDegrees[b] is the number of rows containing b
+     * Abstraction function:
+     *    represents the social network on users 0 .. userCount() - 1 whose keys are
+     *    the users a with bit a of keys set, where a follows the users in row a
+     */
+
+    private CsrFollowsGraph(int[] offsets, int[] neighbors, long[] keys) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.keys = keys;
+        this.inDegrees = new int[offsets.length - 1];
+        for (int followed: neighbors) {
+            inDegrees[followed]++;
+        }
+    }
+
+    /**
+     * Find who mentions whom, as the evidence SocialNetwork.guessFollowsGraph starts from.
+     *
+     * @param tweets a list of tweets, not modified by this method
+     * @param usernames dictionary to give ids to the authors and mentioned users,
+     *                  to which new usernames are added
+     * @return a graph of usernames.size() users, whose keys are the authors of the
+     *         tweets, where a follows the users a mentions, other than a
+     */
+    public static CsrFollowsGraph mentionGraph(List<Tweet> tweets, UsernameDictionary usernames) {
+        EdgeList edges = new EdgeList(usernames);
+        for (Tweet tweet: tweets){
+            edges.startAuthor(usernames.idOf(tweet.getAuthor()));
+            MentionScanner.scan(tweet.getText(), edges);
+        }
+        return edges.graph(usernames.size());
+    }
+
+    /**
+     * Guess who might follow whom, from evidence found in tweets, as
+     * SocialNetwork.guessFollowsGraph does.
+     *
+     * @param tweets a list of tweets providing the evidence, not modified by this method
+     * @param usernames dictionary to give ids to the users, to which new usernames are added
+     * @return the mention graph of the tweets, closed by triadic closure over 2
+     *         shared intermediaries, of usernames.size() users
+     */
+    public static CsrFollowsGraph guessFollowsGraph(List<Tweet> tweets, UsernameDictionary usernames) {
+        return new TriadicClosureEngine().close(mentionGraph(tweets, usernames), 2);
+    }
+
+    /*
+     * A graph of the given arrays, which must satisfy the rep invariant; they are
+     * not copied.
+     */
+    static CsrFollowsGraph fromRows(int[] offsets, int[] neighbors, long[] keys) {
+        return new CsrFollowsGraph(offsets, neighbors, keys);
+    }
+
+    /**
+     * @param graph a social network in the int[][] form of IdSocialNetwork; not modified
+     * @return the same social network, of graph.length users
+     */
+    public static CsrFollowsGraph fromIds(int[][] graph) {
+        int[] offsets = new int[graph.length + 1];
+        long[] keys = new long[(graph.length + 63) / 64];
+        for (int a = 0; a < graph.length; a++) {
+            int degree = 0;
+            if (graph[a] != null) {
+                keys[a >>> 6] |= 1L << a;
+                degree = graph[a].length;
+            }
+            offsets[a + 1] = offsets[a] + degree;
+        }
+        int[] neighbors = new int[offsets[graph.length]];
+        for (int a = 0; a < graph.length; a++) {
+            if (graph[a] != null) {
+                System.arraycopy(graph[a], 0, neighbors, offsets[a], graph[a].length);
+            }
+        }
+        return new CsrFollowsGraph(offsets, neighbors, keys);
+    }
+
+    /**
+     * @param followsGraph a social network in the Map form of SocialNetwork; not modified
+     * @param usernames dictionary to give ids to its users, to which new usernames are added
+     * @return the same social network, of usernames.size() users; keys that differ
+     *         only in case are merged
+     */
+    public static CsrFollowsGraph fromMap(Map<String, Set<String>> followsGraph, UsernameDictionary usernames) {
+        return fromIds(IdSocialNetwork.fromMap(followsGraph, usernames));
+    }
+
+    /**
+     * @return the same social network in the int[][] form of IdSocialNetwork
+     */
+    public int[][] toIds() {
+        int[][] graph = new int[userCount()][];
+        for (int a = 0; a < graph.length; a++) {
+            if (isKey(a)) {
+                graph[a] = Arrays.copyOfRange(neighbors, offsets[a], offsets[a + 1]);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * @param usernames dictionary that gave the ids of this graph
+     * @return the same social network in the Map form of SocialNetwork, with lowercase usernames
+     */
+    public Map<String, Set<String>> toMap(UsernameDictionary usernames) {
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        for (int a = 0; a < userCount(); a++) {
+            if (isKey(a)) {
+                Set<String> followed = new HashSet<>();
+                for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                    followed.add(usernames.username(neighbors[i]));
+                }
+                followsGraph.put(usernames.username(a), followed);
+            }
+        }
+        return followsGraph;
+    }
+
+    /**
+     * @return number of users, keys or not; ids are 0 .. userCount() - 1
+     */
+    public int userCount() {
+        return inDegrees.length;
+    }
+
+    /**
+     * @return number of follows in the graph
+     */
+    public int edgeCount() {
+        return neighbors.length;
+    }
+
+    /**
+     * @param user id of a user, requires 0 <= user < userCount()
+     * @return true iff user is a key of the social network
+     */
+    public boolean isKey(int user) {
+        checkUser(user);
+        return (keys[user >>> 6] & (1L << user)) != 0;
+    }
+
+    /**
+     * @param user id of a user, requires 0 <= user < userCount()
+     * @return number of users that user follows
+     */
+    public int outDegree(int user) {
+        checkUser(user);
+        return offsets[user + 1] - offsets[user];
+    }
+
+    /**
+     * @param user id of a user, requires 0 <= user < userCount()
+     * @return number of users that follow user
+     */
+    public int inDegree(int user) {
+        checkUser(user);
+        return inDegrees[user];
+    }
+
+    /**
+     * @param follower id of a user, requires 0 <= follower < userCount()
+     * @param followed id of a user
+     * @return true iff follower follows followed
+     */
+    public boolean follows(int follower, int followed) {
+        checkUser(follower);
+        return Arrays.binarySearch(neighbors, offsets[follower], offsets[follower + 1], followed) >= 0;
+    }
+
+    /**
+     * @param user id of a user, requires 0 <= user < userCount()
+     * @return the ids of the users that user follows, ascending, in a new array
+     */
+    public int[] neighbors(int user) {
+        checkUser(user);
+        return Arrays.copyOfRange(neighbors, offsets[user], offsets[user + 1]);
+    }
+
+    /**
+     * Give action the ids of the users that a user follows, in ascending order.
+     *
+     * @param user id of a user, requires 0 <= user < userCount()
+     * @param action receives each id
+     */
+    public void forEachNeighbor(int user, IntConsumer action) {
+        checkUser(user);
+        for (int i = offsets[user]; i < offsets[user + 1]; i++) {
+            action.accept(neighbors[i]);
+        }
+    }
+
+    /**
+     * Give action every edge of the graph, in ascending order of follower, then followed.
+     *
+     * @param action receives each edge
+     */
+    public void forEachEdge(EdgeConsumer action) {
+        for (int a = 0; a < userCount(); a++) {
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                action.edge(a, neighbors[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the ids of all users that are keys or followed, in descending order
+     *         of in-degree, as for IdSocialNetwork.influencers
+     */
+    public int[] influencers() {
+        int maxInDegree = 0;
+        for (int degree: inDegrees) {
+            maxInDegree = Math.max(maxInDegree, degree);
+        }
+        long[] sortKeys = new long[userCount()];
+        int count = 0;
+        for (int user = 0; user < userCount(); user++) {
+            if (isKey(user) || inDegrees[user] > 0) {
+                sortKeys[count++] = ((long) (maxInDegree - inDegrees[user]) << 32) | user;
+            }
+        }
+        Arrays.sort(sortKeys, 0, count);
+        int[] ranked = new int[count];
+        for (int i = 0; i < count; i++) {
+            ranked[i] = (int) sortKeys[i];
+        }
+        return ranked;
+    }
+
+    /*
+     * The offsets of the rows, not to be modified.
+     */
+    int[] offsets() {
+        return offsets;
+    }
+
+    /*
+     * The rows of neighbors, not to be modified.
+     */
+    int[] neighborArray() {
+        return neighbors;
+    }
+
+    /*
+     * The key bitset, not to be modified.
+     */
+    long[] keyBits() {
+        return keys;
+    }
+
+    private void checkUser(int user) {
+        if (user < 0 || user >= userCount()) {
+            throw new IndexOutOfBoundsException("no user with id " + user);
+        }
+    }
+
+    @Override public boolean equals(Object that) {
+        if (!(that instanceof CsrFollowsGraph)) {
+            return false;
+        }
+        CsrFollowsGraph graph = (CsrFollowsGraph) that;
+        return Arrays.equals(offsets, graph.offsets) && Arrays.equals(neighbors, graph.neighbors)
+                && Arrays.equals(keys, graph.keys);
+    }
+
+    @Override public int hashCode() {
+        return 31 * Arrays.hashCode(offsets) + Arrays.hashCode(neighbors);
+    }
+
+    @Override public String toString() {
+        return "CsrFollowsGraph(" + userCount() + " users, " + edgeCount() + " edges)";
+    }
+
+    /* Edges found while scanning tweets, grouped into rows by graph(). */
+    private static class EdgeList implements MentionScanner.MentionHandler {
+        private final UsernameDictionary usernames;
+        private int[] followers = new int[64];
+        private int[] followed = new int[64];
+        private int size = 0;
+        private long[] authors = new long[1];
+        private int author;
+
+        EdgeList(UsernameDictionary usernames) {
+            this.usernames = usernames;
+        }
+
+        void startAuthor(int id) {
+            if (id >>> 6 >= authors.length) {
+                authors = Arrays.copyOf(authors, Math.max((id >>> 6) + 1, authors.length * 2));
+            }
+            authors[id >>> 6] |= 1L << id;
+            author = id;
+        }
+
+        @Override public void mention(CharSequence text, int start, int end) {
+            int id = usernames.idOf(text, start, end);
+            if (id == author) {
+                return; // users can't follow themselves
+            }
+            if (size == followers.length) {
+                followers = Arrays.copyOf(followers, size * 2);
+                followed = Arrays.copyOf(followed, size * 2);
+            }
+            followers[size] = author;
+            followed[size] = id;
+            size++;
+        }
+
+        /*
+         * Group the edges into rows by counting sort, then sort and deduplicate each row.
+         */
+        CsrFollowsGraph graph(int userCount) {
+            int[] offsets = new int[userCount + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[followers[i] + 1]++;
+            }
+            for (int a = 0; a < userCount; a++) {
+                offsets[a + 1] += offsets[a];
+            }
+            int[] rows = new int[size];
+            int[] filled = Arrays.copyOf(offsets, userCount);
+            for (int i = 0; i < size; i++) {
+                rows[filled[followers[i]]++] = followed[i];
+            }
+            // sort each row and squeeze out repeats, moving rows down in place
+            int[] compact = new int[userCount + 1];
+            int next = 0;
+            for (int a = 0; a < userCount; a++) {
+                int start = offsets[a];
+                int end = offsets[a + 1];
+                Arrays.sort(rows, start, end);
+                compact[a] = next;
+                for (int i = start; i < end; i++) {
+                    if (i == start || rows[i] != rows[i - 1]) {
+                        rows[next++] = rows[i];
+                    }
+                }
+            }
+            compact[userCount] = next;
+            long[] keys = Arrays.copyOf(authors, (userCount + 63) / 64);
+            return new CsrFollowsGraph(compact, next == rows.length ? rows : Arrays.copyOf(rows, next), keys);
+        }
+    }
+}
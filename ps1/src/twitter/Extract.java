@@ -7,7 +7,6 @@ import java.time.Instant;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.*; //added for use in substring matching
 
 /**
  * Extract consists of methods that extract information from a list of tweets.
@@ -60,18 +59,53 @@ public class Extract {
      *         include a username at most once.
      */
     public static Set<String> getMentionedUsers(List<Tweet> tweets) {
-        Set<String> mentionedUsers = new HashSet<String>();
+        UsernameDictionary mentionedUsers = new UsernameDictionary();
+        MentionScanner.MentionHandler addMention = mentionedUsers::idOf; // one handler for all tweets, so only new usernames allocate
         for (Tweet tweet: tweets){
-            String tweetText = tweet.getText();
-            String regexForUsername = "(?<=(^|[^\\w\\-])@)[\\w\\-]+";
-            Pattern userMention = Pattern.compile(regexForUsername);
-            Matcher patternMatcher = userMention.matcher(tweetText);
-            while (patternMatcher.find()){//finding next match, converting it to lowercase, then saving in set (if not already there)
-                String username = patternMatcher.group().toLowerCase();
-                mentionedUsers.add(username);
-            }
+            MentionScanner.scan(tweet.getText(), addMention);
+        }
+        return new HashSet<String>(mentionedUsers.usernames());
+    }
+
+    /**
+     * Get the time period spanned by tweets in a columnar store, computed
+     * directly on the timestamp column.
+     * 
+     * @param tweets
+     *            store of tweets with distinct ids, not modified by this method.
+     * @return a minimum-length time interval that contains the (millisecond)
+     *         timestamp of every tweet in the store.
+     */
+    public static Timespan getTimespan(TweetStore tweets) {
+        if (tweets.size() == 0){
+            return new Timespan(Instant.EPOCH, Instant.EPOCH);
+        }
+        long earliest = Long.MAX_VALUE;
+        long latest = Long.MIN_VALUE;
+        for (int i = 0; i < tweets.size(); i++){
+            long timestamp = tweets.getTimestampMillis(i);
+            earliest = Math.min(earliest, timestamp);
+            latest = Math.max(latest, timestamp);
+        }
+        return new Timespan(Instant.ofEpochMilli(earliest), Instant.ofEpochMilli(latest));
+    }
+
+    /**
+     * Get usernames mentioned in the tweets of a columnar store. Texts are
+     * decoded from the text column without making Tweets.
+     * 
+     * @param tweets
+     *            store of tweets with distinct ids, not modified by this method.
+     * @return the set of usernames who are mentioned in the text of the tweets,
+     *         as for getMentionedUsers(List).
+     */
+    public static Set<String> getMentionedUsers(TweetStore tweets) {
+        UsernameDictionary mentionedUsers = new UsernameDictionary();
+        MentionScanner.MentionHandler addMention = mentionedUsers::idOf;
+        for (int i = 0; i < tweets.size(); i++){
+            MentionScanner.scan(tweets.getText(i), addMention);
         }
-        return mentionedUsers;
+        return new HashSet<String>(mentionedUsers.usernames());
     }
 
 }
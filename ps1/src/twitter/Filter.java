@@ -5,9 +5,8 @@ package twitter;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Filter consists of methods that filter a list of tweets for those matching a
@@ -82,18 +81,111 @@ public class Filter {
      */
     public static List<Tweet> containing(List<Tweet> tweets, List<String> words) {
         List<Tweet> tweetsContainingWords = new ArrayList<Tweet>();
+        KeywordMatcher matcher = new KeywordMatcher(words); // built once, then one pass over each text
         for (Tweet tweet: tweets){
-            String tweetText = tweet.getText().toLowerCase();
-            for (String word: words){
-                String regexForWord = "(?<=(^|[\\s]))(" + word.toLowerCase() + ")(?=($|[\\s]))";
-                Pattern userMention = Pattern.compile(regexForWord);
-                Matcher patternMatcher = userMention.matcher(tweetText);
-                if(patternMatcher.find(0)){
-                    tweetsContainingWords.add(tweet);
-                    break; //we break once we find a single match to be more efficient
-                }
+            if (matcher.matches(tweet.getText())){
+                tweetsContainingWords.add(tweet);
             }
         }
         return tweetsContainingWords;
     }
+
+    /**
+     * Find tweets in a columnar store written by a particular user. Runs on the
+     * author dictionary and author column without making Tweets for non-matches.
+     * 
+     * @param tweets
+     *            a store of tweets with distinct ids, not modified by this method.
+     * @param username
+     *            Twitter username, required to be a valid Twitter username as
+     *            defined by Tweet.getAuthor()'s spec.
+     * @return all and only the tweets in the store whose author is username,
+     *         in the same order as in the store.
+     */
+    public static List<Tweet> writtenBy(TweetStore tweets, String username) {
+        int[] matches = ordinalsWrittenBy(tweets, username);
+        return tweets.tweetsAt(matches, matches.length);
+    }
+
+    /*
+     * @return ascending ordinals of the tweets in the store whose author is username
+     */
+    static int[] ordinalsWrittenBy(TweetStore tweets, String username) {
+        boolean[] isAuthor = new boolean[tweets.authorCount()];
+        for (int code = 0; code < isAuthor.length; code++){//compare each distinct author once, not once per tweet
+            isAuthor[code] = username.equalsIgnoreCase(tweets.authorOf(code));
+        }
+        int[] matches = new int[tweets.size()];
+        int count = 0;
+        for (int i = 0; i < tweets.size(); i++){
+            if (isAuthor[tweets.getAuthorCode(i)]){
+                matches[count++] = i;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Find tweets in a columnar store that were sent during a particular timespan.
+     * Runs on the timestamp column without making Tweets for non-matches.
+     * 
+     * @param tweets
+     *            a store of tweets with distinct ids, not modified by this method.
+     * @param timespan
+     *            timespan
+     * @return all and only the tweets in the store that were sent during the timespan,
+     *         in the same order as in the store.
+     */
+    public static List<Tweet> inTimespan(TweetStore tweets, Timespan timespan) {
+        int[] matches = ordinalsInTimespan(tweets, timespan);
+        return tweets.tweetsAt(matches, matches.length);
+    }
+
+    /*
+     * @return ascending ordinals of the tweets in the store sent during the timespan
+     */
+    static int[] ordinalsInTimespan(TweetStore tweets, Timespan timespan) {
+        long startMillis = TweetStore.ceilMillis(timespan.getStart());
+        long endMillis = TweetStore.floorMillis(timespan.getEnd());
+        int[] matches = new int[tweets.size()];
+        int count = 0;
+        for (int i = 0; i < tweets.size(); i++){
+            long timestamp = tweets.getTimestampMillis(i);
+            if (timestamp >= startMillis && timestamp <= endMillis){
+                matches[count++] = i;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Find tweets in a columnar store that contain certain words. Each text is
+     * decoded from the text column, but Tweets are made only for matches.
+     * 
+     * @param tweets
+     *            a store of tweets with distinct ids, not modified by this method.
+     * @param words
+     *            a list of words to search for in the tweets, as for containing(List, List).
+     * @return all and only the tweets in the store that include at least one of the
+     *         words, as for containing(List, List), in the same order as in the store.
+     */
+    public static List<Tweet> containing(TweetStore tweets, List<String> words) {
+        int[] matches = ordinalsContaining(tweets, words);
+        return tweets.tweetsAt(matches, matches.length);
+    }
+
+    /*
+     * @return ascending ordinals of the tweets in the store that include at least one of the words
+     */
+    static int[] ordinalsContaining(TweetStore tweets, List<String> words) {
+        KeywordMatcher matcher = new KeywordMatcher(words);
+        int[] matches = new int[tweets.size()];
+        int count = 0;
+        for (int i = 0; i < tweets.size(); i++){
+            if (matcher.matches(tweets.getText(i))){
+                matches[count++] = i;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
 }
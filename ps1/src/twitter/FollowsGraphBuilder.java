@@ -0,0 +1,270 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * FollowsGraphBuilder builds the social network of SocialNetwork.guessFollowsGraph
+ * in time linear in the number of tweets, spreading the work over the threads
+ * of a fork-join pool.
+ *
+ * Tweets are first grouped by case-folded author in one pass, with the
+ * counting sort of their positions that AuthorIndex uses. The authors are then split into partitions holding
+ * about the same number of tweets, and each partition scans its authors' tweets
+ * for mentions as a separate fork-join task. The partitions have disjoint
+ * authors, so their graphs are merged by simply putting them together.
+ *
+ * Triadic closure is split the same way, over ranges of authors holding about
+ * the same number of second-hop follows. Each range tallies in scratch arrays
+ * of its own, made when it starts and dropped when it ends, and each author's
+ * closed row is written to its own slot of the result, so no locks are needed
+ * to merge them.
+ */
+public class FollowsGraphBuilder {
+
+    /* Largest number of tweets a partition holds before it is split. */
+    private static final int PARTITION_TWEETS = 4096;
+    /* Least number of second-hop follows a closure partition visits before it is split. */
+    private static final long PARTITION_HOPS = 1 << 16;
+    /* Number of closure partitions to aim for per thread of the pool, for balance. */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    /* Abstraction function:
+     *    represents a builder that runs its partitions in pool
+     */
+
+    /**
+     * Make a builder that runs on the common fork-join pool.
+     */
+    public FollowsGraphBuilder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool to run the partitions in
+     */
+    public FollowsGraphBuilder(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Guess who might follow whom, from evidence found in tweets.
+     *
+     * @param tweets a list of tweets providing the evidence, not modified by this method
+     * @return the same social network as SocialNetwork.guessFollowsGraph: the
+     *         mention graph, with triadic closure over 2 shared intermediaries
+     */
+    public Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets) {
+        return triadicClosure(mentionGraph(tweets), 2);
+    }
+
+    /**
+     * Infer more follows by triadic closure, in parallel.
+     *
+     * @param followsGraph a social network, as defined by SocialNetwork; not modified
+     * @param thresholdFirstInfluencers number of shared intermediaries needed to
+     *                                  infer a follow
+     * @return the same social network as SocialNetwork.triadicClosure
+     */
+    public Map<String, Set<String>> triadicClosure(Map<String, Set<String>> followsGraph, int thresholdFirstInfluencers) {
+        UsernameDictionary usernames = new UsernameDictionary();
+        int[][] graph = IdSocialNetwork.fromMap(followsGraph, usernames);
+        return IdSocialNetwork.toMap(triadicClosure(graph, thresholdFirstInfluencers), usernames);
+    }
+
+    /**
+     * Infer more follows by triadic closure, in parallel.
+     *
+     * @param graph a social network, as defined by IdSocialNetwork; not modified
+     * @param threshold number of shared intermediaries needed to infer a follow
+     * @return the same social network as IdSocialNetwork.triadicClosure
+     */
+    public int[][] triadicClosure(int[][] graph, int threshold) {
+        // hops[a] is the number of second-hop follows visited by the authors before a
+        long[] hops = new long[graph.length + 1];
+        for (int a = 0; a < graph.length; a++) {
+            long work = 0;
+            if (graph[a] != null) {
+                for (int b: graph[a]) {
+                    work += graph[b] == null ? 1 : graph[b].length + 1;
+                }
+            }
+            hops[a + 1] = hops[a] + work + 1;
+        }
+        // each partition makes two scratch arrays of graph.length, so it does at least that much work
+        long partitionHops = Math.max(Math.max(PARTITION_HOPS, graph.length),
+                hops[graph.length] / ((long) pool.getParallelism() * PARTITIONS_PER_THREAD));
+        int[][] closed = new int[graph.length][];
+        pool.invoke(new ClosurePartition(graph, threshold, closed, hops, partitionHops, 0, graph.length));
+        return closed;
+    }
+
+    /**
+     * Find who mentions whom.
+     *
+     * @param tweets a list of tweets, not modified by this method
+     * @return a social network, as defined by SocialNetwork, whose keys are exactly
+     *         the authors of the tweets, in lowercase, where map[A] is the set of
+     *         users mentioned in tweets by A, other than A, in lowercase
+     */
+    public Map<String, Set<String>> mentionGraph(List<Tweet> tweets) {
+        List<Tweet> list = tweets instanceof RandomAccess ? tweets : new ArrayList<Tweet>(tweets);
+        UsernameDictionary authors = new UsernameDictionary();
+        // the same grouping AuthorIndex uses: author id's tweets are at positions[offsets[id] .. offsets[id + 1])
+        AuthorIndex.Grouping byAuthor = AuthorIndex.groupByAuthor(list, 0, authors);
+        return pool.invoke(new Partition(list, authors, byAuthor.offsets, byAuthor.positions, 0, authors.size()));
+    }
+
+    /* The mention graph of the authors with ids in [low, high). */
+    private static class Partition extends RecursiveTask<Map<String, Set<String>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Tweet> tweets;
+        private final UsernameDictionary authors;
+        private final int[] offsets;
+        private final int[] positions;
+        private final int low;
+        private final int high;
+        /* Rep invariant:
+         *    0 <= low < high <= authors.size(), or low == high == 0
+         *    offsets and positions group the positions in tweets by author id, as built by
+         *    AuthorIndex.groupByAuthor
+         */
+
+        Partition(List<Tweet> tweets, UsernameDictionary authors, int[] offsets, int[] positions, int low, int high) {
+            this.tweets = tweets;
+            this.authors = authors;
+            this.offsets = offsets;
+            this.positions = positions;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override protected Map<String, Set<String>> compute() {
+            if (high - low <= 1 || offsets[high] - offsets[low] <= PARTITION_TWEETS) {
+                return build();
+            }
+            int middle = splitPoint();
+            Partition left = new Partition(tweets, authors, offsets, positions, low, middle);
+            Partition right = new Partition(tweets, authors, offsets, positions, middle, high);
+            left.fork();
+            Map<String, Set<String>> rightGraph = right.compute();
+            Map<String, Set<String>> leftGraph = left.join();
+            if (leftGraph.size() < rightGraph.size()) {
+                rightGraph.putAll(leftGraph);
+                return rightGraph;
+            }
+            leftGraph.putAll(rightGraph);
+            return leftGraph;
+        }
+
+        /*
+         * The first author id in (low, high) at which at least half of the
+         * partition's tweets come before, so both halves are nonempty.
+         */
+        private int splitPoint() {
+            int half = (offsets[low] + offsets[high]) >>> 1;
+            int from = low + 1;
+            int to = high - 1;
+            while (from < to) {
+                int middle = (from + to) >>> 1;
+                if (offsets[middle] < half) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
+            }
+            return from;
+        }
+
+        private Map<String, Set<String>> build() {
+            Map<String, Set<String>> graph = new HashMap<>();
+            Mentions mentions = new Mentions();
+            for (int id = low; id < high; id++) {
+                String author = authors.username(id);
+                mentions.found = new HashSet<>();
+                for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                    MentionScanner.scan(tweets.get(positions[i]).getText(), mentions);
+                }
+                mentions.found.remove(author); // users can't follow themselves
+                graph.put(author, mentions.found);
+            }
+            return graph;
+        }
+    }
+
+    /* The triadic closure of the authors with ids in [low, high). */
+    private static class ClosurePartition extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] graph;
+        private final int threshold;
+        private final int[][] closed;
+        private final long[] hops;
+        private final long partitionHops;
+        private final int low;
+        private final int high;
+        /* Rep invariant:
+         *    0 <= low <= high <= graph.length
+         *    hops is the prefix sum of work per author, as built by triadicClosure
+         */
+
+        ClosurePartition(int[][] graph, int threshold, int[][] closed, long[] hops, long partitionHops, int low, int high) {
+            this.graph = graph;
+            this.threshold = threshold;
+            this.closed = closed;
+            this.hops = hops;
+            this.partitionHops = partitionHops;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override protected void compute() {
+            if (high - low <= 1 || hops[high] - hops[low] <= partitionHops) {
+                IdSocialNetwork.closeAuthors(graph, threshold, closed, low, high, new int[graph.length], new int[graph.length]);
+                return;
+            }
+            int middle = splitPoint();
+            invokeAll(new ClosurePartition(graph, threshold, closed, hops, partitionHops, low, middle),
+                    new ClosurePartition(graph, threshold, closed, hops, partitionHops, middle, high));
+        }
+
+        /*
+         * The first author id in (low, high) at which at least half of the
+         * partition's work comes before, so both halves are nonempty.
+         */
+        private int splitPoint() {
+            long half = (hops[low] + hops[high]) >>> 1;
+            int from = low + 1;
+            int to = high - 1;
+            while (from < to) {
+                int middle = (from + to) >>> 1;
+                if (hops[middle] < half) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
+            }
+            return from;
+        }
+    }
+
+    /* Collects the mentioned usernames of one author's tweets, interning them across authors. */
+    private static class Mentions implements MentionScanner.MentionHandler {
+        private final UsernameDictionary usernames = new UsernameDictionary();
+        Set<String> found;
+
+        @Override public void mention(CharSequence text, int start, int end) {
+            found.add(usernames.username(usernames.idOf(text, start, end)));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * IdSocialNetwork provides the methods of SocialNetwork on social networks whose
+ * users are the int ids of a UsernameDictionary, so usernames are case-folded
+ * and hashed once, when they are first seen, and never compared as Strings again.
+ *
+ * A social network is represented by an int[][] graph, indexed by user id,
+ * where graph[a] is the ascending array of the distinct ids of the users that a
+ * follows, or null if a is not a key of the network (as a user may not be a key
+ * of the Map of SocialNetwork). Every id in the graph is less than graph.length.
+ * fromMap and toMap convert to and from the Map form at the API boundary.
+ */
+public class IdSocialNetwork {
+
+    private static final int[] NO_IDS = new int[0];
+
+    /**
+     * Guess who might follow whom, from evidence found in tweets, as
+     * SocialNetwork.guessFollowsGraph does.
+     *
+     * @param tweets a list of tweets providing the evidence, not modified by this method
+     * @param usernames dictionary to give ids to the authors and mentioned users,
+     *                  to which new usernames are added
+     * @return a social network of length usernames.size(), whose keys are the
+     *         authors of the tweets, where a follows the users a mentions (other than
+     *         a), closed by triadicClosure over 2 shared intermediaries
+     */
+    public static int[][] guessFollowsGraph(List<Tweet> tweets, UsernameDictionary usernames) {
+        MentionLists mentions = new MentionLists(usernames);
+        for (Tweet tweet: tweets){
+            mentions.startAuthor(usernames.idOf(tweet.getAuthor()));
+            MentionScanner.scan(tweet.getText(), mentions);
+        }
+        return triadicClosure(mentions.graph(), 2);
+    }
+
+    /* Collects, for each author, the ids of the users the author mentions. */
+    private static class MentionLists implements MentionScanner.MentionHandler {
+        private final UsernameDictionary usernames;
+        private int[][] lists = new int[16][];
+        private int[] sizes = new int[16];
+        private int author;
+
+        MentionLists(UsernameDictionary usernames) {
+            this.usernames = usernames;
+        }
+
+        void startAuthor(int id) {
+            if (id >= lists.length) {
+                int length = Math.max(id + 1, lists.length * 2);
+                lists = Arrays.copyOf(lists, length);
+                sizes = Arrays.copyOf(sizes, length);
+            }
+            if (lists[id] == null) {
+                lists[id] = new int[4];
+            }
+            author = id;
+        }
+
+        @Override public void mention(CharSequence text, int start, int end) {
+            int id = usernames.idOf(text, start, end);
+            if (id == author) {
+                return; // users can't follow themselves
+            }
+            if (sizes[author] == lists[author].length) {
+                lists[author] = Arrays.copyOf(lists[author], sizes[author] * 2);
+            }
+            lists[author][sizes[author]++] = id;
+        }
+
+        int[][] graph() {
+            int[][] graph = new int[usernames.size()][];
+            for (int id = 0; id < Math.min(lists.length, graph.length); id++) {
+                if (lists[id] != null) {
+                    graph[id] = sortedDistinct(lists[id], sizes[id]);
+                }
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * Infer more follows by triadic closure, as SocialNetwork.triadicClosure does:
+     * a follows c if a already does, or if at least threshold of the users a
+     * follows follow c.
+     *
+     * @param graph a social network, as defined above; not modified by this method
+     * @param threshold number of shared intermediaries needed to infer a follow;
+     *                  as for SocialNetwork.triadicClosure, values below 1 act as 1
+     * @return a social network with the same keys and length as graph, in which
+     *         each key follows the users it follows in graph and those inferred;
+     *         like SocialNetwork.triadicClosure, this may infer that a follows a
+     */
+    public static int[][] triadicClosure(int[][] graph, int threshold) {
+        int[][] closed = new int[graph.length][];
+        closeAuthors(graph, threshold, closed, 0, graph.length, new int[graph.length], new int[graph.length]);
+        return closed;
+    }
+
+    /*
+     * Set closed[a] to the triadic closure of each author a in [from, to) of graph,
+     * reading only graph, and writing only those elements of closed.
+     * tally and touched are scratch space of length graph.length; tally must be
+     * all zero, and is left all zero.
+     */
+    static void closeAuthors(int[][] graph, int threshold, int[][] closed, int from, int to, int[] tally, int[] touched) {
+        for (int a = from; a < to; a++) {
+            if (graph[a] == null) {
+                continue;
+            }
+            int touchedCount = 0;
+            for (int b: graph[a]) {
+                if (graph[b] == null) {
+                    continue;
+                }
+                for (int c: graph[b]) {
+                    if (tally[c]++ == 0) {
+                        touched[touchedCount++] = c;
+                    }
+                }
+            }
+            int inferredCount = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int c = touched[i];
+                if (tally[c] >= threshold) {
+                    touched[inferredCount++] = c;
+                }
+                tally[c] = 0;
+            }
+            Arrays.sort(touched, 0, inferredCount);
+            closed[a] = union(graph[a], touched, inferredCount);
+        }
+    }
+
+    /**
+     * Find the users of a social network with the most followers, as
+     * SocialNetwork.influencers does.
+     *
+     * @param graph a social network, as defined above
+     * @return the distinct ids of all users that are keys of graph or followed in
+     *         it, in descending order of follower count; users with the same
+     *         count are in ascending order of id
+     */
+    public static int[] influencers(int[][] graph) {
+        int[] followers = new int[graph.length];
+        boolean[] present = new boolean[graph.length];
+        int maxFollowers = 0;
+        for (int a = 0; a < graph.length; a++) {
+            if (graph[a] == null) {
+                continue;
+            }
+            present[a] = true;
+            for (int b: graph[a]) {
+                present[b] = true;
+                maxFollowers = Math.max(maxFollowers, ++followers[b]);
+            }
+        }
+        // sort by (maxFollowers - followers, id), packed into one long each
+        long[] keys = new long[graph.length];
+        int count = 0;
+        for (int id = 0; id < graph.length; id++) {
+            if (present[id]) {
+                keys[count++] = ((long) (maxFollowers - followers[id]) << 32) | id;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        int[] ranked = new int[count];
+        for (int i = 0; i < count; i++) {
+            ranked[i] = (int) keys[i];
+        }
+        return ranked;
+    }
+
+    /**
+     * Convert a social network from the Map form of SocialNetwork.
+     *
+     * @param followsGraph a social network, as defined by SocialNetwork; not modified
+     * @param usernames dictionary to give ids to its users, to which new usernames are added
+     * @return the same social network, with each username replaced by its id, of
+     *         length usernames.size(); keys that differ only in case are merged
+     */
+    public static int[][] fromMap(Map<String, Set<String>> followsGraph, UsernameDictionary usernames) {
+        int[] keys = new int[followsGraph.size()];
+        int[][] follows = new int[followsGraph.size()][];
+        int count = 0;
+        for (Map.Entry<String, Set<String>> entry: followsGraph.entrySet()) {
+            keys[count] = usernames.idOf(entry.getKey());
+            int[] ids = new int[entry.getValue().size()];
+            int i = 0;
+            for (String followed: entry.getValue()) {
+                ids[i++] = usernames.idOf(followed);
+            }
+            follows[count++] = ids;
+        }
+        int[][] graph = new int[usernames.size()][];
+        for (int k = 0; k < count; k++) {
+            int[] merged = graph[keys[k]] == null ? follows[k] : concat(graph[keys[k]], follows[k]);
+            graph[keys[k]] = sortedDistinct(merged, merged.length);
+        }
+        return graph;
+    }
+
+    /**
+     * Convert a social network to the Map form of SocialNetwork.
+     *
+     * @param graph a social network, as defined above
+     * @param usernames dictionary that gave the ids of graph
+     * @return the same social network, with each id replaced by its lowercase username
+     */
+    public static Map<String, Set<String>> toMap(int[][] graph, UsernameDictionary usernames) {
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        for (int a = 0; a < graph.length; a++) {
+            if (graph[a] != null) {
+                followsGraph.put(usernames.username(a), usernames(graph[a], usernames, new HashSet<String>()));
+            }
+        }
+        return followsGraph;
+    }
+
+    /**
+     * @param ids user ids
+     * @param usernames dictionary that gave the ids
+     * @return the lowercase usernames of ids, in the same order
+     */
+    public static List<String> usernames(int[] ids, UsernameDictionary usernames) {
+        return usernames(ids, usernames, new ArrayList<String>(ids.length));
+    }
+
+    private static <C extends Collection<String>> C usernames(int[] ids, UsernameDictionary usernames, C into) {
+        for (int id: ids) {
+            into.add(usernames.username(id));
+        }
+        return into;
+    }
+
+    /*
+     * The distinct values of ids[0..count), ascending, in a new array.
+     */
+    private static int[] sortedDistinct(int[] ids, int count) {
+        if (count == 0) {
+            return NO_IDS;
+        }
+        int[] sorted = Arrays.copyOf(ids, count);
+        Arrays.sort(sorted);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct == count ? sorted : Arrays.copyOf(sorted, distinct);
+    }
+
+    /*
+     * The union of ascending a and ascending b[0..count), ascending.
+     */
+    private static int[] union(int[] a, int[] b, int count) {
+        int[] union = new int[a.length + count];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length || j < count) {
+            if (j == count || (i < a.length && a[i] < b[j])) {
+                union[k++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                union[k++] = b[j++];
+            } else {
+                union[k++] = a[i++];
+                j++;
+            }
+        }
+        return k == union.length ? union : Arrays.copyOf(union, k);
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] both = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, both, a.length, b.length);
+        return both;
+    }
+}
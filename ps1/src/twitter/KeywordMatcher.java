@@ -0,0 +1,256 @@
+package twitter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * KeywordMatcher tests texts for whole-word, case-insensitive occurrences of
+ * any of a fixed list of words, as Filter.containing defines them: the text,
+ * split into words at space characters, includes at least one of the words.
+ *
+ * The words are compiled once into a trie over their lowercase chars. A text
+ * is matched in one pass: the trie is walked along each of its words and
+ * restarted at every space, so matching takes time linear in the length of
+ * the text, however many words there are. Since only whole words can match,
+ * no failure links are needed.
+ *
+ * Words are compared literally, and lowercased with the default locale, the
+ * same way Filter.containing always lowercased tweets.
+ */
+public class KeywordMatcher {
+
+    private static final int ROOT = 0;
+    private static final int DEAD = -1;
+
+    private final Locale locale;
+    private final boolean asciiLowercase;
+    private boolean[] terminal = new boolean[16];
+    private int states = 1;
+    private long[] edgeKeys = new long[64];
+    private int[] edgeTargets = new int[64];
+    private int edges = 0;
+    /* Rep invariant:
+     *    states >= 1, and terminal.length >= states
+     *    edgeKeys.length == edgeTargets.length is a power of two, greater than 2 * edges
+     *    each edge from state s on char c is stored by linear probing from the slot
+     *    of key(s, c), with edgeTargets the state it leads to; other keys are 0
+     *    asciiLowercase iff lowercasing in locale maps A-Z to a-z and changes no other ASCII char
+     * Abstraction function:
+     *    represents the set of lowercase words spelled by the paths from ROOT to a
+     *    state s with terminal[s]
+     */
+
+    /**
+     * Make a matcher for a list of words, lowercased with the default locale.
+     *
+     * @param words words to search for; a word is a nonempty sequence of nonspace
+     *              characters, and not modified by this method
+     */
+    public KeywordMatcher(List<String> words) {
+        this.locale = Locale.getDefault();
+        this.asciiLowercase = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toLowerCase(locale).equals("abcdefghijklmnopqrstuvwxyz");
+        for (String word: words) {
+            add(word.toLowerCase(locale));
+        }
+    }
+
+    /**
+     * @param c any char
+     * @return true iff c is a space character, as matched by the regex \s:
+     *         space, tab, newline, vertical tab, form feed or carriage return
+     */
+    public static boolean isSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    /**
+     * Test whether a text includes any of the words.
+     *
+     * @param text text to search, as a sequence of words bounded by space
+     *             characters and the ends of the string
+     * @return true iff the text includes at least one of the words, ignoring case
+     */
+    public boolean matches(String text) {
+        return walk(text, null);
+    }
+
+    /* Receives the words of a text that are among the words of a matcher. */
+    interface WordHandler {
+        /**
+         * @param state the state of the trie that spells the word, as given by stateOf
+         */
+        void word(int state);
+    }
+
+    /*
+     * Give handler the trie state of every occurrence in text of one of the
+     * words, in order. A word may be given more than once.
+     */
+    void forEachWord(String text, WordHandler handler) {
+        walk(text, handler);
+    }
+
+    /*
+     * Walk the trie along each word of text. If handler is null, stop at the
+     * first of the words found; otherwise give each one found to handler.
+     * Returns true iff any of the words was found.
+     */
+    private boolean walk(String text, WordHandler handler) {
+        if (asciiLowercase && isAscii(text)) {
+            return walkLowercase(text, true, handler);
+        }
+        return walkLowercase(text.toLowerCase(locale), false, handler);
+    }
+
+    /*
+     * Walk as for walk, lowercasing ASCII letters as they are read if foldAscii
+     * is set, and otherwise taking text as already lowercase.
+     */
+    private boolean walkLowercase(String text, boolean foldAscii, WordHandler handler) {
+        int length = text.length();
+        int state = ROOT;
+        boolean found = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (isSpace(c)) {
+                if (state != DEAD && terminal[state]) {
+                    if (handler == null) {
+                        return true;
+                    }
+                    handler.word(state);
+                    found = true;
+                }
+                state = ROOT;
+                continue;
+            }
+            if (state == DEAD) {
+                continue;
+            }
+            if (i == length - 1 && isLineTerminator(c) && terminal[state]) {
+                // a word just before a final line terminator ends at $, as in the regex
+                if (handler == null) {
+                    return true;
+                }
+                handler.word(state);
+                found = true;
+            }
+            if (foldAscii && c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            state = next(state, c);
+        }
+        if (state != DEAD && terminal[state]) {
+            if (handler != null) {
+                handler.word(state);
+            }
+            found = true;
+        }
+        return found;
+    }
+
+    /*
+     * The state of the trie that spells word, lowercased as the words were, or
+     * -1 if word is not one of the words.
+     */
+    int stateOf(String word) {
+        String lowercase = word.toLowerCase(locale);
+        int state = ROOT;
+        for (int i = 0; i < lowercase.length() && state != DEAD; i++) {
+            state = next(state, lowercase.charAt(i));
+        }
+        return state != DEAD && terminal[state] ? state : DEAD;
+    }
+
+    /*
+     * Number of states of the trie; states are 0 .. stateCount() - 1.
+     */
+    int stateCount() {
+        return states;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Line terminators other than \n and \r, before which $ also matches at the
+     * end of the input. (\n and \r are already space characters.)
+     */
+    static boolean isLineTerminator(char c) {
+        return c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private void add(String word) {
+        int state = ROOT;
+        for (int i = 0; i < word.length(); i++) {
+            int target = next(state, word.charAt(i));
+            if (target == DEAD) {
+                target = newState();
+                putEdge(state, word.charAt(i), target);
+            }
+            state = target;
+        }
+        terminal[state] = true;
+    }
+
+    private int newState() {
+        if (states == terminal.length) {
+            terminal = Arrays.copyOf(terminal, states * 2);
+        }
+        return states++;
+    }
+
+    private static long key(int state, char c) {
+        return ((long) (state + 1) << 16) | c; // never 0, which marks an empty slot
+    }
+
+    private static int slotOf(long key, int mask) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int next(int state, char c) {
+        long key = key(state, c);
+        int mask = edgeKeys.length - 1;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            if (edgeKeys[slot] == key) {
+                return edgeTargets[slot];
+            }
+            if (edgeKeys[slot] == 0) {
+                return DEAD;
+            }
+        }
+    }
+
+    private void putEdge(int state, char c, int target) {
+        if (2 * (edges + 1) >= edgeKeys.length) {
+            long[] oldKeys = edgeKeys;
+            int[] oldTargets = edgeTargets;
+            edgeKeys = new long[oldKeys.length * 2];
+            edgeTargets = new int[oldKeys.length * 2];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    insert(oldKeys[slot], oldTargets[slot]);
+                }
+            }
+        }
+        insert(key(state, c), target);
+        edges++;
+    }
+
+    private void insert(long key, int target) {
+        int mask = edgeKeys.length - 1;
+        int slot = slotOf(key, mask);
+        while (edgeKeys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        edgeKeys[slot] = key;
+        edgeTargets[slot] = target;
+    }
+}
@@ -0,0 +1,128 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * KeywordQueries evaluates many Filter.containing queries over the same tweets
+ * together, in one pass over the tweets.
+ *
+ * The words of all the queries are compiled once into a single KeywordMatcher
+ * trie, and each word remembers the queries it belongs to. Each tweet's text
+ * is walked once along the trie, and only the queries of the words actually
+ * found in it are touched, so the work per tweet depends on the length of its
+ * text and its matches, not on the number of queries.
+ *
+ * For example:
+ *     KeywordQueries queries = new KeywordQueries(Arrays.asList(
+ *             Arrays.asList("rivest", "obama"), Arrays.asList("talk")));
+ *     List<List<Tweet>> results = queries.containing(tweets);
+ * gives results.get(0) equal to Filter.containing(tweets, ["rivest", "obama"])
+ * and results.get(1) equal to Filter.containing(tweets, ["talk"]).
+ */
+public class KeywordQueries {
+
+    private final int queryCount;
+    private final KeywordMatcher matcher;
+    private final int[][] queriesOfState;
+    /* Rep invariant:
+     *    queriesOfState.length == matcher.stateCount()
+     *    every non-null queriesOfState[s] is strictly ascending, holds query numbers
+     *    in [0, queryCount), and is non-null only for states s that end a word
+     * Abstraction function:
+     *    represents the list of queryCount queries, where query q is the list of
+     *    the words w with q in queriesOfState[matcher.stateOf(w)]
+     */
+
+    /**
+     * Compile a list of queries. Words are lowercased with the default locale,
+     * as for KeywordMatcher.
+     *
+     * @param queries lists of words to search for, each as for Filter.containing;
+     *                not modified by this method
+     */
+    public KeywordQueries(List<List<String>> queries) {
+        this.queryCount = queries.size();
+        List<String> allWords = new ArrayList<>();
+        for (List<String> words: queries) {
+            allWords.addAll(words);
+        }
+        this.matcher = new KeywordMatcher(allWords);
+        this.queriesOfState = new int[matcher.stateCount()][];
+        int[] counts = new int[queriesOfState.length];
+        for (int q = 0; q < queryCount; q++) {
+            for (String word: queries.get(q)) {
+                int state = matcher.stateOf(word);
+                int count = counts[state];
+                if (count > 0 && queriesOfState[state][count - 1] == q) {
+                    continue; // the word is repeated in this query
+                }
+                if (queriesOfState[state] == null) {
+                    queriesOfState[state] = new int[2];
+                } else if (count == queriesOfState[state].length) {
+                    queriesOfState[state] = Arrays.copyOf(queriesOfState[state], count * 2);
+                }
+                queriesOfState[state][counts[state]++] = q;
+            }
+        }
+        for (int state = 0; state < queriesOfState.length; state++) {
+            if (queriesOfState[state] != null) {
+                queriesOfState[state] = Arrays.copyOf(queriesOfState[state], counts[state]);
+            }
+        }
+    }
+
+    /**
+     * @return number of queries
+     */
+    public int size() {
+        return queryCount;
+    }
+
+    /**
+     * Find the tweets that contain the words of each query, in one pass.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this method
+     * @return a list of size() lists, where list q holds all and only the tweets
+     *         in the input list that include at least one of the words of query q,
+     *         in the same order as in the input list; the same as Filter.containing
+     *         of tweets and query q
+     */
+    public List<List<Tweet>> containing(List<Tweet> tweets) {
+        Pass pass = new Pass();
+        for (Tweet tweet: tweets){
+            pass.tweet = tweet;
+            matcher.forEachWord(tweet.getText(), pass);
+            pass.position++;
+        }
+        return pass.results;
+    }
+
+    /* One pass over a list of tweets, adding each tweet to the results of the queries it matches. */
+    private class Pass implements KeywordMatcher.WordHandler {
+        final List<List<Tweet>> results = new ArrayList<>(queryCount);
+        final int[] lastAdded = new int[queryCount];
+        Tweet tweet;
+        int position = 0;
+        /* Rep invariant:
+         *    results.size() == queryCount
+         *    lastAdded[q] is 1 + the position of the last tweet added to results.get(q), or 0
+         */
+
+        Pass() {
+            for (int q = 0; q < queryCount; q++) {
+                results.add(new ArrayList<Tweet>());
+            }
+        }
+
+        @Override public void word(int state) {
+            for (int q: queriesOfState[state]) {
+                if (lastAdded[q] != position + 1) { // the tweet may hold several words of q
+                    lastAdded[q] = position + 1;
+                    results.get(q).add(tweet);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * LazyFilter gives the results of the Filter methods as streams that test each
+ * tweet only when it is asked for, instead of lists built from every tweet.
+ *
+ * For example, the first 20 tweets by alyssa are
+ *     LazyFilter.writtenBy(tweets, "alyssa").limit(20).collect(Collectors.toList())
+ * and are found by testing tweets only until the 20th match. Iterator and
+ * spliterator views are the stream's iterator() and spliterator().
+ *
+ * Over a RandomAccess list, as an ArrayList or TweetStore.asList() is, the
+ * streams split in halves by position, so parallel streams divide the work
+ * evenly; sequential lists split the way their own spliterators do. The
+ * streams are ordered, in list order, and the list must not be modified while
+ * one is in use.
+ */
+public class LazyFilter {
+
+    /* Smallest range of positions that is split for parallel consumers. */
+    private static final int MIN_SPLIT = 64;
+
+    /**
+     * Find tweets written by a particular user, on demand.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this method
+     * @param username Twitter username, as for Filter.writtenBy
+     * @return the tweets of Filter.writtenBy(tweets, username), in the same order
+     */
+    public static Stream<Tweet> writtenBy(List<Tweet> tweets, String username) {
+        return filtered(tweets, isWrittenBy(username));
+    }
+
+    /**
+     * Find tweets that were sent during a particular timespan, on demand.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this method
+     * @param timespan timespan
+     * @return the tweets of Filter.inTimespan(tweets, timespan), in the same order
+     */
+    public static Stream<Tweet> inTimespan(List<Tweet> tweets, Timespan timespan) {
+        return filtered(tweets, isInTimespan(timespan));
+    }
+
+    /**
+     * Find tweets that contain certain words, on demand.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this method
+     * @param words words to search for, as for Filter.containing; not modified by this method
+     * @return the tweets of Filter.containing(tweets, words), in the same order
+     */
+    public static Stream<Tweet> containing(List<Tweet> tweets, List<String> words) {
+        return filtered(tweets, isContaining(words));
+    }
+
+    /*
+     * The condition of Filter.writtenBy.
+     */
+    static Predicate<Tweet> isWrittenBy(String username) {
+        return tweet -> username.equalsIgnoreCase(tweet.getAuthor());
+    }
+
+    /*
+     * The condition of Filter.inTimespan.
+     */
+    static Predicate<Tweet> isInTimespan(Timespan timespan) {
+        Instant start = timespan.getStart();
+        Instant end = timespan.getEnd();
+        return tweet -> !tweet.getTimestamp().isBefore(start) && !tweet.getTimestamp().isAfter(end);
+    }
+
+    /*
+     * The condition of Filter.containing, with the words compiled now.
+     */
+    static Predicate<Tweet> isContaining(List<String> words) {
+        KeywordMatcher matcher = new KeywordMatcher(words);
+        return tweet -> matcher.matches(tweet.getText());
+    }
+
+    /*
+     * The tweets of a list that pass a test, tested on demand, in list order.
+     */
+    static Stream<Tweet> filtered(List<Tweet> tweets, Predicate<? super Tweet> test) {
+        if (!(tweets instanceof RandomAccess)) {
+            return tweets.stream().filter(test);
+        }
+        return StreamSupport.stream(new FilteringSpliterator(tweets, test, 0, tweets.size()), false);
+    }
+
+    /*
+     * Spliterator over the tweets at positions [next, end) of a RandomAccess list
+     * that pass a test; splits off the first half of the remaining positions.
+     */
+    private static class FilteringSpliterator implements Spliterator<Tweet> {
+        private final List<Tweet> tweets;
+        private final Predicate<? super Tweet> test;
+        private int next;
+        private final int end;
+        /* Rep invariant:
+         *    tweets is RandomAccess, 0 <= next <= end <= tweets.size()
+         * Abstraction function:
+         *    represents the tweets t at positions next .. end - 1 of tweets with
+         *    test.test(t), in order
+         */
+
+        FilteringSpliterator(List<Tweet> tweets, Predicate<? super Tweet> test, int next, int end) {
+            this.tweets = tweets;
+            this.test = test;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override public boolean tryAdvance(Consumer<? super Tweet> action) {
+            while (next < end) {
+                Tweet tweet = tweets.get(next++);
+                if (test.test(tweet)) {
+                    action.accept(tweet);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override public void forEachRemaining(Consumer<? super Tweet> action) {
+            for (int i = next; i < end; i++) {
+                Tweet tweet = tweets.get(i);
+                if (test.test(tweet)) {
+                    action.accept(tweet);
+                }
+            }
+            next = end;
+        }
+
+        @Override public Spliterator<Tweet> trySplit() {
+            if (end - next < 2 * MIN_SPLIT) {
+                return null;
+            }
+            int middle = (next + end) >>> 1;
+            Spliterator<Tweet> prefix = new FilteringSpliterator(tweets, test, next, middle);
+            next = middle;
+            return prefix;
+        }
+
+        @Override public long estimateSize() {
+            return end - next; // an upper bound, as only some tweets pass
+        }
+
+        @Override public int characteristics() {
+            return ORDERED;
+        }
+    }
+}
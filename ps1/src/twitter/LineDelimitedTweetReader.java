@@ -0,0 +1,286 @@
+package twitter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
+
+/**
+ * LineDelimitedTweetReader reads tweets in newline-delimited JSON (NDJSON):
+ * one tweet object per line, with the same fields as TweetReader's format.
+ * Blank lines are ignored.
+ *
+ * The input is split at line boundaries into chunks that are parsed in
+ * parallel on a ForkJoinPool; the returned tweets are always in input order.
+ */
+public class LineDelimitedTweetReader {
+
+    /* Number of lines handed to each task when reading from a Reader. */
+    static final int LINES_PER_CHUNK = 4096;
+    /* Smallest file chunk worth a task of its own. */
+    static final long MIN_CHUNK_BYTES = 1L << 20;
+    /* Chunks per worker thread, so uneven chunks still balance out. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final JsonParserFactory PARSER_FACTORY = Json.createParserFactory(null);
+
+    /**
+     * Get a list of tweets from a local NDJSON file, using the common pool.
+     *
+     * @param file path of a UTF-8 file with one JSON tweet object per line
+     * @return the tweets in the file, in order
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws JsonException if some line is not a well-formed tweet object
+     */
+    public static List<Tweet> readTweetsFromFile(Path file) throws IOException {
+        return readTweetsFromFile(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Get a list of tweets from a local NDJSON file. The file is memory-mapped
+     * and split into chunks at line boundaries, which are parsed in parallel.
+     *
+     * @param file path of a UTF-8 file with one JSON tweet object per line
+     * @param pool pool to parse chunks on
+     * @return the tweets in the file, in order
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws JsonException if some line is not a well-formed tweet object
+     */
+    public static List<Tweet> readTweetsFromFile(Path file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Math.max(MIN_CHUNK_BYTES, size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD) + 1);
+            List<ForkJoinTask<List<Tweet>>> chunks = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = nextLineStart(channel, Math.min(size, start + chunkSize), size);
+                chunks.add(pool.submit(new FileChunkTask(channel, start, end)));
+                start = end;
+            }
+            return joinInOrder(chunks);
+        }
+    }
+
+    /**
+     * Get a list of tweets from NDJSON text, using the common pool.
+     *
+     * @param reader source of the text, one JSON tweet object per line; not closed by this method
+     * @return the tweets in the text, in order
+     * @throws IOException if reading fails
+     * @throws JsonException if some line is not a well-formed tweet object
+     */
+    public static List<Tweet> readTweets(Reader reader) throws IOException {
+        return readTweets(reader, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Get a list of tweets from NDJSON text. Lines are read on the calling
+     * thread and handed out in chunks to be parsed in parallel.
+     *
+     * @param reader source of the text, one JSON tweet object per line; not closed by this method
+     * @param pool pool to parse chunks on
+     * @return the tweets in the text, in order
+     * @throws IOException if reading fails
+     * @throws JsonException if some line is not a well-formed tweet object
+     */
+    public static List<Tweet> readTweets(Reader reader, ForkJoinPool pool) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<ForkJoinTask<List<Tweet>>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(LINES_PER_CHUNK);
+        long chunkLineNumber = 1;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            chunk.add(line);
+            if (chunk.size() == LINES_PER_CHUNK) {
+                chunks.add(pool.submit(new LineChunkTask(chunk, chunkLineNumber)));
+                chunkLineNumber += chunk.size();
+                chunk = new ArrayList<>(LINES_PER_CHUNK);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(pool.submit(new LineChunkTask(chunk, chunkLineNumber)));
+        }
+        return joinInOrder(chunks);
+    }
+
+    /*
+     * Wait for every chunk and concatenate their tweets in chunk order.
+     */
+    private static List<Tweet> joinInOrder(List<ForkJoinTask<List<Tweet>>> chunks) throws IOException {
+        List<Tweet> tweetList = new ArrayList<>();
+        for (ForkJoinTask<List<Tweet>> chunk: chunks) {
+            try {
+                tweetList.addAll(chunk.get());
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while reading tweets", ie);
+            }
+        }
+        return tweetList;
+    }
+
+    /*
+     * @return the offset just past the first newline at or after position, or
+     *         size if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int count = channel.read(buffer, position);
+            if (count < 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += count;
+        }
+        return size;
+    }
+
+    /*
+     * Parse one line holding a single tweet object.
+     *
+     * @param parser parser over the bytes or characters of the line, closed by this method
+     * @param unit "line" or "byte offset", and position its number, for error messages
+     */
+    private static Tweet parseLine(JsonParser parser, String unit, long position) {
+        try {
+            if (!parser.hasNext() || parser.next() != Event.START_OBJECT) {
+                throw new JsonException("expected a tweet object at " + unit + " " + position);
+            }
+            Tweet tweet = TweetStreamReader.readTweetObject(parser);
+            if (parser.hasNext()) {
+                throw new JsonException("unexpected content after tweet object at " + unit + " " + position);
+            }
+            return tweet;
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static boolean isBlank(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != ' ' && bytes[i] != '\t' && bytes[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Task that parses the lines in bytes [start, end) of a file, where start
+     * and end are both line boundaries.
+     */
+    private static class FileChunkTask extends RecursiveTask<List<Tweet>> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+
+        FileChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override protected List<Tweet> compute() {
+            List<Tweet> tweets = new ArrayList<>();
+            byte[] line = new byte[1024];
+            int length = 0;
+            long lineStart = start;
+            try (InputStream in = new MappedInputStream(channel, start, end, false)) {
+                byte[] buffer = new byte[64 * 1024];
+                int count;
+                while ((count = in.read(buffer, 0, buffer.length)) >= 0) {
+                    for (int i = 0; i < count; i++) {
+                        byte b = buffer[i];
+                        if (b == '\n') {
+                            addLine(tweets, line, length, lineStart);
+                            lineStart += length + 1;
+                            length = 0;
+                        } else {
+                            if (length == line.length) {
+                                line = Arrays.copyOf(line, line.length * 2);
+                            }
+                            line[length++] = b;
+                        }
+                    }
+                }
+                addLine(tweets, line, length, lineStart);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+            return tweets;
+        }
+
+        private static void addLine(List<Tweet> tweets, byte[] line, int length, long offset) {
+            if (isBlank(line, length)) {
+                return;
+            }
+            JsonParser parser = PARSER_FACTORY.createParser(new ByteArrayInputStream(line, 0, length), StandardCharsets.UTF_8);
+            tweets.add(parseLine(parser, "byte offset", offset));
+        }
+    }
+
+    /*
+     * Task that parses a chunk of lines already read as strings.
+     */
+    private static class LineChunkTask extends RecursiveTask<List<Tweet>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> lines;
+        private final long firstLineNumber;
+
+        LineChunkTask(List<String> lines, long firstLineNumber) {
+            this.lines = lines;
+            this.firstLineNumber = firstLineNumber;
+        }
+
+        @Override protected List<Tweet> compute() {
+            List<Tweet> tweets = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                tweets.add(parseLine(PARSER_FACTORY.createParser(new StringReader(line)), "line", firstLineNumber + i));
+            }
+            return tweets;
+        }
+    }
+}
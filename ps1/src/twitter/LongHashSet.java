@@ -0,0 +1,183 @@
+package twitter;
+
+import java.util.Arrays;
+
+/**
+ * A mutable set of long values stored in an open-addressing hash table with
+ * linear probing, so members are held as primitives rather than boxed Longs.
+ *
+ * Not safe for use by several threads at once.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+    private static final double MAX_LOAD = 0.6;
+
+    private long[] slots;
+    private int mask;
+    private int size;
+    private boolean containsEmptyKey;
+    private int resizeThreshold;
+    /* Rep invariant:
+     *    slots.length is a power of two and mask == slots.length - 1
+     *    the number of slots != EMPTY is size - (containsEmptyKey ? 1 : 0), which is <= resizeThreshold
+     *    every non-EMPTY value v sits at slots[i] where no EMPTY slot lies on the probe path
+     *        from home(v) to i (wrapping around)
+     * Abstraction function:
+     *    represents the set of non-EMPTY values in slots, plus EMPTY itself if containsEmptyKey
+     */
+
+    /**
+     * Make an empty set.
+     */
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Make an empty set with room for expectedSize values before it needs to grow.
+     *
+     * @param expectedSize number of values expected, requires expectedSize >= 0
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * MAX_LOAD);
+    }
+
+    /*
+     * @return the first slot probed for value
+     */
+    private int home(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * @return number of values in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the set has no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param value value to look for
+     * @return true if value is in the set
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmptyKey;
+        }
+        for (int i = home(value); slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a value to the set.
+     *
+     * @param value value to add
+     * @return true if value was not already in the set
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+        int i = home(value);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        size++;
+        if (size > resizeThreshold) {
+            rehash(slots.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Remove a value from the set.
+     *
+     * @param value value to remove
+     * @return true if value was in the set
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = false;
+            size--;
+            return true;
+        }
+        int i = home(value);
+        while (slots[i] != value) {
+            if (slots[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // shift later members of the probe run back so none is cut off from its home slot
+        int gap = i;
+        for (int j = (gap + 1) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+            int homeOfJ = home(slots[j]);
+            if (((j - homeOfJ) & mask) >= ((j - gap) & mask)) {
+                slots[gap] = slots[j];
+                gap = j;
+            }
+        }
+        slots[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Remove every value from the set, keeping its current capacity.
+     */
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        containsEmptyKey = false;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldSlots = slots;
+        allocate(capacity);
+        for (long value: oldSlots) {
+            if (value != EMPTY) {
+                int i = home(value);
+                while (slots[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = value;
+            }
+        }
+    }
+}
@@ -6,9 +6,11 @@ package twitter;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 
 /**
  * This is the main program.
@@ -44,29 +46,35 @@ public class Main {
             throw new Error("Always run main and tests with assertions enabled");
         } catch (AssertionError ae) { }
         
-        final List<Tweet> tweets;
+        // fetch the tweets through an on-disk cache, so runs a few minutes apart don't wait on the server;
+        // a response from the server is decoded and analysed as it arrives, and copied to the cache on the way
+        final TweetCache cache;
         try {
-            tweets = TweetReader.readTweetsFromWeb(SAMPLE_SERVER);
+            cache = new TweetCache(Paths.get(System.getProperty("java.io.tmpdir"), "ps1-tweet-cache"));
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
-        
-        // display some characteristics about the tweets
-        System.err.println("fetched " + tweets.size() + " tweets");
-        
-        final Timespan span = Extract.getTimespan(tweets);
-        System.err.println("ranging from " + span.getStart() + " to " + span.getEnd());
-        
-        final Set<String> mentionedUsers = Extract.getMentionedUsers(tweets);
-        System.err.println("covers " + mentionedUsers.size() + " Twitter users");
-        
-        // infer the follows graph
-        final Map<String, Set<String>> followsGraph = SocialNetwork.guessFollowsGraph(tweets);
-        System.err.println("follows graph has " + followsGraph.size() + " nodes");
+        final TweetPipeline pipeline = new TweetPipeline(() -> cache.streamTweetsFromWeb(SAMPLE_SERVER)).start();
+        try {
+            // display some characteristics about the tweets
+            System.err.println("fetched " + pipeline.tweetCount().join() + " tweets");
+            
+            final Timespan span = pipeline.timespan().join();
+            System.err.println("ranging from " + span.getStart() + " to " + span.getEnd());
+            
+            final Set<String> mentionedUsers = pipeline.mentionedUsers().join();
+            System.err.println("covers " + mentionedUsers.size() + " Twitter users");
+            
+            // infer the follows graph
+            final Map<String, Set<String>> followsGraph = pipeline.followsGraph().join();
+            System.err.println("follows graph has " + followsGraph.size() + " nodes");
+        } catch (CompletionException ce) {
+            throw new RuntimeException(ce.getCause());
+        }
         
         // print the top-N influencers
         final int count = 10;
-        final List<String> influencers = SocialNetwork.influencers(followsGraph);
+        final List<String> influencers = pipeline.influencers().join();
         for (String username : influencers.subList(0, Math.min(count, influencers.size()))) {
             System.out.println(username);
         }
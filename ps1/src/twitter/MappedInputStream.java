@@ -0,0 +1,116 @@
+package twitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An InputStream over a region of a file that reads straight from memory-mapped
+ * windows of the file, so no bytes are copied through the kernel read path.
+ * Regions larger than a single mapping (2 GiB) are mapped one window at a time.
+ */
+class MappedInputStream extends InputStream {
+
+    /* Largest window mapped at once; keeps each mapping well below the 2 GiB limit of a ByteBuffer. */
+    static final long WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final boolean ownsChannel;
+    private final long windowSize;
+    private final long end;
+    private long windowStart;
+    private MappedByteBuffer window;
+    /* Rep invariant:
+     *    window maps bytes [windowStart, windowStart + window.limit()) of the file
+     *    windowStart + window.limit() <= end
+     *    window.limit() <= windowSize
+     * Abstraction function:
+     *    represents the unread bytes [windowStart + window.position(), end) of the file
+     */
+
+    /**
+     * Make a stream over bytes [start, end) of a file.
+     *
+     * @param channel open channel to read from
+     * @param start first byte of the region, requires 0 <= start <= end
+     * @param end end of the region (exclusive), requires end <= size of the file
+     * @param ownsChannel if true, the channel is closed when this stream is closed
+     * @throws IOException if the first window cannot be mapped
+     */
+    MappedInputStream(FileChannel channel, long start, long end, boolean ownsChannel) throws IOException {
+        this(channel, start, end, ownsChannel, WINDOW_SIZE);
+    }
+
+    /*
+     * Make a stream that maps at most windowSize bytes at a time; requires windowSize > 0.
+     */
+    MappedInputStream(FileChannel channel, long start, long end, boolean ownsChannel, long windowSize) throws IOException {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.windowSize = windowSize;
+        this.end = end;
+        mapWindow(start);
+    }
+
+    private void mapWindow(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, end - start));
+    }
+
+    /*
+     * Make sure the current window has bytes left, mapping the next one if needed.
+     *
+     * @return false if the end of the region has been reached
+     */
+    private boolean ensureRemaining() throws IOException {
+        if (window.hasRemaining()) {
+            return true;
+        }
+        long next = windowStart + window.limit();
+        if (next >= end) {
+            return false;
+        }
+        mapWindow(next);
+        return true;
+    }
+
+    @Override public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return window.get() & 0xff;
+    }
+
+    @Override public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, window.remaining());
+        window.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override public long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && ensureRemaining()) {
+            int step = (int) Math.min(count - skipped, window.remaining());
+            window.position(window.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override public int available() {
+        return window.remaining();
+    }
+
+    @Override public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package twitter;
+
+/**
+ * MentionScanner finds the username-mentions in tweet text, as defined by
+ * Extract.getMentionedUsers: "@" followed by a Twitter username, where the
+ * "@" is not immediately preceded by a character valid in a username and the
+ * username runs as far as the valid characters do.
+ *
+ * It finds the same mentions as the regex (?<=(^|[^\w\-])@)[\w\-]+ in one
+ * pass over the text, looking each char up in a table of the username
+ * alphabet, and reports each mention as a span of the text rather than a new
+ * String.
+ */
+public class MentionScanner {
+
+    /**
+     * Receives the mentions found in a text.
+     */
+    public interface MentionHandler {
+        /**
+         * Called once per mention, in order of position in the text.
+         *
+         * @param text the text being scanned
+         * @param start index of the first char of the mentioned username, after the "@"
+         * @param end index after the last char of the mentioned username
+         */
+        void mention(CharSequence text, int start, int end);
+    }
+
+    private static final boolean[] USERNAME_CHARS = new boolean[128];
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            USERNAME_CHARS[c] = true;
+            USERNAME_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            USERNAME_CHARS[c] = true;
+        }
+        USERNAME_CHARS['_'] = true;
+        USERNAME_CHARS['-'] = true;
+    }
+
+    /**
+     * @param c any char
+     * @return true iff c is valid in a Twitter username, as defined by
+     *         Tweet.getAuthor(): a letter A-Z or a-z, a digit, underscore or hyphen
+     */
+    public static boolean isUsernameChar(char c) {
+        return c < 128 && USERNAME_CHARS[c];
+    }
+
+    /**
+     * Find the username-mentions in a text.
+     *
+     * @param text text to scan, not modified
+     * @param handler receives each mention, in order
+     * @return number of mentions found
+     */
+    public static int scan(CharSequence text, MentionHandler handler) {
+        int count = 0;
+        int length = text.length();
+        boolean previousIsUsernameChar = false;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == '@' && !previousIsUsernameChar) {
+                int start = i + 1;
+                int end = start;
+                while (end < length && isUsernameChar(text.charAt(end))) {
+                    end++;
+                }
+                if (end > start) {
+                    handler.mention(text, start, end);
+                    count++;
+                    // the mention ends at a char that is not valid in a username, or at the end
+                    i = end;
+                    previousIsUsernameChar = true;
+                    continue;
+                }
+            }
+            previousIsUsernameChar = isUsernameChar(c);
+            i++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,359 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * RegexFilter finds the tweets whose text contains a match of a regular
+ * expression, running the regex engine only on tweets that could match.
+ *
+ * When the pattern is compiled, the literal strings that every match must
+ * contain are read from it: runs of ordinary characters outside groups,
+ * character classes and alternatives, not made optional by a quantifier. For
+ * example, every match of "rivest.*(talk|lecture)" contains "rivest". Before
+ * a text is given to the regex, it is searched for each of these literals with
+ * String.indexOf, and texts missing one are skipped. Patterns whose literals
+ * can't be read safely, such as those with a top-level | or inline flags, have
+ * none, and every text goes to the regex.
+ */
+public class RegexFilter {
+
+    /* Escapes of letters that stand for something other than one literal char. */
+    private static final String NON_LITERAL_ESCAPES = "dDwWsSbBAGzZRhHvVtnrfae";
+    /* Flags that can be set inline with (?...). */
+    private static final String INLINE_FLAGS = "idmsuxU-";
+
+    private final Pattern pattern;
+    private final boolean ignoreCase;
+    private final List<String> literals;
+    /* Rep invariant:
+     *    ignoreCase iff pattern has the CASE_INSENSITIVE flag
+     *    literals are nonempty, distinct and longest first, and every match of
+     *    pattern in any text contains each of them (ignoring case if ignoreCase);
+     *    if ignoreCase, they are all ASCII
+     * Abstraction function:
+     *    represents the condition that a text contains a match of pattern
+     */
+
+    /**
+     * Compile a regular expression.
+     *
+     * @param regex regular expression, as for Pattern.compile
+     * @throws java.util.regex.PatternSyntaxException if regex is not a valid regular expression
+     */
+    public RegexFilter(String regex) {
+        this(Pattern.compile(regex));
+    }
+
+    /**
+     * @param pattern compiled regular expression, with any flags
+     */
+    public RegexFilter(Pattern pattern) {
+        this.pattern = pattern;
+        this.ignoreCase = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+        this.literals = requiredLiterals(pattern.pattern(), pattern.flags());
+    }
+
+    /**
+     * @param text any text
+     * @return true iff text contains a match of the regex, as Matcher.find finds
+     */
+    public boolean matches(String text) {
+        return mayMatch(text) && pattern.matcher(text).find();
+    }
+
+    /**
+     * Find the tweets whose text contains a match of the regex.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this method
+     * @return all and only the tweets in the list whose text contains a match of
+     *         the regex, in the same order as in the input list
+     */
+    public List<Tweet> filter(List<Tweet> tweets) {
+        List<Tweet> matches = new ArrayList<Tweet>();
+        Matcher matcher = pattern.matcher("");
+        for (Tweet tweet: tweets){
+            String text = tweet.getText();
+            if (mayMatch(text) && matcher.reset(text).find()){
+                matches.add(tweet);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Find the tweets whose text contains a match of the regex, on demand, as
+     * for the streams of LazyFilter.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this
+     *               method or while the stream is in use
+     * @return the tweets of filter(tweets), in the same order
+     */
+    public Stream<Tweet> stream(List<Tweet> tweets) {
+        return LazyFilter.filtered(tweets, tweet -> matches(tweet.getText()));
+    }
+
+    /*
+     * The literals every match contains, longest first.
+     */
+    List<String> requiredLiterals() {
+        return Collections.unmodifiableList(literals);
+    }
+
+    /*
+     * Whether text contains every required literal, so that it may contain a match.
+     */
+    private boolean mayMatch(String text) {
+        for (String literal: literals) {
+            if (ignoreCase ? !containsIgnoreCase(text, literal) : text.indexOf(literal) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Whether text contains literal, comparing chars as String.regionMatches does
+     * ignoring case; this accepts every char that the regex engine would match
+     * to an ASCII char ignoring case, with or without UNICODE_CASE.
+     */
+    private static boolean containsIgnoreCase(String text, String literal) {
+        for (int i = 0; i + literal.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, literal, 0, literal.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Read the literals that every match of regex, compiled with flags, contains.
+     * Anything not understood gives no literals, which is always safe.
+     */
+    private static List<String> requiredLiterals(String regex, int flags) {
+        if ((flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+            return new ArrayList<String>();
+        }
+        Literals literals = new Literals((flags & Pattern.CASE_INSENSITIVE) != 0);
+        if ((flags & Pattern.LITERAL) != 0) {
+            for (int i = 0; i < regex.length(); i++) {
+                literals.append(regex.charAt(i));
+            }
+            return literals.done();
+        }
+        int length = regex.length();
+        int i = 0;
+        while (i < length) {
+            char c = regex.charAt(i);
+            switch (c) {
+            case '\\': {
+                if (i + 1 == length) {
+                    return new ArrayList<String>();
+                }
+                char escaped = regex.charAt(i + 1);
+                if (escaped == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    String quoted = end < 0 ? regex.substring(i + 2) : regex.substring(i + 2, end);
+                    for (int j = 0; j < quoted.length(); j++) {
+                        literals.append(quoted.charAt(j));
+                    }
+                    i = end < 0 ? length : end + 2;
+                } else if (Character.isLetterOrDigit(escaped)) {
+                    if (NON_LITERAL_ESCAPES.indexOf(escaped) < 0) {
+                        return new ArrayList<String>(); // \p{..}, \x.., back references and the like
+                    }
+                    literals.breakRun();
+                    i += 2;
+                } else {
+                    literals.append(escaped);
+                    i += 2;
+                }
+                break;
+            }
+            case '[':
+                literals.breakRun();
+                i = skipClass(regex, i);
+                break;
+            case '(':
+                literals.breakRun();
+                i = skipGroup(regex, i);
+                break;
+            case '|':
+            case ')':
+                return new ArrayList<String>();
+            case '.':
+            case '^':
+            case '$':
+                literals.breakRun();
+                i++;
+                break;
+            case '*':
+            case '?':
+                literals.dropLast(); // the char before may be absent
+                i = skipQuantifierMode(regex, i + 1);
+                break;
+            case '+':
+                literals.breakRun(); // the char before is present, but maybe repeated
+                i = skipQuantifierMode(regex, i + 1);
+                break;
+            case '{': {
+                literals.dropLast();
+                int close = regex.indexOf('}', i);
+                i = close < 0 ? -1 : skipQuantifierMode(regex, close + 1);
+                break;
+            }
+            default:
+                literals.append(c);
+                i++;
+                break;
+            }
+            if (i < 0) {
+                return new ArrayList<String>();
+            }
+        }
+        return literals.done();
+    }
+
+    /*
+     * Skip the lazy ? or possessive + after a quantifier.
+     */
+    private static int skipQuantifierMode(String regex, int i) {
+        return i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+') ? i + 1 : i;
+    }
+
+    /*
+     * Position after the character class that starts at regex[start], or -1 if
+     * it isn't understood.
+     */
+    private static int skipClass(String regex, int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            return -1;
+        }
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    return -1;
+                }
+                i += 2;
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == ']') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Position after the group that starts at regex[start], or -1 if it isn't
+     * understood or sets flags inline.
+     */
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    i = end < 0 ? regex.length() : end + 2;
+                } else {
+                    i += 2;
+                }
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                if (i + 2 < regex.length() && regex.charAt(i + 1) == '?' && INLINE_FLAGS.indexOf(regex.charAt(i + 2)) >= 0) {
+                    return -1;
+                }
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+                if (depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /* Runs of literal chars being read from a pattern. */
+    private static class Literals {
+        private final boolean ignoreCase;
+        private final List<String> found = new ArrayList<>();
+        private final StringBuilder run = new StringBuilder();
+        private boolean lastIsLiteral = false;
+        /* Rep invariant:
+         *    lastIsLiteral implies run is nonempty
+         *    if ignoreCase, found and run are ASCII
+         */
+
+        Literals(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+        }
+
+        void append(char c) {
+            if (ignoreCase && c >= 128) {
+                breakRun();
+                return;
+            }
+            run.append(c);
+            lastIsLiteral = true;
+        }
+
+        /*
+         * Remove the last char of the run if it was the atom just read, then end the run.
+         */
+        void dropLast() {
+            if (lastIsLiteral) {
+                run.setLength(run.length() - 1);
+                if (run.length() > 0 && Character.isHighSurrogate(run.charAt(run.length() - 1))) {
+                    run.setLength(run.length() - 1); // the quantifier applies to the whole code point
+                }
+            }
+            breakRun();
+        }
+
+        void breakRun() {
+            if (run.length() > 0) {
+                found.add(run.toString());
+                run.setLength(0);
+            }
+            lastIsLiteral = false;
+        }
+
+        List<String> done() {
+            breakRun();
+            List<String> distinct = new ArrayList<>();
+            for (String literal: found) {
+                if (!distinct.contains(literal)) {
+                    distinct.add(literal);
+                }
+            }
+            distinct.sort(Comparator.comparingInt(String::length).reversed());
+            return distinct;
+        }
+    }
+}
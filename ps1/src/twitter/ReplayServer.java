@@ -0,0 +1,395 @@
+package twitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * ReplayServer is an embedded HTTP server on the loopback interface that
+ * stands in for Main.SAMPLE_SERVER, serving a fixed payload of tweets in the
+ * TweetReader JSON format to every GET request.
+ *
+ * Latency before the first byte, throughput, chunked or fixed-length transfer,
+ * gzip compression and the number of tweets served can all be set before the
+ * server is started, so ingestion can be benchmarked end-to-end on one machine.
+ * Responses carry an ETag and a Last-Modified time fixed at start, and
+ * conditional GETs that match them get 304 Not Modified.
+ *
+ * For example:
+ *     try (ReplayServer server = new ReplayServer(sample).withTweetCount(1_000_000)
+ *                                                        .withBytesPerSecond(50_000_000)) {
+ *         server.start();
+ *         List<Tweet> tweets = TweetReader.readTweetsFromWeb(server.getUrl());
+ *     }
+ */
+public class ReplayServer implements Closeable {
+
+    private static final int WRITE_SIZE = 64 * 1024;
+
+    private final List<Tweet> sample;
+    private final ByteBuffer filePayload;
+    private int tweetCount;
+    private long bytesPerSecond = 0;
+    private Duration latency = Duration.ZERO;
+    private boolean chunked = false;
+    private boolean gzip = false;
+    private ByteBuffer payload;
+    private ByteBuffer gzipPayload;
+    private String etag;
+    private ZonedDateTime lastModified;
+    private HttpServer server;
+    private ExecutorService executor;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    /* Rep invariant:
+     *    exactly one of sample and filePayload is non-null
+     *    if sample != null, then sample is nonempty or tweetCount == 0
+     *    payload, etag and lastModified are non-null iff server != null (the server has been started)
+     *    gzipPayload != null iff the server has been started with gzip
+     */
+
+    /**
+     * Make a server that replays a sample of tweets, once each by default.
+     *
+     * @param sample tweets to serve, in order; not modified
+     */
+    public ReplayServer(List<Tweet> sample) {
+        this.sample = new ArrayList<Tweet>(sample);
+        this.filePayload = null;
+        this.tweetCount = sample.size();
+    }
+
+    /**
+     * Make a server that replays a file, which should hold a JSON array of
+     * tweets. The file is memory-mapped and served as-is.
+     *
+     * @param file file to serve, at most 2 GiB
+     * @throws IOException if the file cannot be mapped
+     */
+    public ReplayServer(Path file) throws IOException {
+        this.sample = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.filePayload = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Set the number of tweets served. The sample is repeated as needed, with
+     * each repeat given fresh ids so all served tweets stay distinct.
+     *
+     * @param count number of tweets per response, requires count >= 0, and a
+     *              nonempty sample if count > 0; only for servers made from a sample
+     * @return this server
+     */
+    public ReplayServer withTweetCount(int count) {
+        if (sample == null || count < 0 || (count > 0 && sample.isEmpty())) {
+            throw new IllegalArgumentException("tweet count can only be set for a nonempty sample");
+        }
+        this.tweetCount = count;
+        return this;
+    }
+
+    /**
+     * Limit the rate at which each response body is sent.
+     *
+     * @param rate bytes per second per response, or 0 for no limit
+     * @return this server
+     */
+    public ReplayServer withBytesPerSecond(long rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("requires rate >= 0");
+        }
+        this.bytesPerSecond = rate;
+        return this;
+    }
+
+    /**
+     * Delay every response before its headers are sent.
+     *
+     * @param delay time to wait, requires delay non-negative
+     * @return this server
+     */
+    public ReplayServer withLatency(Duration delay) {
+        if (delay.isNegative()) {
+            throw new IllegalArgumentException("requires a non-negative latency");
+        }
+        this.latency = delay;
+        return this;
+    }
+
+    /**
+     * Choose between chunked transfer encoding and a fixed Content-Length.
+     *
+     * @param useChunked true to send responses chunked
+     * @return this server
+     */
+    public ReplayServer withChunkedTransfer(boolean useChunked) {
+        this.chunked = useChunked;
+        return this;
+    }
+
+    /**
+     * Choose whether to compress responses with gzip for clients that send
+     * Accept-Encoding: gzip. Other clients always get the plain payload.
+     *
+     * @param useGzip true to compress responses when the client accepts it
+     * @return this server
+     */
+    public ReplayServer withGzip(boolean useGzip) {
+        this.gzip = useGzip;
+        return this;
+    }
+
+    /**
+     * Encode the payload and start accepting requests on an ephemeral port of
+     * the loopback interface. Settings changed after this have no effect.
+     *
+     * @throws IOException if the server cannot be bound
+     */
+    public void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("already started");
+        }
+        payload = filePayload != null ? filePayload : ByteBuffer.wrap(encodePayload());
+        gzipPayload = gzip ? ByteBuffer.wrap(compress(payload.duplicate())) : null;
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.duplicate());
+        etag = "\"" + Long.toHexString(checksum.getValue()) + "-" + payload.capacity() + "\"";
+        lastModified = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return URL at which the tweets are served; requires the server to be started
+     */
+    public URL getUrl() {
+        try {
+            return new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), "/tweets");
+        } catch (MalformedURLException murle) {
+            throw new AssertionError(murle);
+        }
+    }
+
+    /**
+     * @return number of requests received so far
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return number of requests answered with 304 Not Modified so far
+     */
+    public int getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * @return number of bytes in each response body; requires the server to be started
+     */
+    public int getPayloadSize() {
+        return payload.capacity();
+    }
+
+    /**
+     * Stop the server, closing open connections.
+     */
+    @Override public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Encode tweetCount tweets cycled from the sample as a JSON array.
+     */
+    private byte[] encodePayload() throws IOException {
+        List<Tweet> tweets = new ArrayList<Tweet>(tweetCount);
+        long maxId = Long.MIN_VALUE;
+        for (Tweet tweet: sample) {
+            maxId = Math.max(maxId, tweet.getId());
+        }
+        for (int i = 0; i < tweetCount; i++) {
+            Tweet tweet = sample.get(i % sample.size());
+            int round = i / sample.size();
+            if (round > 0) {// a repeat of the sample: give it an id past every sample id
+                tweet = new Tweet(maxId + i - sample.size() + 1, tweet.getAuthor(), tweet.getText(), tweet.getTimestamp());
+            }
+            tweets.add(tweet);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            TweetWriter.writeTweets(tweets, writer);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] compress(ByteBuffer body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            byte[] buffer = new byte[WRITE_SIZE];
+            while (body.hasRemaining()) {
+                int count = Math.min(buffer.length, body.remaining());
+                body.get(buffer, 0, count);
+                out.write(buffer, 0, count);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /*
+     * Whether a conditional request's validators match the payload. If-None-Match
+     * takes precedence over If-Modified-Since, as in RFC 7232.
+     */
+    private boolean notModified(Headers request) {
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag: ifNoneMatch.split(",")) {
+                String trimmed = tag.trim();
+                if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = request.getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            try {
+                ZonedDateTime since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return !lastModified.isAfter(since);
+            } catch (DateTimeParseException dtpe) {
+                return false; // invalid dates are ignored
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Whether the client accepts gzip, i.e. lists it in Accept-Encoding without q=0.
+     */
+    private static boolean acceptsGzip(Headers request) {
+        List<String> headers = request.get("Accept-Encoding");
+        if (headers == null) {
+            return false;
+        }
+        for (String header: headers) {
+            for (String coding: header.split(",")) {
+                String[] parts = coding.split(";");
+                if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                    continue;
+                }
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(parameter.substring(2)) > 0;
+                        } catch (NumberFormatException nfe) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            sleep(latency.toNanos());
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("ETag", etag);
+            headers.set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(lastModified));
+            if (notModified(exchange.getRequestHeaders())) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            ByteBuffer body = payload.duplicate();
+            headers.set("Content-Type", "application/json; charset=utf-8");
+            if (gzipPayload != null) {
+                headers.set("Vary", "Accept-Encoding");
+                if (acceptsGzip(exchange.getRequestHeaders())) {
+                    body = gzipPayload.duplicate();
+                    headers.set("Content-Encoding", "gzip");
+                }
+            }
+            exchange.sendResponseHeaders(200, chunked ? 0 : body.remaining());
+            writeThrottled(body, exchange.getResponseBody());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /*
+     * Send body, pausing as needed to keep to bytesPerSecond.
+     */
+    private void writeThrottled(ByteBuffer body, OutputStream out) throws IOException {
+        byte[] buffer = new byte[WRITE_SIZE];
+        long startNanos = System.nanoTime();
+        long sent = 0;
+        while (body.hasRemaining()) {
+            int count = Math.min(buffer.length, body.remaining());
+            body.get(buffer, 0, count);
+            out.write(buffer, 0, count);
+            sent += count;
+            if (bytesPerSecond > 0) {
+                long dueNanos = (long) (sent * 1e9 / bytesPerSecond);
+                sleep(dueNanos - (System.nanoTime() - startNanos));
+            }
+        }
+        out.flush();
+    }
+
+    private static void sleep(long nanos) throws IOException {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while replaying", ie);
+        }
+    }
+}
@@ -3,11 +3,6 @@
  */
 package twitter;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,18 +43,7 @@ public class SocialNetwork {
      *         either authors or @-mentions in the list of tweets.
      */
     public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets) {
-        Map<String, Set<String>> socialNetwork = new HashMap<>();
-        for (Tweet tweet: tweets){// for each tweet, get author, if author not already in dict, extract all mentioned authors and add to map
-            String author = tweet.getAuthor().toLowerCase(); // because we turn everything lowercase to compare
-            if (!socialNetwork.containsKey(author)){
-                List<Tweet> writtenByAuthor = Filter.writtenBy(tweets, author);
-                Set<String> usernameMentions = Extract.getMentionedUsers(writtenByAuthor);
-                usernameMentions.remove(author);// we do this just in case the tweet mentions the author themselves
-                socialNetwork.put(author, usernameMentions);
-            }
-        }
-        Map<String, Set<String>> newSocialNetwork = triadicClosure(socialNetwork, 2); //call the triadic closure function for inferring more influencers
-        return newSocialNetwork;
+        return new FollowsGraphBuilder().guessFollowsGraph(tweets); // groups tweets by author in one pass, partitions run in parallel
     }
     /**
      * This function takes in a social network map and performs triadic 
@@ -71,31 +55,9 @@ public class SocialNetwork {
      * @return returns an updated map using the SocialNetwork standards, where all author names are lowercase
      */
     public static Map<String, Set <String>> triadicClosure(Map<String, Set<String>> basicMap, final int thresholdFirstInfluencers){
-        Map<String, Set<String>> newSocialNetwork = new HashMap<>();
-        Map<String, Set<String>> basicMapLowercase = HelperMethods.convertMapLowercase(basicMap);
-        for (String author: basicMapLowercase.keySet()){//for each author, get the people that the author follows
-            Map<String, Integer> secondInfluencersChildrenTally = new HashMap<>(); //for storing the number of firstInfluencers that each secondInfluencers has as followers, per author
-            Set<String> firstInfluencers = new HashSet<String>(new ArrayList<String>(basicMapLowercase.get(author))); //deep copy of Set basicMap.get(author)
-            newSocialNetwork.put(author, firstInfluencers); //copy these people to the new social network
-            for (String firstInfluence: basicMapLowercase.get(author)){//for each person that author follows in the old social network, get the people that they follow
-                Set<String> secondInfluencers = basicMapLowercase.get(firstInfluence); 
-                if (secondInfluencers == null){
-                    continue;
-                }
-                for (String secondInfluence: secondInfluencers){//update number of firstInfluencers that each secondInfluencers has as followers
-                    if (secondInfluencersChildrenTally.containsKey(secondInfluence)){
-                        int newNumberFirstInfluenced = secondInfluencersChildrenTally.get(secondInfluence) + 1;
-                        secondInfluencersChildrenTally.put(secondInfluence, newNumberFirstInfluenced);
-                    }else{
-                        secondInfluencersChildrenTally.put(secondInfluence, 1);
-                    }
-                    if (secondInfluencersChildrenTally.get(secondInfluence) >= thresholdFirstInfluencers){//include secondInfluencer as person author follows, if past threshold
-                        newSocialNetwork.get(author).add(secondInfluence);
-                    }
-                }
-            }
-        }
-        return newSocialNetwork;
+        UsernameDictionary usernames = new UsernameDictionary(); // usernames are folded and hashed once, here
+        int[][] graph = IdSocialNetwork.fromMap(basicMap, usernames);
+        return IdSocialNetwork.toMap(IdSocialNetwork.triadicClosure(graph, thresholdFirstInfluencers), usernames);
     }
     /**
      * Find the people in a social network who have the greatest influence, in
@@ -107,31 +69,9 @@ public class SocialNetwork {
      *         descending order of follower count.
      */
     public static List<String> influencers(Map<String, Set<String>> followsGraph) {
-        List<String> influenceList = new ArrayList<>();
-        Map<String, Integer> influenceTally = new HashMap<>(); //to keep track of how much influence each mentioned user has
-        Comparator<String> influenceComparator = new Comparator<String>(){// comparator to override normal string comparison for list sorting,
-            @Override public int compare(String name1, String name2) {
-                return -1*influenceTally.get(name1).compareTo(influenceTally.get(name2)); //compares based on value in influenceTally, multiplied by negative 1 for descending order
-            } 
-        };
-        for (String tweetAuthor: followsGraph.keySet()){ //go through each time a user is followed, ;keep track of times mentioned in influenceTally
-            String tweetAuthorLowercase = tweetAuthor.toLowerCase();
-            if (!influenceTally.containsKey(tweetAuthorLowercase)){
-                influenceTally.put(tweetAuthorLowercase, 0);
-            }
-            for (String followedPerson: followsGraph.get(tweetAuthor)){
-                String followedPersonLowercase = followedPerson.toLowerCase();
-                if (influenceTally.containsKey(followedPersonLowercase)){ //update dict with new tally for the followed person (followedPerson)
-                    int prevTally = influenceTally.get(followedPersonLowercase);
-                    influenceTally.put(followedPersonLowercase, prevTally + 1);
-                }else{
-                    influenceTally.put(followedPersonLowercase, 1);
-                }
-            }
-        }
-        influenceList.addAll(influenceTally.keySet()); //populate influenceList with all followed users
-        Collections.sort(influenceList, influenceComparator); //sort
-        return influenceList;
+        UsernameDictionary usernames = new UsernameDictionary();
+        int[][] graph = IdSocialNetwork.fromMap(followsGraph, usernames);
+        return IdSocialNetwork.usernames(IdSocialNetwork.influencers(graph), usernames);
     }   
 }
 
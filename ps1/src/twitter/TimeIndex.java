@@ -0,0 +1,277 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TimeIndex keeps the timestamps of a growing list of tweets sorted, so that
+ * Filter.inTimespan queries become two binary searches and a slice instead of
+ * a comparison of every tweet.
+ *
+ * Timestamps are kept as epoch milliseconds, next to the positions of their
+ * tweets in the list. Only the tweets in the same millisecond as either end of
+ * a query are compared as Instants, so sub-millisecond timestamps still give
+ * exactly the results of Filter.inTimespan. Results are given in list order.
+ *
+ * Tweets are appended in batches; a batch that is no older than the tweets
+ * already indexed, as a poll of recent tweets usually is, is appended in time
+ * linear in its size after sorting it, and any other batch is merged in.
+ */
+public class TimeIndex {
+
+    private final List<Tweet> tweets;
+    private final boolean ownsTweets;
+    private long[] millis;
+    private int[] positions;
+    private int size = 0;
+    /* Rep invariant:
+     *    0 <= size <= millis.length == positions.length
+     *    millis[0..size) is ascending, and positions ascending among equal millis
+     *    positions[0..size) are distinct positions in tweets, and
+     *    millis[i] == TweetStore.floorMillis(tweets.get(positions[i]).getTimestamp())
+     *    if ownsTweets, positions[0..size) are exactly 0 .. tweets.size() - 1
+     * Abstraction function:
+     *    represents the tweets at positions[0..size) of tweets, ordered by timestamp
+     */
+
+    /**
+     * Index a list of tweets.
+     *
+     * @param tweets tweets to index; not modified, and copied so later changes to
+     *               the list don't affect this index
+     */
+    public TimeIndex(List<Tweet> tweets) {
+        this.tweets = new ArrayList<Tweet>(tweets);
+        this.ownsTweets = true;
+        this.millis = new long[Math.max(16, tweets.size())];
+        this.positions = new int[millis.length];
+        int[] all = new int[tweets.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        addPositions(all, all.length);
+    }
+
+    /*
+     * Index some of the tweets of a list that is shared with, and appended to
+     * by, the caller. positions[0..count) must be ascending.
+     */
+    TimeIndex(List<Tweet> tweets, int[] positions, int count) {
+        this.tweets = tweets;
+        this.ownsTweets = false;
+        this.millis = new long[Math.max(4, count)];
+        this.positions = new int[millis.length];
+        addPositions(positions, count);
+    }
+
+    /**
+     * Append tweets to the indexed list, and index them.
+     *
+     * @param newer tweets to append, in order; not modified by this method
+     */
+    public void addAll(List<Tweet> newer) {
+        if (!ownsTweets) {
+            throw new UnsupportedOperationException("tweets are appended through the owner of the list");
+        }
+        int first = tweets.size();
+        tweets.addAll(newer);
+        int[] added = new int[newer.size()];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = first + i;
+        }
+        addPositions(added, added.length);
+    }
+
+    /*
+     * Index the tweets at ascending positions[0..count), which are not yet indexed.
+     */
+    void addPositions(int[] added, int count) {
+        if (count == 0) {
+            return;
+        }
+        long[] addedMillis = new long[count];
+        int[] addedPositions = Arrays.copyOf(added, count);
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            addedMillis[i] = TweetStore.floorMillis(tweets.get(addedPositions[i]).getTimestamp());
+            sorted &= i == 0 || addedMillis[i - 1] <= addedMillis[i];
+        }
+        if (!sorted) {
+            sortByTime(addedMillis, addedPositions);
+        }
+        ensureCapacity(size + count);
+        if (size == 0 || isBefore(millis[size - 1], positions[size - 1], addedMillis[0], addedPositions[0])) {
+            System.arraycopy(addedMillis, 0, millis, size, count);
+            System.arraycopy(addedPositions, 0, positions, size, count);
+            size += count;
+            return;
+        }
+        // merge from the back, so the existing entries can stay where they are
+        int i = size - 1;
+        int j = count - 1;
+        for (int k = size + count - 1; j >= 0; k--) {
+            if (i >= 0 && isBefore(addedMillis[j], addedPositions[j], millis[i], positions[i])) {
+                millis[k] = millis[i];
+                positions[k] = positions[i];
+                i--;
+            } else {
+                millis[k] = addedMillis[j];
+                positions[k] = addedPositions[j];
+                j--;
+            }
+        }
+        size += count;
+    }
+
+    private static boolean isBefore(long millisA, int positionA, long millisB, int positionB) {
+        return millisA < millisB || (millisA == millisB && positionA < positionB);
+    }
+
+    /*
+     * Sort the pairs (millis[i], positions[i]) by millis, keeping ties in their
+     * current (ascending position) order, with a bottom-up merge sort.
+     */
+    private static void sortByTime(long[] millis, int[] positions) {
+        int n = millis.length;
+        long[] millisBuffer = new long[n];
+        int[] positionsBuffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int left = 0; left < n; left += 2 * width) {
+                int middle = Math.min(left + width, n);
+                int right = Math.min(left + 2 * width, n);
+                int i = left;
+                int j = middle;
+                for (int k = left; k < right; k++) {
+                    if (i < middle && (j >= right || millis[i] <= millis[j])) {
+                        millisBuffer[k] = millis[i];
+                        positionsBuffer[k] = positions[i++];
+                    } else {
+                        millisBuffer[k] = millis[j];
+                        positionsBuffer[k] = positions[j++];
+                    }
+                }
+            }
+            System.arraycopy(millisBuffer, 0, millis, 0, n);
+            System.arraycopy(positionsBuffer, 0, positions, 0, n);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > millis.length) {
+            int newLength = Math.max(capacity, millis.length * 2);
+            millis = Arrays.copyOf(millis, newLength);
+            positions = Arrays.copyOf(positions, newLength);
+        }
+    }
+
+    /**
+     * @return number of tweets indexed
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the tweets sent during a timespan.
+     *
+     * @param timespan timespan
+     * @return all and only the indexed tweets sent during the timespan, in list
+     *         order; the same as Filter.inTimespan on the indexed list
+     */
+    public List<Tweet> inTimespan(Timespan timespan) {
+        int[] found = positionsIn(timespan);
+        List<Tweet> inSpan = new ArrayList<Tweet>(found.length);
+        for (int position: found) {
+            inSpan.add(tweets.get(position));
+        }
+        return inSpan;
+    }
+
+    /**
+     * @param timespan timespan
+     * @return the set of positions of the indexed tweets sent during the timespan
+     */
+    public TweetBitmap bitmapIn(Timespan timespan) {
+        int[] found = positionsIn(timespan);
+        return TweetBitmap.fromSorted(found, found.length);
+    }
+
+    /**
+     * @param timespan timespan
+     * @return ascending positions in the list of the indexed tweets sent during the timespan
+     */
+    public int[] positionsIn(Timespan timespan) {
+        int[] slice = slice(timespan.getStart(), timespan.getEnd());
+        sortIfNeeded(slice);
+        return slice;
+    }
+
+    /**
+     * @param count number of tweets wanted, requires count >= 0
+     * @return positions of the (at most) count latest indexed tweets, latest first,
+     *         to the millisecond; tweets sent in the same millisecond are given
+     *         latest position first
+     */
+    public int[] latestPositions(int count) {
+        int[] latest = new int[Math.min(count, size)];
+        for (int i = 0; i < latest.length; i++) {
+            latest[i] = positions[size - 1 - i];
+        }
+        return latest;
+    }
+
+    /*
+     * Positions of the indexed tweets with timestamps in [start, end], in time order.
+     */
+    int[] slice(Instant start, Instant end) {
+        if (start.isAfter(end)) {
+            return new int[0];
+        }
+        long startMillis = TweetStore.floorMillis(start);
+        long endMillis = TweetStore.floorMillis(end);
+        int from = firstAtOrAfter(startMillis);
+        int to = endMillis == Long.MAX_VALUE ? size : firstAtOrAfter(endMillis + 1);
+        int[] slice = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            // only tweets in the same millisecond as an end need an exact comparison
+            if (millis[i] == startMillis || millis[i] == endMillis) {
+                Instant timestamp = tweets.get(positions[i]).getTimestamp();
+                if (timestamp.isBefore(start) || timestamp.isAfter(end)) {
+                    continue;
+                }
+            }
+            slice[count++] = positions[i];
+        }
+        return count == slice.length ? slice : Arrays.copyOf(slice, count);
+    }
+
+    private int firstAtOrAfter(long target) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (millis[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * Sort positions ascending, unless they already are, as they are when the
+     * tweets were appended in time order.
+     */
+    static void sortIfNeeded(int[] positions) {
+        for (int i = 1; i < positions.length; i++) {
+            if (positions[i - 1] > positions[i]) {
+                Arrays.sort(positions);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TriadicClosureEngine computes the triadic closure of SocialNetwork on a
+ * CsrFollowsGraph: a follows c if a already does, or if at least threshold of
+ * the users a follows follow c. Seen as a sparse 0/1 matrix A, this is
+ * A + (A*A >= threshold), computed one row at a time.
+ *
+ * Each row picks the cheaper of two ways to add up the rows of the users a
+ * follows. A low-degree row merges them as sorted runs, with a heap of cursors,
+ * in time proportional to its second-hop follows times the log of its degree,
+ * touching no memory proportional to the number of users. A hub row counts them
+ * in a dense counter array and reads the counts back through a bitset of the
+ * users touched, in time linear in its second-hop follows plus one pass over
+ * the bitset. Either way the closed row comes out in ascending order, with no
+ * sort.
+ *
+ * Closed rows are materialized in blocks, in a buffer of at most the memory
+ * budget, and handed to a RowConsumer block by block, so a caller that writes
+ * them elsewhere can close graphs whose closure would not fit in the heap.
+ */
+public class TriadicClosureEngine {
+
+    /* Memory budget of the default constructor, in bytes. */
+    private static final long DEFAULT_BUDGET = 64L << 20;
+    /* Number of ints in each chunk collected by close. */
+    private static final int CHUNK = 1 << 20;
+
+    /**
+     * Receives the rows of a closed graph.
+     */
+    public interface RowConsumer {
+        /**
+         * @param user id of a key of the graph; users arrive in ascending order
+         * @param neighbors holds the ids that user follows in the closed graph,
+         *                  ascending, at neighbors[from .. to); only valid during the call
+         * @param from start of the row in neighbors
+         * @param to end of the row in neighbors
+         */
+        void row(int user, int[] neighbors, int from, int to);
+    }
+
+    private final int blockInts;
+    /* Abstraction function:
+     *    represents an engine that materializes at most blockInts closed neighbors
+     *    at a time, besides a single row longer than that
+     * Rep invariant:
+     *    blockInts >= 1
+     */
+
+    /**
+     * Make an engine with a memory budget of 64MB for closed rows.
+     */
+    public TriadicClosureEngine() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * @param memoryBudget number of bytes of closed rows to materialize at a time,
+     *                     requires memoryBudget >= 4; scratch space proportional to
+     *                     the number of users of a graph is needed besides
+     */
+    public TriadicClosureEngine(long memoryBudget) {
+        if (memoryBudget < 4) {
+            throw new IllegalArgumentException("memory budget too small: " + memoryBudget);
+        }
+        this.blockInts = (int) Math.min(Integer.MAX_VALUE - 8, memoryBudget / 4);
+    }
+
+    /**
+     * Infer more follows by triadic closure.
+     *
+     * @param graph a social network; not modified by this method
+     * @param threshold number of shared intermediaries needed to infer a follow,
+     *                  requires threshold >= 1
+     * @return a social network with the same users and keys as graph, in which
+     *         each key follows the users it follows in graph and those inferred;
+     *         like SocialNetwork.triadicClosure, this may infer that a follows a
+     */
+    public CsrFollowsGraph close(CsrFollowsGraph graph, int threshold) {
+        Collector collector = new Collector(graph.userCount());
+        close(graph, threshold, collector);
+        return collector.graph(graph.keyBits().clone());
+    }
+
+    /**
+     * Infer more follows by triadic closure, handing the closed rows to rows
+     * rather than building a graph.
+     *
+     * @param graph a social network; not modified by this method
+     * @param threshold number of shared intermediaries needed to infer a follow,
+     *                  requires threshold >= 1
+     * @param rows receives the closed row of each key of graph, as defined by close,
+     *             in ascending order of user
+     */
+    public void close(CsrFollowsGraph graph, int threshold, RowConsumer rows) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be at least 1: " + threshold);
+        }
+        new Pass(graph, threshold, rows).run();
+    }
+
+    /* Gathers closed rows into chunks, then into the arrays of a graph. */
+    private static class Collector implements RowConsumer {
+        private final int[] offsets;
+        private final List<int[]> chunks = new ArrayList<>();
+        private long size = 0;
+        private int rows = 0;
+        /* Rep invariant:
+         *    offsets[1 .. rows] are the ends of the rows of users 0 .. rows - 1
+         *    the neighbors received so far are the first size ints of chunks, in order
+         */
+
+        Collector(int userCount) {
+            this.offsets = new int[userCount + 1];
+        }
+
+        @Override public void row(int user, int[] neighbors, int from, int to) {
+            if (size + to - from > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("closure has too many edges for one array");
+            }
+            while (rows < user) {
+                offsets[++rows] = (int) size; // users between keys follow nobody
+            }
+            for (int i = from; i < to; ) {
+                int offset = (int) (size % CHUNK);
+                if (offset == 0) {
+                    chunks.add(new int[CHUNK]);
+                }
+                int count = Math.min(to - i, CHUNK - offset);
+                System.arraycopy(neighbors, i, chunks.get(chunks.size() - 1), offset, count);
+                size += count;
+                i += count;
+            }
+            offsets[++rows] = (int) size;
+        }
+
+        CsrFollowsGraph graph(long[] keys) {
+            while (rows < offsets.length - 1) {
+                offsets[++rows] = (int) size;
+            }
+            int[] neighbors = new int[(int) size];
+            for (int c = 0; c < chunks.size(); c++) {
+                int start = c * CHUNK;
+                System.arraycopy(chunks.get(c), 0, neighbors, start, Math.min(CHUNK, neighbors.length - start));
+                chunks.set(c, null); // let the chunk go as soon as it is copied
+            }
+            return CsrFollowsGraph.fromRows(offsets, neighbors, keys);
+        }
+    }
+
+    /* The state of one closure of one graph. */
+    private class Pass {
+        private final CsrFollowsGraph graph;
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final int threshold;
+        private final RowConsumer rows;
+        private final int userCount;
+        // the block: closed rows of blockUsers[0 .. blockRows), ending at blockEnds, in block
+        private int[] block;
+        private int[] blockUsers = new int[16];
+        private int[] blockEnds = new int[16];
+        private int blockRows = 0;
+        private int blockSize = 0;
+        // merge scratch: a heap of cursors over runs, each with a weight
+        private int[] heap;
+        private int[] cursor;
+        private int[] end;
+        private int[] weight;
+        // dense scratch, made on the first hub row
+        private int[] tally;
+        private long[] seen;
+        /* Rep invariant:
+         *    tally is null or all zero, and seen is null or all zero, between rows
+         *    block[0 .. blockSize) holds the rows of the block, the row of
+         *    blockUsers[i] ending at blockEnds[i]
+         */
+
+        Pass(CsrFollowsGraph graph, int threshold, RowConsumer rows) {
+            this.graph = graph;
+            this.offsets = graph.offsets();
+            this.neighbors = graph.neighborArray();
+            this.threshold = threshold;
+            this.rows = rows;
+            this.userCount = graph.userCount();
+            this.block = new int[Math.min(blockInts, 1024)];
+            int maxRuns = 1;
+            for (int a = 0; a < userCount; a++) {
+                maxRuns = Math.max(maxRuns, offsets[a + 1] - offsets[a] + 1);
+            }
+            heap = new int[maxRuns];
+            cursor = new int[maxRuns];
+            end = new int[maxRuns];
+            weight = new int[maxRuns];
+        }
+
+        void run() {
+            int words = (userCount + 63) >>> 6;
+            for (int a = 0; a < userCount; a++) {
+                if (!graph.isKey(a)) {
+                    continue;
+                }
+                long hops = offsets[a + 1] - offsets[a];
+                int runs = 0;
+                for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                    int b = neighbors[i];
+                    int degree = offsets[b + 1] - offsets[b];
+                    hops += degree;
+                    runs += degree > 0 ? 1 : 0;
+                }
+                int bound = (int) Math.min(userCount, hops);
+                if (blockSize + bound > block.length && block.length < blockInts) {
+                    block = Arrays.copyOf(block, (int) Math.min(blockInts, Math.max(2L * block.length, (long) blockSize + bound)));
+                }
+                if (blockSize + bound > block.length) {
+                    flush();
+                    if (bound > block.length) {
+                        block = new int[bound]; // a single row larger than the budget
+                    }
+                }
+                int rowEnd;
+                if (runs < threshold) {
+                    rowEnd = copyOwn(a); // nothing can be inferred
+                } else if (hops * log2(runs + 1) >= hops + words) {
+                    rowEnd = closeDense(a);
+                } else {
+                    rowEnd = closeMerge(a);
+                }
+                if (blockRows == blockUsers.length) {
+                    blockUsers = Arrays.copyOf(blockUsers, blockRows * 2);
+                    blockEnds = Arrays.copyOf(blockEnds, blockRows * 2);
+                }
+                blockUsers[blockRows] = a;
+                blockEnds[blockRows++] = rowEnd;
+                blockSize = rowEnd;
+            }
+            flush();
+        }
+
+        private void flush() {
+            int start = 0;
+            for (int i = 0; i < blockRows; i++) {
+                rows.row(blockUsers[i], block, start, blockEnds[i]);
+                start = blockEnds[i];
+            }
+            blockRows = 0;
+            blockSize = 0;
+            if (block.length > blockInts) {
+                block = new int[blockInts];
+            }
+        }
+
+        /*
+         * Copy row a unchanged to the block; returns the new end of the block.
+         */
+        private int copyOwn(int a) {
+            int length = offsets[a + 1] - offsets[a];
+            System.arraycopy(neighbors, offsets[a], block, blockSize, length);
+            return blockSize + length;
+        }
+
+        /*
+         * Close row a by merging the sorted rows of the users a follows, and row a
+         * itself with weight threshold, so it is always kept; returns the new end
+         * of the block.
+         */
+        private int closeMerge(int a) {
+            int size = push(0, offsets[a], offsets[a + 1], threshold);
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                int b = neighbors[i];
+                size = push(size, offsets[b], offsets[b + 1], 1);
+            }
+            int out = blockSize;
+            while (size > 0) {
+                int c = neighbors[cursor[heap[0]]];
+                int count = 0;
+                while (size > 0 && neighbors[cursor[heap[0]]] == c) {
+                    int run = heap[0];
+                    count += weight[run];
+                    if (++cursor[run] == end[run]) {
+                        heap[0] = heap[--size];
+                    }
+                    siftDown(0, size);
+                }
+                if (count >= threshold) {
+                    block[out++] = c;
+                }
+            }
+            return out;
+        }
+
+        /*
+         * Add the run neighbors[from .. to) with the given weight to a heap of
+         * size runs, if it is not empty; returns the new size of the heap.
+         */
+        private int push(int size, int from, int to, int runWeight) {
+            if (from == to) {
+                return size;
+            }
+            cursor[size] = from;
+            end[size] = to;
+            weight[size] = runWeight;
+            heap[size] = size;
+            int i = size;
+            while (i > 0 && value(heap[(i - 1) / 2]) > value(heap[i])) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+            return size + 1;
+        }
+
+        private void siftDown(int i, int size) {
+            while (true) {
+                int least = i;
+                int left = 2 * i + 1;
+                if (left < size && value(heap[left]) < value(heap[least])) {
+                    least = left;
+                }
+                if (left + 1 < size && value(heap[left + 1]) < value(heap[least])) {
+                    least = left + 1;
+                }
+                if (least == i) {
+                    return;
+                }
+                swap(i, least);
+                i = least;
+            }
+        }
+
+        private int value(int run) {
+            return neighbors[cursor[run]];
+        }
+
+        private void swap(int i, int j) {
+            int t = heap[i];
+            heap[i] = heap[j];
+            heap[j] = t;
+        }
+
+        /*
+         * Close row a by counting into the dense tally, with row a itself counted
+         * threshold times, then reading the touched users back in ascending order
+         * from the seen bitset; returns the new end of the block.
+         */
+        private int closeDense(int a) {
+            if (tally == null) {
+                tally = new int[userCount];
+                seen = new long[(userCount + 63) >>> 6];
+            }
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                count(neighbors[i], threshold);
+            }
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                int b = neighbors[i];
+                for (int j = offsets[b]; j < offsets[b + 1]; j++) {
+                    count(neighbors[j], 1);
+                }
+            }
+            int out = blockSize;
+            for (int word = 0; word < seen.length; word++) {
+                long bits = seen[word];
+                if (bits == 0) {
+                    continue;
+                }
+                seen[word] = 0;
+                while (bits != 0) {
+                    int c = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (tally[c] >= threshold) {
+                        block[out++] = c;
+                    }
+                    tally[c] = 0;
+                }
+            }
+            return out;
+        }
+
+        private void count(int c, int times) {
+            tally[c] += times;
+            seen[c >>> 6] |= 1L << c;
+        }
+    }
+
+    /*
+     * The number of bits needed to write n, for n >= 1.
+     */
+    private static int log2(int n) {
+        return 32 - Integer.numberOfLeadingZeros(n);
+    }
+}
@@ -0,0 +1,803 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable set of tweet ordinals (positions in a list of tweets, or
+ * ordinals in a TweetStore), compressed in the style of Roaring bitmaps.
+ *
+ * The ordinals are split into chunks of 65536 by their high 16 bits, and each
+ * nonempty chunk is kept in whichever container is smallest for it: a sorted
+ * array of the low 16 bits for sparse chunks, a 65536-bit bitmap for dense
+ * ones, or a list of runs for chunks made of long consecutive stretches, as
+ * the results of a time range over time-ordered tweets usually are.
+ *
+ * Intersection, union and difference work chunk by chunk, with word-level bit
+ * operations where bitmaps are involved, so the results of several Filter
+ * predicates can be combined without making lists of tweets; tweetsIn turns
+ * the final set back into tweets, in the order of the original list.
+ */
+public class TweetBitmap {
+
+    /* Largest number of values kept in an array container. */
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int CHUNK_WORDS = 1 << 10;
+
+    private static final TweetBitmap EMPTY = new TweetBitmap(new char[0], new Container[0], 0);
+
+    private final char[] keys;
+    private final Container[] containers;
+    private final int cardinality;
+    /* Rep invariant:
+     *    keys.length == containers.length, and keys is strictly ascending
+     *    every container is nonempty and in its smallest representation (see optimize)
+     *    cardinality is the sum of the containers' cardinalities
+     * Abstraction function:
+     *    represents the set of ordinals (keys[i] << 16) | v for every value v in containers[i]
+     */
+
+    private TweetBitmap(char[] keys, Container[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * @return the empty set
+     */
+    public static TweetBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param ordinals ordinals in any order, requires every ordinal >= 0;
+     *                 repeats are ignored, and the array is not modified
+     * @return the set of the ordinals
+     */
+    public static TweetBitmap of(int... ordinals) {
+        int[] sorted = ordinals.clone();
+        Arrays.sort(sorted);
+        return fromSorted(sorted, sorted.length);
+    }
+
+    /**
+     * @param ordinals ascending ordinals, requires every ordinal >= 0; repeats are ignored
+     * @param count number of ordinals to use from the start of the array
+     * @return the set of ordinals[0..count)
+     */
+    public static TweetBitmap fromSorted(int[] ordinals, int count) {
+        if (count > 0 && ordinals[0] < 0) {
+            throw new IllegalArgumentException("requires non-negative ordinals");
+        }
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        int total = 0;
+        int i = 0;
+        while (i < count) {
+            int key = ordinals[i] >>> 16;
+            if (i > 0 && ordinals[i] < ordinals[i - 1]) {
+                throw new IllegalArgumentException("requires ascending ordinals");
+            }
+            int end = i;
+            while (end < count && ordinals[end] >>> 16 == key) {
+                if (end > i && ordinals[end] < ordinals[end - 1]) {
+                    throw new IllegalArgumentException("requires ascending ordinals");
+                }
+                end++;
+            }
+            Container container;
+            if (end - i <= ARRAY_LIMIT) {
+                char[] values = new char[end - i];
+                int size = 0;
+                for (int j = i; j < end; j++) {
+                    char value = (char) ordinals[j];
+                    if (size == 0 || values[size - 1] != value) {
+                        values[size++] = value;
+                    }
+                }
+                container = new ArrayContainer(values, size);
+            } else {
+                long[] words = new long[CHUNK_WORDS];
+                for (int j = i; j < end; j++) {
+                    int value = ordinals[j] & 0xffff;
+                    words[value >>> 6] |= 1L << value;
+                }
+                container = new BitmapContainer(words);
+            }
+            container = optimize(container);
+            keys.add((char) key);
+            containers.add(container);
+            total += container.cardinality();
+            i = end;
+        }
+        return make(keys, containers, total);
+    }
+
+    /**
+     * @param start first ordinal, requires 0 <= start
+     * @param end ordinal after the last, requires start <= end
+     * @return the set of ordinals in [start, end)
+     */
+    public static TweetBitmap range(int start, int end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("requires 0 <= start <= end");
+        }
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        for (int from = start; from < end; ) {
+            int key = from >>> 16;
+            int chunkEnd = (int) Math.min(end, ((long) key + 1) << 16);
+            RunContainer run = new RunContainer(new char[] {(char) from}, new char[] {(char) (chunkEnd - from - 1)}, 1);
+            keys.add((char) key);
+            containers.add(optimize(run));
+            from = chunkEnd;
+        }
+        return make(keys, containers, end - start);
+    }
+
+    /**
+     * @param tweets a store of tweets
+     * @param username Twitter username, as for Filter.writtenBy
+     * @return ordinals of the tweets in the store that Filter.writtenBy(tweets, username) finds
+     */
+    public static TweetBitmap writtenBy(TweetStore tweets, String username) {
+        int[] ordinals = Filter.ordinalsWrittenBy(tweets, username);
+        return fromSorted(ordinals, ordinals.length);
+    }
+
+    /**
+     * @param tweets a store of tweets
+     * @param timespan timespan
+     * @return ordinals of the tweets in the store that Filter.inTimespan(tweets, timespan) finds
+     */
+    public static TweetBitmap inTimespan(TweetStore tweets, Timespan timespan) {
+        int[] ordinals = Filter.ordinalsInTimespan(tweets, timespan);
+        return fromSorted(ordinals, ordinals.length);
+    }
+
+    /**
+     * @param tweets a store of tweets
+     * @param words words to search for, as for Filter.containing
+     * @return ordinals of the tweets in the store that Filter.containing(tweets, words) finds
+     */
+    public static TweetBitmap containing(TweetStore tweets, List<String> words) {
+        int[] ordinals = Filter.ordinalsContaining(tweets, words);
+        return fromSorted(ordinals, ordinals.length);
+    }
+
+    /**
+     * @param index an index over a list of tweets
+     * @param words words to search for, as for Filter.containing
+     * @return positions of the indexed tweets that include at least one of the words
+     */
+    public static TweetBitmap containing(TweetIndex index, List<String> words) {
+        int[] positions = index.positionsContaining(words);
+        return fromSorted(positions, positions.length);
+    }
+
+    private static TweetBitmap make(List<Character> keyList, List<Container> containerList, int cardinality) {
+        if (keyList.isEmpty()) {
+            return EMPTY;
+        }
+        char[] keys = new char[keyList.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keyList.get(i);
+        }
+        return new TweetBitmap(keys, containerList.toArray(new Container[0]), cardinality);
+    }
+
+    /**
+     * @return number of ordinals in this set
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * @return true iff this set is empty
+     */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * @param ordinal any int
+     * @return true iff ordinal is in this set
+     */
+    public boolean contains(int ordinal) {
+        if (ordinal < 0) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, (char) (ordinal >>> 16));
+        return index >= 0 && containers[index].contains((char) ordinal);
+    }
+
+    /**
+     * @param that another set
+     * @return the ordinals in both this set and that
+     */
+    public TweetBitmap and(TweetBitmap that) {
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < this.keys.length && j < that.keys.length) {
+            if (this.keys[i] < that.keys[j]) {
+                i++;
+            } else if (this.keys[i] > that.keys[j]) {
+                j++;
+            } else {
+                Container result = and(this.containers[i], that.containers[j]);
+                if (result != null) {
+                    keys.add(this.keys[i]);
+                    containers.add(result);
+                    total += result.cardinality();
+                }
+                i++;
+                j++;
+            }
+        }
+        return make(keys, containers, total);
+    }
+
+    /**
+     * @param that another set
+     * @return the ordinals in this set or that or both
+     */
+    public TweetBitmap or(TweetBitmap that) {
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < this.keys.length || j < that.keys.length) {
+            Container result;
+            char key;
+            if (j == that.keys.length || (i < this.keys.length && this.keys[i] < that.keys[j])) {
+                key = this.keys[i];
+                result = this.containers[i++];
+            } else if (i == this.keys.length || this.keys[i] > that.keys[j]) {
+                key = that.keys[j];
+                result = that.containers[j++];
+            } else {
+                key = this.keys[i];
+                result = or(this.containers[i++], that.containers[j++]);
+            }
+            keys.add(key);
+            containers.add(result);
+            total += result.cardinality();
+        }
+        return make(keys, containers, total);
+    }
+
+    /**
+     * @param that another set
+     * @return the ordinals in this set but not in that
+     */
+    public TweetBitmap andNot(TweetBitmap that) {
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        int total = 0;
+        int j = 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            while (j < that.keys.length && that.keys[j] < this.keys[i]) {
+                j++;
+            }
+            Container result = this.containers[i];
+            if (j < that.keys.length && that.keys[j] == this.keys[i]) {
+                result = andNot(result, that.containers[j]);
+            }
+            if (result != null) {
+                keys.add(this.keys[i]);
+                containers.add(result);
+                total += result.cardinality();
+            }
+        }
+        return make(keys, containers, total);
+    }
+
+    /**
+     * Call action on each ordinal in this set, in ascending order.
+     *
+     * @param action action to call
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * @return the ordinals in this set, in ascending order
+     */
+    public int[] toArray() {
+        int[] ordinals = new int[cardinality];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            count = containers[i].copyTo(keys[i] << 16, ordinals, count);
+        }
+        return ordinals;
+    }
+
+    /**
+     * Materialize this set as the tweets at its ordinals.
+     *
+     * @param tweets list of tweets whose positions this set holds, requires every
+     *               ordinal in this set to be < tweets.size(); not modified
+     * @return the tweets at the ordinals in this set, in the same order as in tweets
+     */
+    public List<Tweet> tweetsIn(List<Tweet> tweets) {
+        List<Tweet> found = new ArrayList<Tweet>(cardinality);
+        if (tweets instanceof RandomAccess) {
+            forEach(ordinal -> found.add(tweets.get(ordinal)));
+        } else {
+            int ordinal = 0;
+            for (Tweet tweet: tweets) {
+                if (contains(ordinal++)) {
+                    found.add(tweet);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Materialize this set as the tweets with its ordinals in a store.
+     *
+     * @param tweets store of tweets, requires every ordinal in this set to be < tweets.size()
+     * @return the tweets with the ordinals in this set, in the same order as in the store
+     */
+    public List<Tweet> tweetsIn(TweetStore tweets) {
+        return tweets.tweetsAt(toArray(), cardinality);
+    }
+
+    /**
+     * @return approximate number of bytes used by the containers of this set
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Container container: containers) {
+            bytes += 4 + container.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    @Override public boolean equals(Object thatObject) {
+        if (!(thatObject instanceof TweetBitmap)) {
+            return false;
+        }
+        TweetBitmap that = (TweetBitmap) thatObject;
+        return cardinality == that.cardinality && Arrays.equals(toArray(), that.toArray());
+    }
+
+    @Override public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /*
+     * Operations on one chunk. Results are optimized, or null if empty.
+     */
+
+    private static Container and(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer) a;
+            ArrayContainer y = (ArrayContainer) b;
+            char[] values = new char[Math.min(x.size, y.size)];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < x.size && j < y.size) {
+                if (x.values[i] < y.values[j]) {
+                    i++;
+                } else if (x.values[i] > y.values[j]) {
+                    j++;
+                } else {
+                    values[size++] = x.values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return size == 0 ? null : optimize(new ArrayContainer(values, size));
+        }
+        if (a instanceof ArrayContainer || b instanceof ArrayContainer) {
+            ArrayContainer array = (ArrayContainer) (a instanceof ArrayContainer ? a : b);
+            Container other = array == a ? b : a;
+            return filter(array, other, true);
+        }
+        long[] words = a.toWords();
+        b.andInto(words);
+        return fromWords(words);
+    }
+
+    private static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer
+                && ((ArrayContainer) a).size + ((ArrayContainer) b).size <= ARRAY_LIMIT) {
+            ArrayContainer x = (ArrayContainer) a;
+            ArrayContainer y = (ArrayContainer) b;
+            char[] values = new char[x.size + y.size];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < x.size || j < y.size) {
+                if (j == y.size || (i < x.size && x.values[i] < y.values[j])) {
+                    values[size++] = x.values[i++];
+                } else if (i == x.size || x.values[i] > y.values[j]) {
+                    values[size++] = y.values[j++];
+                } else {
+                    values[size++] = x.values[i++];
+                    j++;
+                }
+            }
+            return optimize(new ArrayContainer(values, size));
+        }
+        long[] words = a.toWords();
+        b.orInto(words);
+        return fromWords(words);
+    }
+
+    private static Container andNot(Container a, Container b) {
+        if (a instanceof ArrayContainer) {
+            return filter((ArrayContainer) a, b, false);
+        }
+        long[] words = a.toWords();
+        b.andNotInto(words);
+        return fromWords(words);
+    }
+
+    /*
+     * The values of array that are (keep) or are not (!keep) in other.
+     */
+    private static Container filter(ArrayContainer array, Container other, boolean keep) {
+        char[] values = new char[array.size];
+        int size = 0;
+        for (int i = 0; i < array.size; i++) {
+            if (other.contains(array.values[i]) == keep) {
+                values[size++] = array.values[i];
+            }
+        }
+        return size == 0 ? null : optimize(new ArrayContainer(values, size));
+    }
+
+    private static Container fromWords(long[] words) {
+        int cardinality = 0;
+        for (long word: words) {
+            cardinality += Long.bitCount(word);
+        }
+        if (cardinality == 0) {
+            return null;
+        }
+        return optimize(new BitmapContainer(words, cardinality));
+    }
+
+    /*
+     * The smallest of the three representations of a container's values.
+     */
+    private static Container optimize(Container container) {
+        int cardinality = container.cardinality();
+        int runs = container.runCount();
+        long runBytes = 4L * runs;
+        long arrayBytes = 2L * cardinality;
+        long bitmapBytes = 8L * CHUNK_WORDS;
+        if (runBytes < Math.min(arrayBytes, bitmapBytes)) {
+            return container instanceof RunContainer ? container : RunContainer.from(container, runs);
+        }
+        if (cardinality <= ARRAY_LIMIT) {
+            return container instanceof ArrayContainer ? container : ArrayContainer.from(container);
+        }
+        return container instanceof BitmapContainer ? container : new BitmapContainer(container.toWords(), cardinality);
+    }
+
+    /*
+     * The values of one chunk, as 16-bit unsigned chars.
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        /* Number of runs of consecutive values. */
+        abstract int runCount();
+
+        /* A new 1024-word bitmap of the values. */
+        abstract long[] toWords();
+
+        abstract void forEach(int high, IntConsumer action);
+
+        /* Copy high | value for each value into ordinals from index count; returns the new count. */
+        abstract int copyTo(int high, int[] ordinals, int count);
+
+        abstract long sizeInBytes();
+
+        void andInto(long[] words) {
+            long[] mine = toWords();
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                words[i] &= mine[i];
+            }
+        }
+
+        void orInto(long[] words) {
+            long[] mine = toWords();
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                words[i] |= mine[i];
+            }
+        }
+
+        void andNotInto(long[] words) {
+            long[] mine = toWords();
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                words[i] &= ~mine[i];
+            }
+        }
+    }
+
+    private static class ArrayContainer extends Container {
+        final char[] values;
+        final int size;
+        /* Rep invariant: values[0..size) strictly ascending, size > 0 */
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        static ArrayContainer from(Container container) {
+            char[] values = new char[container.cardinality()];
+            int[] count = {0};
+            container.forEach(0, value -> values[count[0]++] = (char) value);
+            return new ArrayContainer(values, values.length);
+        }
+
+        @Override int cardinality() {
+            return size;
+        }
+
+        @Override boolean contains(char value) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < value) {
+                    low = middle + 1;
+                } else if (values[middle] > value) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override int runCount() {
+            int runs = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || values[i] != values[i - 1] + 1) {
+                    runs++;
+                }
+            }
+            return runs;
+        }
+
+        @Override long[] toWords() {
+            long[] words = new long[CHUNK_WORDS];
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return words;
+        }
+
+        @Override void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override int copyTo(int high, int[] ordinals, int count) {
+            for (int i = 0; i < size; i++) {
+                ordinals[count++] = high | values[i];
+            }
+            return count;
+        }
+
+        @Override long sizeInBytes() {
+            return 2L * size;
+        }
+    }
+
+    private static class BitmapContainer extends Container {
+        final long[] words;
+        final int cardinality;
+        /* Rep invariant: words.length == CHUNK_WORDS, cardinality is the number of set bits, > 0 */
+
+        BitmapContainer(long[] words) {
+            this(words, countBits(words));
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        private static int countBits(long[] words) {
+            int count = 0;
+            for (long word: words) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+
+        @Override int cardinality() {
+            return cardinality;
+        }
+
+        @Override boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override int runCount() {
+            int runs = 0;
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                long word = words[i];
+                long previousTop = i == 0 ? 0 : words[i - 1] >>> 63;
+                // a run starts at each set bit whose lower neighbour is clear
+                runs += Long.bitCount(word & ~((word << 1) | previousTop));
+            }
+            return runs;
+        }
+
+        @Override long[] toWords() {
+            return words.clone();
+        }
+
+        @Override void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override int copyTo(int high, int[] ordinals, int count) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    ordinals[count++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return count;
+        }
+
+        @Override void andInto(long[] target) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                target[i] &= words[i];
+            }
+        }
+
+        @Override void orInto(long[] target) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                target[i] |= words[i];
+            }
+        }
+
+        @Override void andNotInto(long[] target) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                target[i] &= ~words[i];
+            }
+        }
+
+        @Override long sizeInBytes() {
+            return 8L * CHUNK_WORDS;
+        }
+    }
+
+    private static class RunContainer extends Container {
+        final char[] starts;
+        final char[] lengths; // each run covers starts[i] .. starts[i] + lengths[i], inclusive
+        final int runs;
+        /* Rep invariant: runs > 0; runs are ascending, disjoint and not adjacent */
+
+        RunContainer(char[] starts, char[] lengths, int runs) {
+            this.starts = starts;
+            this.lengths = lengths;
+            this.runs = runs;
+        }
+
+        static RunContainer from(Container container, int runs) {
+            char[] starts = new char[runs];
+            char[] lengths = new char[runs];
+            int[] state = {-1, -2}; // index of the current run, last value seen
+            container.forEach(0, value -> {
+                if (value != state[1] + 1) {
+                    starts[++state[0]] = (char) value;
+                } else {
+                    lengths[state[0]]++;
+                }
+                state[1] = value;
+            });
+            return new RunContainer(starts, lengths, runs);
+        }
+
+        @Override int cardinality() {
+            int cardinality = 0;
+            for (int i = 0; i < runs; i++) {
+                cardinality += lengths[i] + 1;
+            }
+            return cardinality;
+        }
+
+        @Override boolean contains(char value) {
+            int low = 0;
+            int high = runs - 1;
+            while (low <= high) {// find the last run starting at or before value
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= value) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high >= 0 && value <= starts[high] + lengths[high];
+        }
+
+        @Override int runCount() {
+            return runs;
+        }
+
+        @Override long[] toWords() {
+            long[] words = new long[CHUNK_WORDS];
+            for (int i = 0; i < runs; i++) {
+                setRange(words, starts[i], starts[i] + lengths[i] + 1);
+            }
+            return words;
+        }
+
+        /* Set bits [from, to) of words. */
+        private static void setRange(long[] words, int from, int to) {
+            int firstWord = from >>> 6;
+            int lastWord = (to - 1) >>> 6;
+            long firstMask = -1L << from;
+            long lastMask = -1L >>> -to;
+            if (firstWord == lastWord) {
+                words[firstWord] |= firstMask & lastMask;
+                return;
+            }
+            words[firstWord] |= firstMask;
+            for (int i = firstWord + 1; i < lastWord; i++) {
+                words[i] = -1L;
+            }
+            words[lastWord] |= lastMask;
+        }
+
+        @Override void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < runs; i++) {
+                for (int value = starts[i]; value <= starts[i] + lengths[i]; value++) {
+                    action.accept(high | value);
+                }
+            }
+        }
+
+        @Override int copyTo(int high, int[] ordinals, int count) {
+            for (int i = 0; i < runs; i++) {
+                for (int value = starts[i]; value <= starts[i] + lengths[i]; value++) {
+                    ordinals[count++] = high | value;
+                }
+            }
+            return count;
+        }
+
+        @Override long sizeInBytes() {
+            return 4L * runs;
+        }
+    }
+}
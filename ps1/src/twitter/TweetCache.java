@@ -0,0 +1,430 @@
+package twitter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * TweetCache keeps the responses of tweet servers on disk, so that repeated
+ * reads of the same URL don't wait on a slow server.
+ *
+ * A response fetched less than the freshness window ago is read straight from
+ * disk. An older one is revalidated with a conditional GET (If-None-Match and
+ * If-Modified-Since, from the ETag and Last-Modified of the cached response);
+ * a 304 reply renews it, and anything else replaces it. Responses may be sent
+ * gzip-compressed, and are stored decompressed.
+ *
+ * Each URL is stored as two files named by the SHA-256 of the URL: the body,
+ * and a properties file with its validators and fetch time. Each file is
+ * replaced atomically, so a reader never sees a partly written one. The two are
+ * not replaced together: the properties file is deleted before the body is
+ * replaced and written after it, so a crash in between leaves a body without
+ * properties, which is treated as a miss. A properties file that cannot be
+ * parsed is treated as a miss too.
+ *
+ * streamTweetsFromWeb decodes a response as it arrives, copying it to the cache
+ * on the way, rather than waiting for it to be stored first.
+ */
+public class TweetCache {
+
+    /** Freshness window used when none is given. */
+    public static final Duration DEFAULT_FRESHNESS = Duration.ofMinutes(5);
+
+    private static final String URL_KEY = "url";
+    private static final String ETAG_KEY = "etag";
+    private static final String LAST_MODIFIED_KEY = "last-modified";
+    private static final String FETCHED_AT_KEY = "fetched-at";
+
+    /* Most bytes left unread when a streamed response is closed that are still read to cache it. */
+    private static final int DRAIN_LIMIT = 64 * 1024;
+
+    private final Path directory;
+    private final Duration freshness;
+    private final Clock clock;
+    /* Rep invariant:
+     *    freshness is non-negative
+     *    for every URL cached, directory holds hash.body and hash.properties,
+     *    where hash is the hex SHA-256 of the URL, and hash.properties names
+     *    the URL and the time its body was last fetched or revalidated
+     */
+
+    /**
+     * Make a cache with the default freshness window.
+     *
+     * @param directory directory to keep responses in, created if needed
+     * @throws IOException if the directory cannot be created
+     */
+    public TweetCache(Path directory) throws IOException {
+        this(directory, DEFAULT_FRESHNESS);
+    }
+
+    /**
+     * Make a cache.
+     *
+     * @param directory directory to keep responses in, created if needed
+     * @param freshness how long a response is used without revalidating it,
+     *                  requires freshness non-negative
+     * @throws IOException if the directory cannot be created
+     */
+    public TweetCache(Path directory, Duration freshness) throws IOException {
+        this(directory, freshness, Clock.systemUTC());
+    }
+
+    TweetCache(Path directory, Duration freshness, Clock clock) throws IOException {
+        if (freshness.isNegative()) {
+            throw new IllegalArgumentException("requires a non-negative freshness window");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.freshness = freshness;
+        this.clock = clock;
+    }
+
+    /**
+     * Get a list of tweets from a server, through the cache. Same as
+     * TweetReader.readTweetsFromWeb, except that the server is only contacted
+     * when the cached response is missing or stale.
+     *
+     * @param url URL of server to retrieve tweets from
+     * @return a list of tweets retrieved from the server or the cache
+     * @throws IOException if the cached response is missing or stale and the
+     *                     server cannot be reached, or replies with an error
+     */
+    public List<Tweet> readTweetsFromWeb(URL url) throws IOException {
+        return TweetFileReader.readTweetsFromFile(fetch(url));
+    }
+
+    /**
+     * Stream the tweets of a server, through the cache. A cached response is
+     * read from disk; otherwise the response is decoded as it arrives, and is
+     * stored in the cache once it has been read to the end. The stream must be
+     * closed to release the cached file or the connection.
+     *
+     * @param url URL of server to retrieve tweets from
+     * @return stream of the tweets retrieved from the server or the cache
+     * @throws IOException if the server cannot be reached, or replies with an error
+     */
+    public Stream<Tweet> streamTweetsFromWeb(URL url) throws IOException {
+        Lookup lookup = lookup(url);
+        if (lookup.download == null) {
+            return TweetFileReader.streamTweetsFromFile(lookup.body);
+        }
+        CachingInputStream in = lookup.download;
+        try {
+            return TweetStreamReader.asStream(new TweetStreamReader(in));
+        } catch (RuntimeException re) {
+            in.discard();
+            throw re;
+        }
+    }
+
+    /**
+     * Make sure a fresh response for a URL is on disk.
+     *
+     * @param url URL of server to retrieve tweets from
+     * @return file holding the decompressed response body; it may be replaced
+     *         by a later fetch, so callers should read it promptly
+     * @throws IOException if the server cannot be reached, or replies with an error
+     */
+    public Path fetch(URL url) throws IOException {
+        Lookup lookup = lookup(url);
+        if (lookup.download != null) {
+            try (CachingInputStream in = lookup.download) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // copied to the cache as it is read
+                }
+            }
+        }
+        return lookup.body;
+    }
+
+    /* Where a response for a URL is: in body, or still to be read from download. */
+    private static class Lookup {
+        final Path body;
+        final CachingInputStream download;
+
+        Lookup(Path body, CachingInputStream download) {
+            this.body = body;
+            this.download = download;
+        }
+    }
+
+    /*
+     * The file of a fresh or revalidated response for url, or else a stream over
+     * a new response from the server, which stores it in that file when read to
+     * the end.
+     */
+    private Lookup lookup(URL url) throws IOException {
+        String key = keyOf(url);
+        Path body = directory.resolve(key + ".body");
+        Path metadataFile = directory.resolve(key + ".properties");
+        Properties metadata = readMetadata(metadataFile, url);
+        Instant now = clock.instant();
+        if (metadata != null && Files.exists(body)) {
+            Instant fetchedAt = Instant.ofEpochMilli(Long.parseLong(metadata.getProperty(FETCHED_AT_KEY)));
+            if (!now.isBefore(fetchedAt) && Duration.between(fetchedAt, now).compareTo(freshness) < 0) {
+                return new Lookup(body, null);
+            }
+        } else {
+            metadata = null;
+        }
+
+        HttpURLConnection connection = open(url);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (metadata != null) {
+            if (metadata.getProperty(ETAG_KEY) != null) {
+                connection.setRequestProperty("If-None-Match", metadata.getProperty(ETAG_KEY));
+            }
+            if (metadata.getProperty(LAST_MODIFIED_KEY) != null) {
+                connection.setRequestProperty("If-Modified-Since", metadata.getProperty(LAST_MODIFIED_KEY));
+            }
+        }
+        boolean streaming = false;
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && metadata != null) {
+                metadata.setProperty(FETCHED_AT_KEY, Long.toString(now.toEpochMilli()));
+                writeMetadata(metadataFile, metadata);
+                return new Lookup(body, null);
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("server replied " + status + " " + connection.getResponseMessage() + " for " + url);
+            }
+            Properties fetched = new Properties();
+            fetched.setProperty(URL_KEY, url.toString());
+            fetched.setProperty(FETCHED_AT_KEY, Long.toString(now.toEpochMilli()));
+            if (connection.getHeaderField("ETag") != null) {
+                fetched.setProperty(ETAG_KEY, connection.getHeaderField("ETag"));
+            }
+            if (connection.getHeaderField("Last-Modified") != null) {
+                fetched.setProperty(LAST_MODIFIED_KEY, connection.getHeaderField("Last-Modified"));
+            }
+            CachingInputStream download = new CachingInputStream(connection, body, metadataFile, fetched);
+            streaming = true;
+            return new Lookup(body, download);
+        } finally {
+            if (!streaming) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /* A response being read from the server, copied to a temporary file as it is read. */
+    private class CachingInputStream extends FilterInputStream {
+        private final HttpURLConnection connection;
+        private final Path body;
+        private final Path metadataFile;
+        private final Properties metadata;
+        private final Path download;
+        private final OutputStream copy;
+        private boolean ended = false;
+        private boolean failed = false;
+        private boolean closed = false;
+        /* Rep invariant:
+         *    download holds the bytes read so far, through copy, unless failed
+         * Abstraction function:
+         *    represents the response of connection, to be stored at body and
+         *    metadataFile, with properties metadata, once it has been read to the end
+         */
+
+        CachingInputStream(HttpURLConnection connection, Path body, Path metadataFile, Properties metadata) throws IOException {
+            super(decode(connection));
+            this.connection = connection;
+            this.body = body;
+            this.metadataFile = metadataFile;
+            this.metadata = metadata;
+            Path temporary = null;
+            try {
+                temporary = Files.createTempFile(directory, body.getFileName().toString(), ".tmp");
+                this.copy = Files.newOutputStream(temporary);
+            } catch (IOException ioe) {
+                in.close();
+                if (temporary != null) {
+                    Files.deleteIfExists(temporary);
+                }
+                throw ioe;
+            }
+            this.download = temporary;
+        }
+
+        @Override public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n;
+            try {
+                n = in.read(buffer, offset, length);
+                if (n > 0 && !failed) {
+                    copy.write(buffer, offset, n);
+                }
+            } catch (IOException ioe) {
+                failed = true;
+                throw ioe;
+            }
+            if (n < 0) {
+                ended = true;
+            }
+            return n;
+        }
+
+        @Override public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 1))];
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n));
+            return Math.max(read, 0);
+        }
+
+        @Override public boolean markSupported() {
+            return false;
+        }
+
+        /*
+         * Close without storing anything.
+         */
+        void discard() throws IOException {
+            failed = true;
+            close();
+        }
+
+        /**
+         * Close the response, storing it in the cache if it has been read to the
+         * end, or can be with at most DRAIN_LIMIT more bytes.
+         */
+        @Override public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                try {
+                    if (!failed && !ended) {
+                        drain();
+                    }
+                } finally {
+                    try {
+                        copy.close();
+                    } finally {
+                        in.close();
+                        connection.disconnect();
+                    }
+                }
+                if (!failed && ended) {
+                    Files.deleteIfExists(metadataFile); // a crash before the new properties leaves a miss
+                    Files.move(download, body, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    writeMetadata(metadataFile, metadata);
+                }
+            } finally {
+                Files.deleteIfExists(download);
+            }
+        }
+
+        private void drain() {
+            byte[] buffer = new byte[8192];
+            try {
+                for (int drained = 0; drained <= DRAIN_LIMIT && !ended; ) {
+                    int n = read(buffer, 0, buffer.length);
+                    drained += Math.max(n, 0);
+                }
+            } catch (IOException ioe) {
+                failed = true; // the response is incomplete, so it is not cached
+            }
+        }
+    }
+
+    private static HttpURLConnection open(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        if (!(connection instanceof HttpURLConnection)) {
+            throw new IOException("only HTTP URLs can be cached: " + url);
+        }
+        connection.setUseCaches(false); // this class is the cache
+        return (HttpURLConnection) connection;
+    }
+
+    private static InputStream decode(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getInputStream();
+        String encoding = connection.getContentEncoding();
+        if (encoding == null || encoding.equalsIgnoreCase("identity")) {
+            return in;
+        }
+        if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+            return new GZIPInputStream(in);
+        }
+        in.close();
+        throw new IOException("unsupported content encoding: " + encoding);
+    }
+
+    /*
+     * Read the metadata of a cached response, or null if there is none for url
+     * or it cannot be parsed.
+     */
+    private static Properties readMetadata(Path file, URL url) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties metadata = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            metadata.load(reader);
+        } catch (IllegalArgumentException | CharacterCodingException e) {
+            return null; // corrupt, so treated as a miss
+        }
+        if (!url.toString().equals(metadata.getProperty(URL_KEY)) || metadata.getProperty(FETCHED_AT_KEY) == null) {
+            return null;
+        }
+        try {
+            Long.parseLong(metadata.getProperty(FETCHED_AT_KEY));
+        } catch (NumberFormatException nfe) {
+            return null; // truncated or corrupt, so treated as a miss
+        }
+        return metadata;
+    }
+
+    private void writeMetadata(Path file, Properties metadata) throws IOException {
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                metadata.store(writer, null);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /*
+     * Hex SHA-256 of the URL, used to name its files.
+     */
+    private static String keyOf(URL url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b: hash) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new AssertionError(nsae); // every Java platform supports SHA-256
+        }
+    }
+}
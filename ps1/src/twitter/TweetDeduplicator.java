@@ -0,0 +1,165 @@
+package twitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * TweetDeduplicator is an ingest stage that passes each tweet id through at
+ * most once, so repeated tweets from overlapping polls are dropped. Seen ids
+ * are kept in a LongHashSet rather than as boxed Tweets.
+ *
+ * Optionally the deduplicator only remembers tweets within a time window of
+ * the newest tweet seen so far (by tweet timestamp), forgetting older ids so
+ * that memory stays flat on a continuous feed. Ids are forgotten by timestamp,
+ * not by arrival, so tweets arriving out of order are forgotten on time too.
+ * With a window, a tweet whose timestamp is already older than the window is
+ * dropped if its id is still remembered, and otherwise passed through, since
+ * it can no longer be checked; such tweets are not remembered.
+ *
+ * Use it as a Predicate, e.g. stream.filter(deduplicator). Not safe for use
+ * by several threads at once.
+ */
+public class TweetDeduplicator implements Predicate<Tweet> {
+
+    private static final int MIN_HEAP_CAPACITY = 16;
+
+    private final LongHashSet seenIds;
+    private final long windowMillis;
+    private long newestMillis = Long.MIN_VALUE;
+    // ids and timestamps of remembered tweets, as a binary min-heap by timestamp
+    private long[] heapIds;
+    private long[] heapMillis;
+    private int heapSize = 0;
+    /* Rep invariant:
+     *    windowMillis >= 0
+     *    heapIds == null and heapMillis == null if there is no window;
+     *    otherwise heapIds.length == heapMillis.length, heapSize <= heapIds.length,
+     *        heapMillis[0 .. heapSize) is a min-heap, with heapIds[i] the id of
+     *        the tweet of heapMillis[i], and seenIds holds exactly heapIds[0 .. heapSize)
+     */
+
+    /**
+     * Make a deduplicator that remembers every id it has seen.
+     */
+    public TweetDeduplicator() {
+        this.seenIds = new LongHashSet();
+        this.windowMillis = Long.MAX_VALUE;
+    }
+
+    /**
+     * Make a deduplicator that remembers ids only within a time window.
+     *
+     * @param window how far behind the newest tweet seen an id is still remembered;
+     *               requires window to be non-negative
+     */
+    public TweetDeduplicator(Duration window) {
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("requires a non-negative window");
+        }
+        this.seenIds = new LongHashSet();
+        this.windowMillis = window.toMillis();
+        this.heapIds = new long[MIN_HEAP_CAPACITY];
+        this.heapMillis = new long[MIN_HEAP_CAPACITY];
+    }
+
+    /**
+     * Admit a tweet if its id has not been seen before.
+     *
+     * @param tweet tweet arriving at this stage
+     * @return true if the tweet should be passed on, false if it is a repeat
+     */
+    @Override public boolean test(Tweet tweet) {
+        if (heapIds == null) {
+            return seenIds.add(tweet.getId());
+        }
+        long millis = tweet.getTimestamp().toEpochMilli();
+        if (millis > newestMillis) {
+            newestMillis = millis;
+            evictOlderThan(cutoffMillis());
+        } else if (millis < cutoffMillis()) {
+            return !seenIds.contains(tweet.getId()); // late: checked, but not remembered
+        }
+        if (!seenIds.add(tweet.getId())) {
+            return false;
+        }
+        push(tweet.getId(), millis);
+        return true;
+    }
+
+    /**
+     * Remove repeated tweets from a list.
+     *
+     * @param tweets list of tweets, not modified by this method
+     * @return the tweets admitted by this deduplicator, in the same order as in the input list
+     */
+    public List<Tweet> dedupe(List<Tweet> tweets) {
+        List<Tweet> admitted = new ArrayList<Tweet>(tweets.size());
+        for (Tweet tweet: tweets) {
+            if (test(tweet)) {
+                admitted.add(tweet);
+            }
+        }
+        return admitted;
+    }
+
+    /**
+     * @return number of tweet ids currently remembered
+     */
+    public int size() {
+        return seenIds.size();
+    }
+
+    /*
+     * @return the oldest timestamp still inside the window, saturating instead of overflowing
+     */
+    private long cutoffMillis() {
+        long cutoff = newestMillis - windowMillis;
+        return cutoff > newestMillis ? Long.MIN_VALUE : cutoff;
+    }
+
+    private void push(long id, long millis) {
+        if (heapSize == heapIds.length) {
+            heapIds = Arrays.copyOf(heapIds, heapSize * 2);
+            heapMillis = Arrays.copyOf(heapMillis, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0 && heapMillis[(i - 1) / 2] > millis) {
+            int parent = (i - 1) / 2;
+            heapIds[i] = heapIds[parent];
+            heapMillis[i] = heapMillis[parent];
+            i = parent;
+        }
+        heapIds[i] = id;
+        heapMillis[i] = millis;
+    }
+
+    /*
+     * Forget remembered ids while the oldest of their tweets is older than cutoff.
+     */
+    private void evictOlderThan(long cutoff) {
+        while (heapSize > 0 && heapMillis[0] < cutoff) {
+            seenIds.remove(heapIds[0]);
+            heapSize--;
+            long id = heapIds[heapSize];
+            long millis = heapMillis[heapSize];
+            int i = 0;
+            while (2 * i + 1 < heapSize) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heapMillis[child + 1] < heapMillis[child]) {
+                    child++;
+                }
+                if (heapMillis[child] >= millis) {
+                    break;
+                }
+                heapIds[i] = heapIds[child];
+                heapMillis[i] = heapMillis[child];
+                i = child;
+            }
+            heapIds[i] = id;
+            heapMillis[i] = millis;
+        }
+    }
+}
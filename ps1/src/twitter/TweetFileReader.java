@@ -0,0 +1,71 @@
+package twitter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.json.JsonException;
+
+/**
+ * TweetFileReader reads tweets from local dump files in the same JSON format
+ * as TweetReader. Files are memory-mapped and decoded straight from the mapped
+ * bytes, so even multi-gigabyte files are never copied into a single String
+ * or byte array.
+ */
+public class TweetFileReader {
+
+    /**
+     * Get a list of tweets from a local file.
+     *
+     * @param file path of a file holding a JSON array of tweets, in UTF-8, UTF-16 or UTF-32
+     * @return the tweets in the file, in order
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws JsonException if the file is not a well-formed array of tweets
+     */
+    public static List<Tweet> readTweetsFromFile(Path file) throws IOException {
+        List<Tweet> tweetList = new ArrayList<Tweet>();
+        try (TweetStreamReader reader = openFile(file)) {
+            while (reader.hasNext()) {
+                tweetList.add(reader.next());
+            }
+        }
+        return tweetList;
+    }
+
+    /**
+     * Get a lazily-evaluated stream of tweets from a local file.
+     *
+     * @param file path of a file holding a JSON array of tweets, in UTF-8, UTF-16 or UTF-32
+     * @return the tweets in the file, in order. The file is released when the
+     *         stream is closed.
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws JsonException if the file does not start with a JSON array
+     */
+    public static Stream<Tweet> streamTweetsFromFile(Path file) throws IOException {
+        return TweetStreamReader.asStream(openFile(file));
+    }
+
+    /*
+     * Open a streaming reader over the mapped contents of a file.
+     */
+    private static TweetStreamReader openFile(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        MappedInputStream in;
+        try {
+            in = new MappedInputStream(channel, 0, channel.size(), true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        try {
+            return new TweetStreamReader(in);
+        } catch (RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * TweetIndex is an inverted index over the words of a fixed list of tweets,
+ * so that keyword queries cost the size of the matching posting lists rather
+ * than a scan of every text.
+ *
+ * Texts are split into words once, with the rules of Filter.containing: words
+ * are bounded by space characters (as matched by the regex \s) and the ends of
+ * the text, and compared after lowercasing with the default locale at the
+ * time the index is built. Each distinct word maps to its posting list, the
+ * ascending positions in the list of the tweets that include it.
+ *
+ * For example:
+ *     TweetIndex index = new TweetIndex(tweets);
+ *     List<Tweet> matches = index.containing(Arrays.asList("rivest", "obama"));
+ * gives the same list as Filter.containing(tweets, Arrays.asList("rivest", "obama")).
+ */
+public class TweetIndex {
+
+    private static final int[] NO_POSTINGS = new int[0];
+
+    private final List<Tweet> tweets;
+    private final Locale locale;
+    private final Map<String, int[]> postings;
+    /* Rep invariant:
+     *    tweets is RandomAccess
+     *    every posting list in postings is nonempty, strictly ascending, and
+     *    holds positions in [0, tweets.size())
+     * Abstraction function:
+     *    represents the map from each lowercase word w to the positions i such that
+     *    Filter.containing(tweets.subList(i, i + 1), [w]) is nonempty, for the word
+     *    rules of Filter.containing with lowercasing in locale
+     */
+
+    /**
+     * Index a list of tweets. For a TweetStore, index store.asList().
+     *
+     * @param tweets tweets to index; must not be modified while this index is in use
+     */
+    public TweetIndex(List<Tweet> tweets) {
+        this.tweets = tweets instanceof RandomAccess ? tweets : new ArrayList<Tweet>(tweets);
+        this.locale = Locale.getDefault();
+        Map<String, Postings> building = new HashMap<>();
+        for (int position = 0; position < this.tweets.size(); position++) {
+            addWords(this.tweets.get(position).getText().toLowerCase(locale), position, building);
+        }
+        this.postings = new HashMap<>(building.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Postings> entry: building.entrySet()) {
+            Postings list = entry.getValue();
+            postings.put(entry.getKey(), Arrays.copyOf(list.positions, list.size));
+        }
+    }
+
+    /* Growable posting list while the index is being built. */
+    private static class Postings {
+        int[] positions = new int[2];
+        int size = 0;
+
+        void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return; // the word occurs more than once in this tweet
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+    }
+
+    /*
+     * Add the words of a lowercase text to the posting lists. Each run of
+     * nonspace chars between two space chars or the ends of the text is a word,
+     * including empty runs. As $ in the regex of Filter.containing also matches
+     * before a final line terminator, a final word ending in one is added both
+     * with and without it.
+     */
+    private static void addWords(String text, int position, Map<String, Postings> building) {
+        int start = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || KeywordMatcher.isSpace(text.charAt(i))) {
+                addWord(text.substring(start, i), position, building);
+                start = i + 1;
+            }
+        }
+        int last = text.length() - 1;
+        if (last >= 0 && KeywordMatcher.isLineTerminator(text.charAt(last))) {
+            int wordStart = last;
+            while (wordStart > 0 && !KeywordMatcher.isSpace(text.charAt(wordStart - 1))) {
+                wordStart--;
+            }
+            addWord(text.substring(wordStart, last), position, building);
+        }
+    }
+
+    private static void addWord(String word, int position, Map<String, Postings> building) {
+        Postings list = building.get(word);
+        if (list == null) {
+            list = new Postings();
+            building.put(word, list);
+        }
+        list.add(position);
+    }
+
+    /**
+     * @return number of tweets indexed
+     */
+    public int size() {
+        return tweets.size();
+    }
+
+    /**
+     * @return number of distinct words in the indexed tweets
+     */
+    public int wordCount() {
+        return postings.size();
+    }
+
+    /**
+     * @param word a word, in any case
+     * @return number of indexed tweets that include the word
+     */
+    public int frequency(String word) {
+        return postingsOf(word).length;
+    }
+
+    /**
+     * @param word a word, in any case
+     * @return ascending positions of the indexed tweets that include the word;
+     *         a new array each call
+     */
+    public int[] postings(String word) {
+        return postingsOf(word).clone();
+    }
+
+    /*
+     * The stored posting list of a word, not to be modified.
+     */
+    int[] postingsOf(String word) {
+        int[] list = postings.get(word.toLowerCase(locale));
+        return list == null ? NO_POSTINGS : list;
+    }
+
+    /**
+     * Find the indexed tweets that contain any of certain words.
+     *
+     * @param words words to search for, as for Filter.containing
+     * @return all and only the indexed tweets that include at least one of the
+     *         words, in the same order as in the indexed list; the same as
+     *         Filter.containing on the indexed list
+     */
+    public List<Tweet> containing(List<String> words) {
+        return tweetsAt(positionsContaining(words));
+    }
+
+    /**
+     * Find the positions of the indexed tweets that contain any of certain words.
+     *
+     * @param words words to search for, as for Filter.containing
+     * @return ascending positions of the indexed tweets that include at least
+     *         one of the words
+     */
+    public int[] positionsContaining(List<String> words) {
+        if (words.size() == 1) {
+            return postings(words.get(0));
+        }
+        int total = 0;
+        int[][] lists = new int[words.size()][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postingsOf(words.get(i));
+            total += lists[i].length;
+        }
+        int[] union = new int[total];
+        int count = 0;
+        for (int[] list: lists) {
+            System.arraycopy(list, 0, union, count, list.length);
+            count += list.length;
+        }
+        Arrays.sort(union);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || union[distinct - 1] != union[i]) {
+                union[distinct++] = union[i];
+            }
+        }
+        return distinct == union.length ? union : Arrays.copyOf(union, distinct);
+    }
+
+    /**
+     * @param positions ascending positions in the indexed list
+     * @return the indexed tweets at those positions, in order
+     */
+    public List<Tweet> tweetsAt(int[] positions) {
+        List<Tweet> found = new ArrayList<Tweet>(positions.length);
+        for (int position: positions) {
+            found.add(tweets.get(position));
+        }
+        return found;
+    }
+}
@@ -0,0 +1,367 @@
+package twitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * TweetLog is a durable, append-only log of ingested tweets, kept as a
+ * sequence of segment files in one directory.
+ *
+ * Each segment starts with a header, followed by records of the form
+ * [payload length][CRC-32 of payload][payload], where the payload holds a
+ * tweet's id, timestamp, author and text. Appends are buffered and forced to
+ * disk in batches (every syncInterval records, on sync(), and on close()), and
+ * a new segment is started once the current one reaches its size limit.
+ *
+ * Opening a log recovers from a crash: a torn or corrupt record at the end of
+ * the last segment, and everything after it, is cut off. Corruption anywhere
+ * else is reported as an error, since it cannot come from an interrupted append.
+ *
+ * Not safe for use by several threads at once.
+ */
+public class TweetLog implements Closeable {
+
+    /** Default size at which a new segment is started. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    /** Default number of appended records between forced writes. */
+    public static final int DEFAULT_SYNC_INTERVAL = 1000;
+
+    private static final int MAGIC = 0x54574c47; // "TWLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    // id, epoch second, nanos, author length, text length
+    private static final int MIN_PAYLOAD_BYTES = 8 + 8 + 4 + 2 + 4;
+    private static final int MAX_PAYLOAD_BYTES = 1 << 24;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int syncInterval;
+    private final List<Path> segments;
+    private FileChannel current;
+    private long currentSize;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1 << 16);
+    private final CRC32 crc = new CRC32();
+    private int unsyncedRecords = 0;
+    /* Rep invariant:
+     *    segments is nonempty, in increasing sequence order, and its last element is the file
+     *        that current writes to
+     *    currentSize is the size current will have once writeBuffer is written out
+     *    unsyncedRecords < syncInterval
+     */
+
+    private TweetLog(Path directory, long segmentBytes, int syncInterval, List<Path> segments) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncInterval = syncInterval;
+        this.segments = segments;
+        if (segments.isEmpty()) {
+            startSegment(0);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            current = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            currentSize = current.size();
+        }
+    }
+
+    /**
+     * Open the log in a directory with default settings, creating it if needed
+     * and recovering from a torn tail.
+     *
+     * @param directory directory holding the log's segments
+     * @return the open log, positioned to append after its last intact record
+     * @throws IOException if the log cannot be opened, or a segment other than
+     *                     the last one is corrupt
+     */
+    public static TweetLog open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Open the log in a directory, creating it if needed and recovering from a
+     * torn tail.
+     *
+     * @param directory directory holding the log's segments
+     * @param segmentBytes size at which a new segment is started, requires
+     *                     0 < segmentBytes <= Integer.MAX_VALUE so a segment can be mapped at once
+     * @param syncInterval number of appended records between forced writes, requires syncInterval > 0
+     * @return the open log, positioned to append after its last intact record
+     * @throws IOException if the log cannot be opened, or a segment other than
+     *                     the last one is corrupt
+     */
+    public static TweetLog open(Path directory, long segmentBytes, int syncInterval) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE || syncInterval <= 0) {
+            throw new IllegalArgumentException("requires 0 < segmentBytes <= Integer.MAX_VALUE and syncInterval > 0");
+        }
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            long intactBytes = scanSegment(segments.get(i), null);
+            long size = Files.size(segments.get(i));
+            if (intactBytes < size) {
+                if (!last) {
+                    throw new IOException("corrupt record at byte " + intactBytes + " of " + segments.get(i));
+                }
+                try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.WRITE)) {
+                    channel.truncate(Math.max(intactBytes, 0));
+                    channel.force(true);
+                }
+            }
+        }
+        TweetLog log = new TweetLog(directory, segmentBytes, syncInterval, segments);
+        if (log.currentSize < HEADER_BYTES) {// the last segment lost its header in a crash
+            log.current.truncate(0);
+            log.currentSize = 0;
+            log.writeHeader();
+        }
+        return log;
+    }
+
+    /**
+     * Add a tweet to the end of the log. It is durable once the next batch is
+     * forced, or after sync() or close() returns.
+     *
+     * @param tweet tweet to append
+     * @throws IOException if writing fails
+     */
+    public void append(Tweet tweet) throws IOException {
+        byte[] author = tweet.getAuthor().getBytes(StandardCharsets.UTF_8);
+        byte[] text = tweet.getText().getBytes(StandardCharsets.UTF_8);
+        int payloadBytes = MIN_PAYLOAD_BYTES + author.length + text.length;
+        if (author.length > Short.MAX_VALUE || payloadBytes > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("tweet too large for the log: " + tweet.getId());
+        }
+        int recordBytes = RECORD_HEADER_BYTES + payloadBytes;
+        if (currentSize + recordBytes > segmentBytes && currentSize > HEADER_BYTES) {
+            sync();
+            current.close();
+            startSegment(sequenceOf(segments.get(segments.size() - 1)) + 1);
+        }
+        ByteBuffer record;
+        if (recordBytes > writeBuffer.capacity()) {// too big for the buffer: written on its own below
+            flush();
+            record = ByteBuffer.allocate(recordBytes);
+        } else {
+            if (writeBuffer.remaining() < recordBytes) {
+                flush();
+            }
+            record = writeBuffer;
+        }
+        int start = record.position();
+        record.putInt(payloadBytes).putInt(0);
+        record.putLong(tweet.getId())
+              .putLong(tweet.getTimestamp().getEpochSecond())
+              .putInt(tweet.getTimestamp().getNano())
+              .putShort((short) author.length).put(author)
+              .putInt(text.length).put(text);
+        ByteBuffer payload = record.duplicate();
+        payload.position(start + RECORD_HEADER_BYTES).limit(record.position());
+        crc.reset();
+        crc.update(payload);
+        record.putInt(start + 4, (int) crc.getValue());
+        if (record != writeBuffer) {
+            record.flip();
+            writeFully(record);
+        }
+        currentSize += recordBytes;
+        if (++unsyncedRecords >= syncInterval) {
+            sync();
+        }
+    }
+
+    /**
+     * Force every appended tweet to disk.
+     *
+     * @throws IOException if writing fails
+     */
+    public void sync() throws IOException {
+        flush();
+        current.force(false);
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Read every tweet in the log, in the order it was appended. Tweets appended
+     * but not yet forced are included.
+     *
+     * @param consumer receives each tweet in turn
+     * @return number of tweets read
+     * @throws IOException if reading fails or the log is corrupt
+     */
+    public long replay(Consumer<Tweet> consumer) throws IOException {
+        flush();
+        long count = 0;
+        for (Path segment: segments) {
+            long[] segmentCount = new long[1];
+            long intactBytes = scanSegment(segment, tweet -> {
+                segmentCount[0]++;
+                consumer.accept(tweet);
+            });
+            if (intactBytes < Files.size(segment)) {
+                throw new IOException("corrupt record at byte " + intactBytes + " of " + segment);
+            }
+            count += segmentCount[0];
+        }
+        return count;
+    }
+
+    /**
+     * Read every tweet in the log into a list.
+     *
+     * @return the tweets in the log, in the order they were appended
+     * @throws IOException if reading fails or the log is corrupt
+     */
+    public List<Tweet> readAll() throws IOException {
+        List<Tweet> tweets = new ArrayList<Tweet>();
+        replay(tweets::add);
+        return tweets;
+    }
+
+    /**
+     * @return number of segment files in the log
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Force every appended tweet to disk and release the log.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            current.close();
+        }
+    }
+
+    /*
+     * @return the sequence number in a segment's file name
+     */
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void startSegment(long sequence) throws IOException {
+        Path segment = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        current = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.add(segment);
+        currentSize = 0;
+        writeHeader();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        writeFully(header);
+        current.force(true);
+        currentSize = HEADER_BYTES;
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        writeFully(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            current.write(buffer);
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file: files) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments); // names are zero-padded, so name order is sequence order
+        return segments;
+    }
+
+    /*
+     * Read the records of a segment sequentially from a memory mapping.
+     *
+     * @param segment segment file to read
+     * @param consumer receives each intact tweet in turn, or null to only validate
+     * @return the number of leading bytes of the segment that form a valid header
+     *         followed by intact records; less than the file size if the segment
+     *         has a torn or corrupt tail, and 0 if its header is missing or invalid
+     */
+    private static long scanSegment(Path segment, Consumer<Tweet> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return 0;
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (bytes.getInt() != MAGIC || bytes.getInt() != VERSION) {
+                return 0;
+            }
+            CRC32 crc = new CRC32();
+            byte[] scratch = new byte[256];
+            while (bytes.remaining() >= RECORD_HEADER_BYTES) {
+                int recordStart = bytes.position();
+                int payloadBytes = bytes.getInt();
+                int checksum = bytes.getInt();
+                if (payloadBytes < MIN_PAYLOAD_BYTES || payloadBytes > MAX_PAYLOAD_BYTES || payloadBytes > bytes.remaining()) {
+                    return recordStart;
+                }
+                ByteBuffer payload = bytes.slice();
+                payload.limit(payloadBytes);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    return recordStart;
+                }
+                if (consumer != null) {
+                    long id = payload.getLong();
+                    Instant timestamp = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+                    int authorBytes = payload.getShort();
+                    if (authorBytes < 0 || authorBytes > payload.remaining() - 4) {
+                        return recordStart;
+                    }
+                    scratch = ensureCapacity(scratch, authorBytes);
+                    payload.get(scratch, 0, authorBytes);
+                    String author = new String(scratch, 0, authorBytes, StandardCharsets.UTF_8);
+                    int textBytes = payload.getInt();
+                    if (textBytes != payload.remaining()) {
+                        return recordStart;
+                    }
+                    scratch = ensureCapacity(scratch, textBytes);
+                    payload.get(scratch, 0, textBytes);
+                    String text = new String(scratch, 0, textBytes, StandardCharsets.UTF_8);
+                    consumer.accept(new Tweet(id, author, text, timestamp));
+                }
+                bytes.position(recordStart + RECORD_HEADER_BYTES + payloadBytes);
+            }
+            return bytes.position();
+        }
+    }
+
+    private static byte[] ensureCapacity(byte[] scratch, int length) {
+        return scratch.length >= length ? scratch : new byte[Math.max(length, scratch.length * 2)];
+    }
+}
@@ -0,0 +1,335 @@
+package twitter;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * TweetPipeline runs one poll cycle of Main as a pipeline instead of a
+ * sequence of passes over a complete list: one thread decodes tweets while
+ * their bytes are still arriving and drops repeated ids, and hands them in
+ * batches through bounded queues to worker threads that build the timespan,
+ * the set of mentioned users and the follows graph incrementally.
+ *
+ * Each result is available as a CompletableFuture as soon as it is done, and
+ * is the same as Main's sequential computation on the deduplicated tweets.
+ */
+public class TweetPipeline {
+
+    /** Number of tweets handed to the workers at a time. */
+    public static final int BATCH_SIZE = 256;
+    /** Number of batches each worker's queue can hold before the decoder waits. */
+    public static final int QUEUE_BATCHES = 64;
+
+    /* How long the decoder waits on a full queue before checking that its stage still runs. */
+    private static final long OFFER_MILLIS = 50;
+
+    /* Marks the end of the tweets in a worker's queue. */
+    private static final List<Tweet> END = Collections.unmodifiableList(new ArrayList<Tweet>());
+
+    /**
+     * A source of tweets for one poll cycle.
+     */
+    public interface TweetSource {
+        /**
+         * @return a stream of the tweets, closed by the pipeline when it is done
+         * @throws IOException if the tweets cannot be fetched
+         */
+        Stream<Tweet> open() throws IOException;
+    }
+
+    private final TweetSource source;
+
+    private final CompletableFuture<Integer> tweetCount = new CompletableFuture<>();
+    private final CompletableFuture<Timespan> timespan = new CompletableFuture<>();
+    private final CompletableFuture<Set<String>> mentionedUsers = new CompletableFuture<>();
+    private final CompletableFuture<Map<String, Set<String>>> followsGraph = new CompletableFuture<>();
+    private final CompletableFuture<List<String>> influencers;
+
+    /**
+     * Make a pipeline over a source of tweets. Nothing is fetched until start().
+     *
+     * @param source where the tweets come from
+     */
+    public TweetPipeline(TweetSource source) {
+        this.source = source;
+        this.influencers = followsGraph.thenApply(SocialNetwork::influencers);
+    }
+
+    /**
+     * Make a pipeline over the tweets served at a URL, decoded as they arrive.
+     *
+     * @param url URL of server to retrieve tweets from
+     * @return a pipeline that is not yet started
+     */
+    public static TweetPipeline fromWeb(URL url) {
+        return new TweetPipeline(() -> TweetStreamReader.streamTweetsFromWeb(url));
+    }
+
+    /**
+     * Start fetching and analysing the tweets in the background. The results
+     * complete exceptionally if fetching or decoding fails.
+     *
+     * @return this pipeline
+     */
+    public TweetPipeline start() {
+        List<Stage> stages = new ArrayList<>();
+        stages.add(new TimespanStage());
+        stages.add(new MentionStage());
+        stages.add(new GraphStage());
+        ExecutorService threads = Executors.newFixedThreadPool(stages.size() + 1, runnable -> {
+            Thread thread = new Thread(runnable, "tweet-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Stage stage: stages) {
+            threads.execute(stage::run);
+        }
+        threads.execute(() -> decode(stages));
+        threads.shutdown();
+        return this;
+    }
+
+    /*
+     * Decode and deduplicate the tweets, handing batches to every stage. END is
+     * delivered to every stage on every path, so every result completes.
+     */
+    private void decode(List<Stage> stages) {
+        int count = 0;
+        Exception failure = null;
+        try (Stream<Tweet> tweets = source.open()) {
+            TweetDeduplicator deduplicator = new TweetDeduplicator();
+            List<Tweet> batch = new ArrayList<>(BATCH_SIZE);
+            Iterator<Tweet> iterator = tweets.iterator();
+            while (iterator.hasNext()) {
+                Tweet tweet = iterator.next();
+                if (!deduplicator.test(tweet)) {
+                    continue;
+                }
+                batch.add(tweet);
+                count++;
+                if (batch.size() == BATCH_SIZE) {
+                    publish(stages, batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                publish(stages, batch);
+            }
+        } catch (IOException | RuntimeException | InterruptedException e) {
+            failure = e;
+            for (Stage stage: stages) {
+                stage.failure = e;
+            }
+        }
+        // clear the interrupt, if any, so END can still be queued, and restore it afterwards
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                publish(stages, END);
+                break;
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            tweetCount.completeExceptionally(failure);
+        } else {
+            tweetCount.complete(count);
+        }
+    }
+
+    /*
+     * Queue batch for every stage that still runs, waiting while a queue is full.
+     * A stage that has received batch already is not given it again, so this may
+     * be retried after an interrupt.
+     */
+    private static void publish(List<Stage> stages, List<Tweet> batch) throws InterruptedException {
+        for (Stage stage: stages) {
+            while (stage.lastQueued != batch && !stage.stopped) {
+                if (stage.queue.offer(batch, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                    stage.lastQueued = batch;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of distinct tweets fetched
+     */
+    public CompletableFuture<Integer> tweetCount() {
+        return tweetCount;
+    }
+
+    /**
+     * @return time period spanned by the tweets, as Extract.getTimespan
+     */
+    public CompletableFuture<Timespan> timespan() {
+        return timespan;
+    }
+
+    /**
+     * @return usernames mentioned in the tweets, as Extract.getMentionedUsers
+     */
+    public CompletableFuture<Set<String>> mentionedUsers() {
+        return mentionedUsers;
+    }
+
+    /**
+     * @return follows graph guessed from the tweets, as SocialNetwork.guessFollowsGraph
+     */
+    public CompletableFuture<Map<String, Set<String>>> followsGraph() {
+        return followsGraph;
+    }
+
+    /**
+     * @return users of the follows graph in descending order of follower count,
+     *         as SocialNetwork.influencers
+     */
+    public CompletableFuture<List<String>> influencers() {
+        return influencers;
+    }
+
+    /*
+     * A worker that consumes every batch and completes a result at the end. A
+     * stage whose accept throws fails its result at once, but keeps taking and
+     * discarding batches until END, so the decoder and the other stages go on.
+     */
+    private abstract static class Stage {
+        final BlockingQueue<List<Tweet>> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        volatile Exception failure = null; // written by the decoder before END is queued
+        volatile boolean stopped = false; // set when the stage no longer takes batches
+        List<Tweet> lastQueued = null; // only used by the decoder
+
+        abstract void accept(List<Tweet> batch);
+
+        abstract void finish();
+
+        abstract void fail(Throwable cause);
+
+        void run() {
+            boolean failed = false;
+            try {
+                List<Tweet> batch;
+                while ((batch = queue.take()) != END) {
+                    if (failed) {
+                        continue; // drain, so the decoder never waits on this queue
+                    }
+                    try {
+                        accept(batch);
+                    } catch (RuntimeException re) {
+                        failed = true;
+                        fail(re);
+                    }
+                }
+                if (failed) {
+                    return;
+                } else if (failure != null) {
+                    fail(failure);
+                } else {
+                    finish();
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                fail(ie);
+            } catch (RuntimeException re) {
+                fail(re);
+            } finally {
+                stopped = true;
+            }
+        }
+    }
+
+    private class TimespanStage extends Stage {
+        private Instant earliest = Instant.MAX;
+        private Instant latest = Instant.MIN;
+
+        @Override void accept(List<Tweet> batch) {
+            for (Tweet tweet: batch) {
+                Instant timestamp = tweet.getTimestamp();
+                if (timestamp.isBefore(earliest)) {
+                    earliest = timestamp;
+                }
+                if (timestamp.isAfter(latest)) {
+                    latest = timestamp;
+                }
+            }
+        }
+
+        @Override void finish() {
+            boolean empty = earliest.equals(Instant.MAX);
+            timespan.complete(empty ? new Timespan(Instant.EPOCH, Instant.EPOCH) : new Timespan(earliest, latest));
+        }
+
+        @Override void fail(Throwable cause) {
+            timespan.completeExceptionally(cause);
+        }
+    }
+
+    private class MentionStage extends Stage {
+        private final Set<String> mentioned = new HashSet<>();
+
+        @Override void accept(List<Tweet> batch) {
+            mentioned.addAll(Extract.getMentionedUsers(batch));
+        }
+
+        @Override void finish() {
+            mentionedUsers.complete(mentioned);
+        }
+
+        @Override void fail(Throwable cause) {
+            mentionedUsers.completeExceptionally(cause);
+        }
+    }
+
+    private class GraphStage extends Stage {
+        // lowercase author -> lowercase users mentioned by that author so far
+        private final Map<String, Set<String>> mentionsByAuthor = new HashMap<>();
+        // interns the usernames, so each appears in the graph as one String
+        private final UsernameDictionary usernames = new UsernameDictionary();
+        private Set<String> mentions;
+        private final MentionScanner.MentionHandler addMention =
+                (text, start, end) -> mentions.add(usernames.username(usernames.idOf(text, start, end)));
+
+        @Override void accept(List<Tweet> batch) {
+            for (Tweet tweet: batch) {
+                String author = usernames.username(usernames.idOf(tweet.getAuthor()));
+                mentions = mentionsByAuthor.get(author);
+                if (mentions == null) {
+                    mentions = new HashSet<>();
+                    mentionsByAuthor.put(author, mentions);
+                }
+                MentionScanner.scan(tweet.getText(), addMention);
+            }
+        }
+
+        @Override void finish() {
+            for (Map.Entry<String, Set<String>> entry: mentionsByAuthor.entrySet()) {
+                entry.getValue().remove(entry.getKey()); // users can't follow themselves
+            }
+            followsGraph.complete(SocialNetwork.triadicClosure(mentionsByAuthor, 2));
+        }
+
+        @Override void fail(Throwable cause) {
+            followsGraph.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * An immutable condition on tweets, made from the conditions of Filter --
+ * written by a user, sent during a timespan, containing any of some words --
+ * combined with and, or and not.
+ *
+ * For example:
+ *     TweetQuery query = TweetQuery.writtenBy("alyssa")
+ *             .and(TweetQuery.inTimespan(timespan))
+ *             .and(TweetQuery.containing(Arrays.asList("rivest")).not());
+ *     List<Tweet> matches = query.filter(tweets);
+ * finds the tweets of Filter.writtenBy(tweets, "alyssa") that are also in
+ * Filter.inTimespan(tweets, timespan) and not in Filter.containing(tweets, ["rivest"]),
+ * in list order, without making the intermediate lists the nested calls make.
+ *
+ * A query is evaluated in one pass over the tweets. Before the pass, the
+ * operands of each and / or are put in the order that is expected to decide
+ * the result most cheaply, from a fixed cost per condition and the fraction of
+ * tweets each condition holds for, counted on an evenly spaced sample of the
+ * tweets or, where indexes of the tweets are given, read from the indexes.
+ * Conditions that the indexes can answer are answered from them as sets of
+ * positions, and the pass then visits only the tweets those sets leave.
+ */
+public abstract class TweetQuery {
+
+    /* Number of tweets tested to estimate how often a condition holds. */
+    private static final int SAMPLE_SIZE = 64;
+
+    /* Relative costs of testing one tweet for each condition. */
+    private static final double AUTHOR_COST = 1;
+    private static final double TIMESPAN_COST = 1;
+    private static final double WORDS_COST = 10;
+
+    private TweetQuery() {
+    }
+
+    /**
+     * @param username Twitter username, as for Filter.writtenBy
+     * @return the condition that a tweet's author is username, ignoring case
+     */
+    public static TweetQuery writtenBy(String username) {
+        return new WrittenBy(username);
+    }
+
+    /**
+     * @param timespan timespan
+     * @return the condition that a tweet was sent during the timespan, as for Filter.inTimespan
+     */
+    public static TweetQuery inTimespan(Timespan timespan) {
+        return new InTimespan(timespan);
+    }
+
+    /**
+     * @param words words to search for, as for Filter.containing; not modified,
+     *              and copied so later changes to the list don't affect this query
+     * @return the condition that a tweet includes at least one of the words, as for Filter.containing
+     */
+    public static TweetQuery containing(List<String> words) {
+        return new Containing(new ArrayList<String>(words));
+    }
+
+    /**
+     * @param that another query
+     * @return the condition that both this and that hold
+     */
+    public TweetQuery and(TweetQuery that) {
+        List<TweetQuery> operands = new ArrayList<>();
+        addOperands(this, true, operands);
+        addOperands(that, true, operands);
+        return new Junction(true, operands);
+    }
+
+    /**
+     * @param that another query
+     * @return the condition that this or that (or both) hold
+     */
+    public TweetQuery or(TweetQuery that) {
+        List<TweetQuery> operands = new ArrayList<>();
+        addOperands(this, false, operands);
+        addOperands(that, false, operands);
+        return new Junction(false, operands);
+    }
+
+    /**
+     * @return the condition that this does not hold
+     */
+    public TweetQuery not() {
+        return new Not(this);
+    }
+
+    /*
+     * Add the operands of query to operands, flattening nested junctions of the same kind.
+     */
+    private static void addOperands(TweetQuery query, boolean isAnd, List<TweetQuery> operands) {
+        if (query instanceof Junction && ((Junction) query).isAnd == isAnd) {
+            operands.addAll(((Junction) query).operands);
+        } else {
+            operands.add(query);
+        }
+    }
+
+    /**
+     * Find the tweets that satisfy this query.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this method
+     * @return all and only the tweets in the list that satisfy this query, in the
+     *         same order as in the input list; the same as the nested Filter calls
+     *         the query is made of
+     */
+    public List<Tweet> filter(List<Tweet> tweets) {
+        return filter(tweets, null, null, null);
+    }
+
+    /**
+     * Find the tweets that satisfy this query, using indexes of the tweets.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this method
+     * @param authors index of exactly the list of tweets, or null if there is none
+     * @param times index of exactly the list of tweets, or null if there is none
+     * @param words index of exactly the list of tweets, or null if there is none
+     * @return all and only the tweets in the list that satisfy this query, in the
+     *         same order as in the input list, as for filter(tweets)
+     * @throws IllegalArgumentException if an index has a different number of
+     *         tweets than the list
+     */
+    public List<Tweet> filter(List<Tweet> tweets, AuthorIndex authors, TimeIndex times, TweetIndex words) {
+        List<Tweet> list = tweets instanceof RandomAccess ? tweets : new ArrayList<Tweet>(tweets);
+        Statistics stats = new Statistics(list, authors, times, words);
+        List<Tweet> matches = new ArrayList<Tweet>();
+        if (list.isEmpty()) {
+            return matches;
+        }
+        Step plan = plan(stats);
+        if (plan.index != null) {
+            return plan.index.get().tweetsIn(list);
+        }
+        // narrow the candidates by the indexed operands of an and, then test the rest in one pass
+        TweetBitmap candidates = null;
+        List<Predicate<Tweet>> residual = new ArrayList<>();
+        for (Step step: plan.conjuncts()) {
+            if (step.index == null) {
+                residual.add(step.test);
+            } else {
+                candidates = candidates == null ? step.index.get() : candidates.and(step.index.get());
+            }
+        }
+        Predicate<Tweet> test = allOf(residual);
+        if (candidates == null) {
+            for (Tweet tweet: list){
+                if (test.test(tweet)){
+                    matches.add(tweet);
+                }
+            }
+        } else {
+            candidates.forEach(position -> {
+                Tweet tweet = list.get(position);
+                if (test.test(tweet)){
+                    matches.add(tweet);
+                }
+            });
+        }
+        return matches;
+    }
+
+    /**
+     * Find the tweets that satisfy this query, on demand. The operands are
+     * ordered as for filter(tweets), and then tweets are tested only as the
+     * stream asks for them, as for the streams of LazyFilter.
+     *
+     * @param tweets a list of tweets with distinct ids, not modified by this
+     *               method or while the stream is in use
+     * @return the tweets of filter(tweets), in the same order
+     */
+    public Stream<Tweet> stream(List<Tweet> tweets) {
+        if (tweets.isEmpty()) {
+            return Stream.empty();
+        }
+        return LazyFilter.filtered(tweets, plan(new Statistics(tweets, null, null, null)).test);
+    }
+
+    /*
+     * A description of the plan filter would follow on these tweets and indexes
+     * (any of which may be null), with operands in the order they are tested.
+     */
+    String explain(List<Tweet> tweets, AuthorIndex authors, TimeIndex times, TweetIndex words) {
+        return plan(new Statistics(tweets, authors, times, words)).description;
+    }
+
+    /*
+     * Plan the evaluation of this query on the tweets of stats, which are not empty.
+     */
+    abstract Step plan(Statistics stats);
+
+    /* The tweets a query is evaluated on, with what is known about them. */
+    private static final class Statistics {
+        final List<Tweet> tweets;
+        final List<Tweet> sample = new ArrayList<>();
+        final AuthorIndex authors;
+        final TimeIndex times;
+        final TweetIndex words;
+
+        Statistics(List<Tweet> tweets, AuthorIndex authors, TimeIndex times, TweetIndex words) {
+            this.tweets = tweets;
+            this.authors = authors;
+            this.times = times;
+            this.words = words;
+            checkSize(authors == null ? tweets.size() : authors.size());
+            checkSize(times == null ? tweets.size() : times.size());
+            checkSize(words == null ? tweets.size() : words.size());
+            int sampleSize = Math.min(SAMPLE_SIZE, tweets.size());
+            if (tweets instanceof RandomAccess) {
+                for (int i = 0; i < sampleSize; i++) {
+                    sample.add(tweets.get(sampled(i, sampleSize)));
+                }
+            } else {
+                int position = 0;
+                for (Tweet tweet: tweets) {
+                    if (sample.size() < sampleSize && position == sampled(sample.size(), sampleSize)) {
+                        sample.add(tweet);
+                    }
+                    position++;
+                }
+            }
+        }
+
+        /*
+         * Position of the i-th of sampleSize evenly spaced sampled tweets.
+         */
+        private int sampled(int i, int sampleSize) {
+            return (int) ((long) i * tweets.size() / sampleSize);
+        }
+
+        private void checkSize(int indexed) {
+            if (indexed != tweets.size()) {
+                throw new IllegalArgumentException("index has " + indexed + " tweets, list has " + tweets.size());
+            }
+        }
+
+        /*
+         * Fraction of the sample that satisfies test.
+         */
+        double sampled(Predicate<Tweet> test) {
+            int count = 0;
+            for (Tweet tweet: sample) {
+                if (test.test(tweet)) {
+                    count++;
+                }
+            }
+            return (double) count / sample.size();
+        }
+
+        double fraction(int count) {
+            return Math.min(1.0, (double) count / tweets.size());
+        }
+    }
+
+    /*
+     * How a query is evaluated: a test of one tweet, its expected cost, the
+     * estimated fraction of tweets it holds for, and, if the indexes can answer
+     * it, the set of positions it holds for.
+     */
+    private static class Step {
+        final String description;
+        final double cost;
+        final double selectivity;
+        final Predicate<Tweet> test;
+        final Supplier<TweetBitmap> index;
+        /* Rep invariant:
+         *    cost >= 0, 0 <= selectivity <= 1
+         * Abstraction function:
+         *    represents the condition test on a tweet, equivalently membership of its
+         *    position in index.get() if index != null
+         */
+
+        Step(String description, double cost, double selectivity, Predicate<Tweet> test, Supplier<TweetBitmap> index) {
+            this.description = description;
+            this.cost = cost;
+            this.selectivity = selectivity;
+            this.test = test;
+            this.index = index;
+        }
+
+        /*
+         * The steps whose conjunction this step is, in the order they are tested.
+         */
+        List<Step> conjuncts() {
+            return Collections.singletonList(this);
+        }
+    }
+
+    /* A conjunction of steps, with its operands ordered. */
+    private static class AndStep extends Step {
+        final List<Step> operands;
+
+        AndStep(String description, double cost, double selectivity, Predicate<Tweet> test,
+                Supplier<TweetBitmap> index, List<Step> operands) {
+            super(description, cost, selectivity, test, index);
+            this.operands = operands;
+        }
+
+        @Override List<Step> conjuncts() {
+            return operands;
+        }
+    }
+
+    private static Predicate<Tweet> allOf(List<Predicate<Tweet>> tests) {
+        List<Predicate<Tweet>> copy = new ArrayList<>(tests);
+        return tweet -> {
+            for (Predicate<Tweet> test: copy) {
+                if (!test.test(tweet)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static Predicate<Tweet> anyOf(List<Predicate<Tweet>> tests) {
+        List<Predicate<Tweet>> copy = new ArrayList<>(tests);
+        return tweet -> {
+            for (Predicate<Tweet> test: copy) {
+                if (test.test(tweet)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static final class WrittenBy extends TweetQuery {
+        private final String username;
+
+        WrittenBy(String username) {
+            this.username = username;
+        }
+
+        @Override Step plan(Statistics stats) {
+            Predicate<Tweet> test = LazyFilter.isWrittenBy(username);
+            if (stats.authors == null) {
+                return new Step(toString(), AUTHOR_COST, stats.sampled(test), test, null);
+            }
+            AuthorIndex authors = stats.authors;
+            return new Step(toString(), 0, stats.fraction(authors.tweetCount(username)), test,
+                    () -> authors.bitmapWrittenBy(username));
+        }
+
+        @Override public String toString() {
+            return "writtenBy(" + username + ")";
+        }
+    }
+
+    private static final class InTimespan extends TweetQuery {
+        private final Timespan timespan;
+
+        InTimespan(Timespan timespan) {
+            this.timespan = timespan;
+        }
+
+        @Override Step plan(Statistics stats) {
+            Predicate<Tweet> test = LazyFilter.isInTimespan(timespan);
+            if (stats.times == null) {
+                return new Step(toString(), TIMESPAN_COST, stats.sampled(test), test, null);
+            }
+            int[] positions = stats.times.positionsIn(timespan);
+            return new Step(toString(), 0, stats.fraction(positions.length), test,
+                    () -> TweetBitmap.fromSorted(positions, positions.length));
+        }
+
+        @Override public String toString() {
+            return "inTimespan(" + timespan.getStart() + ", " + timespan.getEnd() + ")";
+        }
+    }
+
+    private static final class Containing extends TweetQuery {
+        private final List<String> words;
+
+        Containing(List<String> words) {
+            this.words = words;
+        }
+
+        @Override Step plan(Statistics stats) {
+            Predicate<Tweet> test = LazyFilter.isContaining(words);
+            if (stats.words == null) {
+                return new Step(toString(), WORDS_COST, stats.sampled(test), test, null);
+            }
+            TweetIndex index = stats.words;
+            int frequencies = 0;
+            for (String word: words) {
+                frequencies += index.frequency(word); // an upper bound on the tweets with any of them
+            }
+            return new Step(toString(), 0, stats.fraction(frequencies), test,
+                    () -> TweetBitmap.containing(index, words));
+        }
+
+        @Override public String toString() {
+            return "containing" + words;
+        }
+    }
+
+    private static final class Not extends TweetQuery {
+        private final TweetQuery operand;
+
+        Not(TweetQuery operand) {
+            this.operand = operand;
+        }
+
+        @Override public TweetQuery not() {
+            return operand;
+        }
+
+        @Override Step plan(Statistics stats) {
+            Step step = operand.plan(stats);
+            Predicate<Tweet> test = step.test.negate();
+            Supplier<TweetBitmap> index = null;
+            if (step.index != null) {
+                int size = stats.tweets.size();
+                index = () -> TweetBitmap.range(0, size).andNot(step.index.get());
+            }
+            return new Step("not " + step.description, step.cost, 1 - step.selectivity, test, index);
+        }
+
+        @Override public String toString() {
+            return "not " + operand;
+        }
+    }
+
+    private static final class Junction extends TweetQuery {
+        private final boolean isAnd;
+        private final List<TweetQuery> operands;
+        /* Rep invariant:
+         *    operands.size() >= 2, and no operand is a Junction with the same isAnd
+         * Abstraction function:
+         *    represents the conjunction of operands if isAnd, else their disjunction
+         */
+
+        Junction(boolean isAnd, List<TweetQuery> operands) {
+            this.isAnd = isAnd;
+            this.operands = operands;
+        }
+
+        @Override Step plan(Statistics stats) {
+            List<Step> steps = new ArrayList<>();
+            for (TweetQuery operand: operands) {
+                steps.add(operand.plan(stats));
+            }
+            // test first the operands with the least cost per tweet they decide:
+            // for and, the tweets they reject; for or, the tweets they accept
+            steps.sort(Comparator.comparingDouble(step -> {
+                double decided = isAnd ? 1 - step.selectivity : step.selectivity;
+                return decided > 0 ? step.cost / decided : Double.POSITIVE_INFINITY;
+            }));
+            double cost = 0;
+            double reached = 1; // fraction of tweets still undecided before each step
+            boolean indexed = true;
+            List<Predicate<Tweet>> tests = new ArrayList<>();
+            List<String> descriptions = new ArrayList<>();
+            for (Step step: steps) {
+                cost += reached * step.cost;
+                reached *= isAnd ? step.selectivity : 1 - step.selectivity;
+                indexed &= step.index != null;
+                tests.add(step.test);
+                descriptions.add(step.description);
+            }
+            String description = "(" + String.join(isAnd ? " and " : " or ", descriptions) + ")";
+            double selectivity = isAnd ? reached : 1 - reached;
+            Supplier<TweetBitmap> index = indexed ? () -> combine(steps) : null;
+            if (isAnd) {
+                return new AndStep(description, cost, selectivity, allOf(tests), index, steps);
+            }
+            return new Step(description, cost, selectivity, anyOf(tests), index);
+        }
+
+        private TweetBitmap combine(List<Step> steps) {
+            TweetBitmap combined = steps.get(0).index.get();
+            for (Step step: steps.subList(1, steps.size())) {
+                combined = isAnd ? combined.and(step.index.get()) : combined.or(step.index.get());
+            }
+            return combined;
+        }
+
+        @Override public String toString() {
+            List<String> descriptions = new ArrayList<>();
+            for (TweetQuery operand: operands) {
+                descriptions.add(operand.toString());
+            }
+            return "(" + String.join(isAnd ? " and " : " or ", descriptions) + ")";
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package twitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A mutable, append-only collection of tweets stored column by column instead
+ * of as Tweet objects: ids and timestamps in long arrays, authors as codes into
+ * a dictionary of distinct usernames, and texts as UTF-8 bytes packed into
+ * large shared pages. Tweets are identified by their ordinal, the position at
+ * which they were added.
+ *
+ * Tweet objects are only made on demand, by get() or the asList() view.
+ * Timestamps are kept to the millisecond, so a tweet read back from the store
+ * has its timestamp truncated to whole milliseconds (Twitter timestamps are
+ * whole seconds, so this loses nothing for real tweets).
+ *
+ * Not safe for use by several threads at once while tweets are being added.
+ */
+public class TweetStore {
+
+    private static final int MIN_CAPACITY = 16;
+    /* Size of each text page; a text longer than this gets a page of its own. */
+    static final int PAGE_SIZE = 1 << 24;
+
+    private int size = 0;
+    private long[] ids = new long[MIN_CAPACITY];
+    private long[] timestamps = new long[MIN_CAPACITY];
+    private int[] authorCodes = new int[MIN_CAPACITY];
+    private long[] textAddresses = new long[MIN_CAPACITY];
+    private int[] textLengths = new int[MIN_CAPACITY];
+
+    private final List<String> authors = new ArrayList<>();
+    private final Map<String, Integer> codesByAuthor = new HashMap<>();
+
+    private final List<byte[]> pages = new ArrayList<>();
+    private int pageUsed = PAGE_SIZE;
+    /* Rep invariant:
+     *    ids, timestamps, authorCodes, textAddresses and textLengths all have the same length >= size
+     *    0 <= authorCodes[i] < authors.size() for 0 <= i < size
+     *    codesByAuthor.get(authors.get(c)) == c for every code c
+     *    for 0 <= i < size, with page = textAddresses[i] >>> 32 and offset = (int) textAddresses[i]:
+     *        page < pages.size() and offset + textLengths[i] <= pages.get(page).length
+     *    pageUsed is the number of bytes used in the last page of pages, or PAGE_SIZE if it is full
+     * Abstraction function:
+     *    represents the sequence of tweets t_0 .. t_(size-1) where t_i has id ids[i],
+     *    author authors.get(authorCodes[i]), text the UTF-8 decoding of
+     *    pages.get(page)[offset .. offset + textLengths[i]), and timestamp timestamps[i]
+     *    milliseconds after the epoch
+     */
+
+    /**
+     * Make an empty store.
+     */
+    public TweetStore() {
+    }
+
+    /**
+     * Make a store holding a list of tweets.
+     *
+     * @param tweets tweets to add, in order; not modified by this method
+     */
+    public TweetStore(List<Tweet> tweets) {
+        addAll(tweets);
+    }
+
+    /**
+     * Add a tweet to the end of the store.
+     *
+     * @param tweet tweet to add
+     * @return the ordinal of the added tweet
+     */
+    public int add(Tweet tweet) {
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = tweet.getId();
+        timestamps[size] = tweet.getTimestamp().toEpochMilli();
+        authorCodes[size] = codeOf(tweet.getAuthor());
+        byte[] text = tweet.getText().getBytes(StandardCharsets.UTF_8);
+        textAddresses[size] = appendText(text);
+        textLengths[size] = text.length;
+        return size++;
+    }
+
+    /**
+     * Add tweets to the end of the store.
+     *
+     * @param tweets tweets to add, in order; not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet: tweets) {
+            add(tweet);
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        authorCodes = Arrays.copyOf(authorCodes, capacity);
+        textAddresses = Arrays.copyOf(textAddresses, capacity);
+        textLengths = Arrays.copyOf(textLengths, capacity);
+    }
+
+    private int codeOf(String author) {
+        Integer code = codesByAuthor.get(author);
+        if (code == null) {
+            code = authors.size();
+            authors.add(author);
+            codesByAuthor.put(author, code);
+        }
+        return code;
+    }
+
+    /*
+     * Copy text bytes into the pages.
+     *
+     * @return the address (page << 32 | offset) of the copy
+     */
+    private long appendText(byte[] text) {
+        if (text.length > PAGE_SIZE) {// oversized text gets a page to itself, which is then full
+            pages.add(text);
+            pageUsed = PAGE_SIZE;
+            return (long) (pages.size() - 1) << 32;
+        }
+        if (pageUsed + text.length > PAGE_SIZE) {
+            pages.add(new byte[PAGE_SIZE]);
+            pageUsed = 0;
+        }
+        int page = pages.size() - 1;
+        System.arraycopy(text, 0, pages.get(page), pageUsed, text.length);
+        long address = ((long) page << 32) | pageUsed;
+        pageUsed += text.length;
+        return address;
+    }
+
+    /**
+     * @return number of tweets in the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param ordinal requires 0 <= ordinal < size()
+     * @return id of the tweet at ordinal
+     */
+    public long getId(int ordinal) {
+        checkOrdinal(ordinal);
+        return ids[ordinal];
+    }
+
+    /**
+     * @param ordinal requires 0 <= ordinal < size()
+     * @return timestamp of the tweet at ordinal, in milliseconds from the epoch
+     */
+    public long getTimestampMillis(int ordinal) {
+        checkOrdinal(ordinal);
+        return timestamps[ordinal];
+    }
+
+    /**
+     * @param ordinal requires 0 <= ordinal < size()
+     * @return dictionary code of the author of the tweet at ordinal
+     */
+    public int getAuthorCode(int ordinal) {
+        checkOrdinal(ordinal);
+        return authorCodes[ordinal];
+    }
+
+    /**
+     * @param ordinal requires 0 <= ordinal < size()
+     * @return author of the tweet at ordinal
+     */
+    public String getAuthor(int ordinal) {
+        return authors.get(getAuthorCode(ordinal));
+    }
+
+    /**
+     * @param ordinal requires 0 <= ordinal < size()
+     * @return text of the tweet at ordinal
+     */
+    public String getText(int ordinal) {
+        checkOrdinal(ordinal);
+        long address = textAddresses[ordinal];
+        return new String(pages.get((int) (address >>> 32)), (int) address, textLengths[ordinal], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param ordinal requires 0 <= ordinal < size()
+     * @return a Tweet with the same id, author, text and (millisecond) timestamp
+     *         as the tweet at ordinal
+     */
+    public Tweet get(int ordinal) {
+        return new Tweet(getId(ordinal), getAuthor(ordinal), getText(ordinal), Instant.ofEpochMilli(getTimestampMillis(ordinal)));
+    }
+
+    /**
+     * @return number of distinct authors in the store (case-sensitive); author
+     *         codes are 0 .. authorCount() - 1
+     */
+    public int authorCount() {
+        return authors.size();
+    }
+
+    /**
+     * @param code requires 0 <= code < authorCount()
+     * @return the author with the given dictionary code
+     */
+    public String authorOf(int code) {
+        return authors.get(code);
+    }
+
+    /**
+     * @return a read-only list view of the store, making Tweets on demand.
+     *         The view reflects tweets added later.
+     */
+    public List<Tweet> asList() {
+        return new TweetListView();
+    }
+
+    /**
+     * @param ordinals ordinals of tweets in the store, each 0 <= ordinal < size()
+     * @param count number of ordinals to use, from the start of the array
+     * @return the tweets at the given ordinals, in the same order
+     */
+    public List<Tweet> tweetsAt(int[] ordinals, int count) {
+        List<Tweet> tweets = new ArrayList<Tweet>(count);
+        for (int i = 0; i < count; i++) {
+            tweets.add(get(ordinals[i]));
+        }
+        return tweets;
+    }
+
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("ordinal " + ordinal + " out of range for size " + size);
+        }
+    }
+
+    /*
+     * @return the greatest epoch millisecond not after instant, saturating at the range of long
+     */
+    static long floorMillis(Instant instant) {
+        try {
+            return instant.toEpochMilli();
+        } catch (ArithmeticException ae) {
+            return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /*
+     * @return the least epoch millisecond not before instant, saturating at the range of long
+     */
+    static long ceilMillis(Instant instant) {
+        long floor = floorMillis(instant);
+        boolean exact = instant.getNano() % 1_000_000 == 0;
+        return exact || floor == Long.MAX_VALUE ? floor : floor + 1;
+    }
+
+    private class TweetListView extends AbstractList<Tweet> implements RandomAccess {
+        @Override public Tweet get(int index) {
+            return TweetStore.this.get(index);
+        }
+
+        @Override public int size() {
+            return size;
+        }
+    }
+}
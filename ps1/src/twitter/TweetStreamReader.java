@@ -0,0 +1,256 @@
+package twitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+/**
+ * TweetStreamReader reads tweets one at a time from a JSON array in the same
+ * format as TweetReader, using a pull parser instead of building the whole
+ * JSON tree in memory.
+ *
+ * Only the fields a Tweet needs ("id", "user.screen_name", "text" and
+ * "created_at") are decoded; every other field is skipped without being
+ * materialized. The screen name may be given either as the flattened key
+ * "user.screen_name" or as "screen_name" inside a nested "user" object.
+ * At most one tweet is held by the reader at any time.
+ */
+public class TweetStreamReader implements Iterator<Tweet>, Closeable {
+
+    private final JsonParser parser;
+    private Tweet nextTweet = null;
+    private boolean finished = false;
+    /* Rep invariant:
+     *    if finished, then nextTweet == null
+     *    parser is positioned just after the last tweet object handed out (or nextTweet)
+     */
+
+    /**
+     * Make a reader over a stream of characters holding a JSON array of tweets.
+     *
+     * @param reader source of the JSON array; closed when this reader is closed
+     * @throws JsonException if the input does not start with a JSON array
+     */
+    public TweetStreamReader(Reader reader) {
+        this(Json.createParser(reader));
+    }
+
+    /**
+     * Make a reader over a stream of bytes holding a JSON array of tweets.
+     * The character encoding (UTF-8, UTF-16 or UTF-32) is detected from the bytes.
+     *
+     * @param in source of the JSON array; closed when this reader is closed
+     * @throws JsonException if the input does not start with a JSON array
+     */
+    public TweetStreamReader(InputStream in) {
+        this(Json.createParser(in));
+    }
+
+    private TweetStreamReader(JsonParser parser) {
+        this.parser = parser;
+        if (!parser.hasNext() || parser.next() != Event.START_ARRAY) {
+            throw new JsonException("expected a JSON array of tweets");
+        }
+    }
+
+    /**
+     * Get a lazily-evaluated stream of tweets from a web server.
+     *
+     * @param url URL of server to retrieve tweets from
+     * @return the tweets served by url, in the order they were sent, decoded
+     *         as UTF-8, UTF-16 or UTF-32 as detected from the bytes. The
+     *         connection is released when the stream is closed.
+     * @throws IOException if the url is invalid, the server is unreachable,
+     *                     or some other network-related error occurs.
+     */
+    public static Stream<Tweet> streamTweetsFromWeb(URL url) throws IOException {
+        return asStream(new TweetStreamReader(url.openStream()));
+    }
+
+    /**
+     * Get a lazily-evaluated stream of tweets from a JSON array.
+     *
+     * @param reader source of the JSON array, closed when the stream is closed
+     * @return the tweets in the array, in order
+     * @throws JsonException if the input does not start with a JSON array
+     */
+    public static Stream<Tweet> streamTweets(Reader reader) {
+        return asStream(new TweetStreamReader(reader));
+    }
+
+    /*
+     * Wrap a reader as an ordered sequential stream that closes the reader when closed.
+     */
+    static Stream<Tweet> asStream(TweetStreamReader tweetReader) {
+        Spliterator<Tweet> spliterator = Spliterators.spliteratorUnknownSize(tweetReader, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(tweetReader::close);
+    }
+
+    /**
+     * @return true if there is another tweet in the array
+     * @throws JsonException if the input is not a well-formed array of tweets
+     */
+    @Override public boolean hasNext() {
+        if (nextTweet == null && !finished) {
+            Event event = parser.next();
+            switch (event) {
+            case START_OBJECT:
+                nextTweet = readTweetObject(parser);
+                break;
+            case END_ARRAY:
+                finished = true;
+                break;
+            default:
+                throw new JsonException("expected a tweet object but found " + event);
+            }
+        }
+        return nextTweet != null;
+    }
+
+    /**
+     * @return the next tweet in the array
+     * @throws NoSuchElementException if there are no more tweets
+     * @throws JsonException if the input is not a well-formed array of tweets
+     */
+    @Override public Tweet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Tweet tweet = nextTweet;
+        nextTweet = null;
+        return tweet;
+    }
+
+    /**
+     * Release the underlying parser and its input.
+     */
+    @Override public void close() {
+        parser.close();
+    }
+
+    /*
+     * Read a single tweet object whose START_OBJECT event has already been consumed,
+     * leaving the parser just after its END_OBJECT event.
+     *
+     * @return the tweet described by the object
+     * @throws JsonException if a required field is missing
+     */
+    static Tweet readTweetObject(JsonParser parser) {
+        String id = null;
+        String screenName = null;
+        String text = null;
+        String createdAt = null;
+        Event event;
+        while ((event = parser.next()) != Event.END_OBJECT) {
+            if (event != Event.KEY_NAME) {
+                throw new JsonException("expected a field name but found " + event);
+            }
+            String key = parser.getString();
+            Event value = parser.next();
+            switch (key) {
+            case "id":
+                id = scalarValue(parser, value, key);
+                break;
+            case "user.screen_name":
+                screenName = scalarValue(parser, value, key);
+                break;
+            case "text":
+                text = scalarValue(parser, value, key);
+                break;
+            case "created_at":
+                createdAt = scalarValue(parser, value, key);
+                break;
+            case "user":
+                if (value == Event.START_OBJECT) {// nested form of user.screen_name
+                    String nestedName = readScreenName(parser);
+                    if (nestedName != null) {
+                        screenName = nestedName;
+                    }
+                } else {
+                    skipValue(parser, value);
+                }
+                break;
+            default:
+                skipValue(parser, value);
+            }
+        }
+        requireField(id, "id");
+        requireField(screenName, "user.screen_name");
+        requireField(text, "text");
+        requireField(createdAt, "created_at");
+        return new Tweet(Long.parseLong(id), screenName, text, CreatedAtDecoder.parse(createdAt));
+    }
+
+    /*
+     * Read the rest of a nested "user" object.
+     *
+     * @return the value of its "screen_name" field, or null if it has none
+     */
+    private static String readScreenName(JsonParser parser) {
+        String screenName = null;
+        while (parser.next() != Event.END_OBJECT) {// inside an object every other event is a KEY_NAME
+            String key = parser.getString();
+            Event value = parser.next();
+            if (key.equals("screen_name")) {
+                screenName = scalarValue(parser, value, key);
+            } else {
+                skipValue(parser, value);
+            }
+        }
+        return screenName;
+    }
+
+    /*
+     * @return the textual form of a string or number value, as TweetReader would store it
+     */
+    private static String scalarValue(JsonParser parser, Event value, String key) {
+        if (value != Event.VALUE_STRING && value != Event.VALUE_NUMBER) {
+            throw new JsonException("expected a string or number for " + key + " but found " + value);
+        }
+        return parser.getString();
+    }
+
+    /*
+     * Skip over a value whose first event has already been consumed, including
+     * any nested objects and arrays.
+     */
+    private static void skipValue(JsonParser parser, Event value) {
+        if (value != Event.START_OBJECT && value != Event.START_ARRAY) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            switch (parser.next()) {
+            case START_OBJECT:
+            case START_ARRAY:
+                depth++;
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                depth--;
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private static void requireField(String value, String key) {
+        if (value == null) {
+            throw new JsonException("tweet is missing field " + key);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package twitter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonGenerator;
+
+/**
+ * TweetWriter writes tweets in the JSON format read by TweetReader: an array
+ * of objects with the fields "id", "user.screen_name", "text" and
+ * "created_at", with timestamps in UTC and truncated to whole seconds.
+ */
+public class TweetWriter {
+
+    /**
+     * Write tweets as a JSON array.
+     *
+     * @param tweets tweets to write, in order; not modified by this method
+     * @param writer destination, flushed but not closed by this method
+     */
+    public static void writeTweets(List<Tweet> tweets, Writer writer) {
+        JsonGenerator generator = Json.createGenerator(new UnclosableWriter(writer));
+        generator.writeStartArray();
+        for (Tweet tweet: tweets) {
+            writeTweetObject(generator, tweet);
+        }
+        generator.writeEnd();
+        generator.close();
+    }
+
+    /**
+     * Write tweets as newline-delimited JSON, one tweet object per line, as
+     * read by LineDelimitedTweetReader.
+     *
+     * @param tweets tweets to write, in order; not modified by this method
+     * @param writer destination, flushed but not closed by this method
+     */
+    public static void writeTweetsLineDelimited(List<Tweet> tweets, Writer writer) {
+        UnclosableWriter destination = new UnclosableWriter(writer);
+        for (Tweet tweet: tweets) {
+            JsonGenerator generator = Json.createGenerator(destination);
+            writeTweetObject(generator, tweet);
+            generator.close();
+            destination.writeNewline();
+        }
+    }
+
+    private static void writeTweetObject(JsonGenerator generator, Tweet tweet) {
+        generator.writeStartObject()
+                 .write("id", tweet.getId())
+                 .write("user.screen_name", tweet.getAuthor())
+                 .write("text", tweet.getText())
+                 .write("created_at", CreatedAtDecoder.FORMAT.format(tweet.getTimestamp().atOffset(ZoneOffset.UTC)))
+                 .writeEnd();
+    }
+
+    /*
+     * Writer that passes everything through except close(), which only flushes,
+     * so that closing a JsonGenerator leaves the caller's writer open.
+     */
+    private static class UnclosableWriter extends Writer {
+        private final Writer writer;
+
+        UnclosableWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        void writeNewline() {
+            try {
+                writer.write('\n');
+            } catch (IOException ioe) {
+                throw new JsonException("I/O error while writing tweets", ioe);
+            }
+        }
+
+        @Override public void write(char[] chars, int offset, int length) throws IOException {
+            writer.write(chars, offset, length);
+        }
+
+        @Override public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package twitter;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.RandomAccess;
+
+/**
+ * UsernameDictionary assigns dense int ids 0, 1, 2, ... to Twitter usernames,
+ * which are case-insensitive, so every case variant of a username gets the
+ * same id and the same lowercase String.
+ *
+ * Usernames can be looked up directly from a span of a larger text, such as a
+ * mention found by MentionScanner, folding case on the fly; a String is only
+ * made the first time a username is seen.
+ */
+public class UsernameDictionary {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final char[] ASCII_LOWER = new char[128];
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_LOWER[c] = (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    private String[] usernames = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size = 0;
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    /* Rep invariant:
+     *    0 <= size <= usernames.length == hashes.length
+     *    usernames[0..size) are distinct, and each is its own toLowerCase(Locale.ROOT)
+     *    hashes[id] == usernames[id].hashCode() for id < size
+     *    slots.length is a power of two greater than size / 0.5
+     *    slots holds id + 1 for each id < size, at or after (by linear probing)
+     *    the slot its hash maps to, and 0 elsewhere
+     * Abstraction function:
+     *    represents the map from usernames[id], and all its case variants, to id
+     */
+
+    /**
+     * @return number of distinct usernames in this dictionary
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the id of a username, adding it if it is new.
+     *
+     * @param username a Twitter username, in any case
+     * @return id of the username, in [0, size())
+     */
+    public int idOf(String username) {
+        return idOf(username, 0, username.length());
+    }
+
+    /**
+     * Get the id of the username text[start..end), adding it if it is new.
+     *
+     * @param text text holding the username
+     * @param start index of the first char of the username
+     * @param end index after the last char of the username, requires start <= end
+     * @return id of the username, in [0, size())
+     */
+    public int idOf(CharSequence text, int start, int end) {
+        int id = lookup(text, start, end, true);
+        assert id >= 0;
+        return id;
+    }
+
+    /**
+     * Find the id of the username text[start..end) without adding it.
+     *
+     * @param text text holding the username
+     * @param start index of the first char of the username
+     * @param end index after the last char of the username, requires start <= end
+     * @return id of the username, or -1 if it is not in this dictionary
+     */
+    public int find(CharSequence text, int start, int end) {
+        return lookup(text, start, end, false);
+    }
+
+    /**
+     * Find the id of a username without adding it.
+     *
+     * @param username a Twitter username, in any case
+     * @return id of the username, or -1 if it is not in this dictionary
+     */
+    public int find(String username) {
+        return find(username, 0, username.length());
+    }
+
+    /**
+     * @param id requires 0 <= id < size()
+     * @return the username with that id, in lowercase
+     */
+    public String username(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("no username with id " + id);
+        }
+        return usernames[id];
+    }
+
+    /**
+     * @return unmodifiable view of the usernames in this dictionary, in lowercase,
+     *         in order of id; reflects usernames added later
+     */
+    public List<String> usernames() {
+        return new UsernameList();
+    }
+
+    private class UsernameList extends AbstractList<String> implements RandomAccess {
+        @Override public String get(int id) {
+            return username(id);
+        }
+
+        @Override public int size() {
+            return size;
+        }
+    }
+
+    /*
+     * Find text[start..end) case-insensitively, adding it if add is set.
+     * Returns its id, or -1 if it is absent and not added.
+     */
+    private int lookup(CharSequence text, int start, int end, boolean add) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 128) {// outside ASCII, fold with the full Unicode rules
+                return lookupFolded(text.subSequence(start, end).toString().toLowerCase(Locale.ROOT), add);
+            }
+            hash = 31 * hash + ASCII_LOWER[c];
+        }
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                if (!add) {
+                    return -1;
+                }
+                StringBuilder username = new StringBuilder(end - start);
+                for (int i = start; i < end; i++) {
+                    username.append(ASCII_LOWER[text.charAt(i)]);
+                }
+                return insert(username.toString(), hash, slot);
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && equalsFolded(usernames[id], text, start, end)) {
+                return id;
+            }
+        }
+    }
+
+    /*
+     * Find an already-lowercase username, adding it if add is set.
+     */
+    private int lookupFolded(String username, boolean add) {
+        int hash = username.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return add ? insert(username, hash, slot) : -1;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && usernames[id].equals(username)) {
+                return id;
+            }
+        }
+    }
+
+    private static boolean equalsFolded(String username, CharSequence text, int start, int end) {
+        if (username.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (username.charAt(i - start) != ASCII_LOWER[text.charAt(i)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int insert(String username, int hash, int slot) {
+        if (size == usernames.length) {
+            usernames = Arrays.copyOf(usernames, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        usernames[id] = username;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        int[] newSlots = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = id + 1;
+        }
+        slots = newSlots;
+    }
+
+    /*
+     * Spread the bits of a String hash code over the low bits used for slots.
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,92 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AuthorIndexTest {
+
+    /* Testing strategy for AuthorIndex
+     * Input space: username = present, absent, in a different case
+     *      tweets by one author = none, one, many out of time order
+     *      timespan = none, covering some of an author's tweets
+     *      latest count = 0, less than, more than the author's tweets
+     *      appended batch = new authors, existing authors
+     * Output space: same tweets as Filter.writtenBy (and Filter.inTimespan), in list order;
+     *      latest tweets in descending time order
+     * Testing strategy: partition testing, plus differential testing against Filter
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: case-insensitive lookup, absent author, latest tweets
+    @Test
+    public void testSmall() {
+        Tweet t1 = new Tweet(1, "Alyssa", "a", D1.plusSeconds(30));
+        Tweet t2 = new Tweet(2, "bob", "b", D1);
+        Tweet t3 = new Tweet(3, "alyssa", "c", D1.plusSeconds(10));
+        AuthorIndex index = new AuthorIndex(Arrays.asList(t1, t2, t3));
+        TweetStreamReaderTest.assertSameTweets(Arrays.asList(t1, t3), index.writtenBy("ALYSSA"));
+        assertEquals("expected no tweets", 0, index.writtenBy("krotus").size());
+        assertEquals("expected count", 2, index.tweetCount("alyssa"));
+        TweetStreamReaderTest.assertSameTweets(Arrays.asList(t1, t3), index.latest("alyssa", 5));
+        TweetStreamReaderTest.assertSameTweets(Arrays.asList(t1), index.latest("alyssa", 1));
+        assertEquals("expected none", 0, index.latest("alyssa", 0).size());
+        assertEquals("expected authors", Arrays.asList("alyssa", "bob"), index.authors());
+        TweetStreamReaderTest.assertSameTweets(Arrays.asList(t3),
+                index.writtenBy("alyssa", new Timespan(D1, D1.plusSeconds(20))));
+    }
+
+    //Test: random tweets with appended batches agree with Filter
+    @Test
+    public void testRandomAgainstFilter() {
+        Random random = new Random(8);
+        List<Tweet> all = randomTweets(random, 0, 1500);
+        AuthorIndex index = new AuthorIndex(all);
+        assertAgrees(random, all, index);
+        List<Tweet> newer = randomTweets(random, 1500, 800);
+        index.addAll(newer);
+        all.addAll(newer);
+        index.addAll(Collections.<Tweet>emptyList());
+        assertAgrees(random, all, index);
+        assertEquals("expected size", all.size(), index.size());
+    }
+
+    private static void assertAgrees(Random random, List<Tweet> all, AuthorIndex index) {
+        for (int user = 0; user < 40; user++) {
+            String username = (random.nextBoolean() ? "USER" : "user") + user;
+            List<Tweet> expected = Filter.writtenBy(all, username);
+            TweetStreamReaderTest.assertSameTweets(expected, index.writtenBy(username));
+            assertEquals("expected bitmap size", expected.size(), index.bitmapWrittenBy(username).cardinality());
+            Instant start = D1.plusSeconds(random.nextInt(3000));
+            Timespan span = new Timespan(start, start.plusSeconds(random.nextInt(2000)));
+            TweetStreamReaderTest.assertSameTweets(Filter.inTimespan(expected, span), index.writtenBy(username, span));
+            List<Tweet> latest = index.latest(username, 5);
+            assertEquals("expected latest count", Math.min(5, expected.size()), latest.size());
+            for (int i = 1; i < latest.size(); i++) {
+                assertFalse("expected descending time", latest.get(i).getTimestamp().isAfter(latest.get(i - 1).getTimestamp()));
+            }
+        }
+    }
+
+    private static List<Tweet> randomTweets(Random random, int firstId, int count) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String author = (random.nextBoolean() ? "User" : "uSER") + random.nextInt(35);
+            tweets.add(new Tweet(firstId + i, author, "text", D1.plusSeconds(random.nextInt(5000))));
+        }
+        return tweets;
+    }
+}
@@ -0,0 +1,109 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CreatedAtDecoderTest {
+
+    /* Testing strategy for CreatedAtDecoder.parseEpochSecond
+     * Input space: well-formed timestamps: offset = 0, positive, negative;
+     *          leap day, year boundaries, dates before 1970, far-future years
+     *      not decodable by the fixed layout: wrong day name for the date, day past end of month,
+     *          offset out of range, wrong length, unknown month, non-digit fields
+     * Output space: same epoch second as ZonedDateTime.parse with the general formatter,
+     *      or DateTimeParseException whenever the general formatter throws one
+     * Testing strategy: differential testing against the general formatter, over
+     *      handpicked partitions plus randomly generated timestamps
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: typical timestamp in UTC
+    @Test
+    public void testUtc() {
+        assertEquals("expected instant", Instant.parse("2016-02-17T10:00:00Z"), CreatedAtDecoder.parse("Wed Feb 17 10:00:00 +0000 2016"));
+    }
+
+    //Test: handpicked well-formed timestamps agree with the general formatter
+    @Test
+    public void testHandpickedAgreeWithFormatter() {
+        String[] timestamps = {
+            "Wed Feb 17 11:30:15 -0500 2016",
+            "Mon Feb 29 23:59:59 +1400 2016",
+            "Thu Jan 01 00:00:00 +0000 1970",
+            "Wed Dec 31 23:59:59 +0000 1969",
+            "Fri Dec 31 23:59:59 -1800 9999",
+            "Sat Jan 01 00:00:00 +1800 0001",
+            "Tue Mar 01 12:00:00 +0530 1900",
+        };
+        for (String timestamp: timestamps) {
+            assertAgrees(timestamp);
+        }
+    }
+
+    //Test: randomly generated timestamps agree with the general formatter
+    @Test
+    public void testRandomAgreeWithFormatter() {
+        Random random = new Random(6005);
+        for (int i = 0; i < 20000; i++) {
+            long epochSecond = random.nextLong() % 100_000_000_000L;
+            ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(36 * 4 + 1) - 18 * 4) * 15 * 60);
+            ZonedDateTime dateTime = Instant.ofEpochSecond(epochSecond).atZone(offset);
+            if (dateTime.getYear() < 1 || dateTime.getYear() > 9999) {
+                continue;
+            }
+            assertAgrees(CreatedAtDecoder.FORMAT.format(dateTime));
+        }
+    }
+
+    //Test: inputs outside the fixed layout either agree with or fail like the general formatter
+    @Test
+    public void testMalformedFallBackToFormatter() {
+        String[] timestamps = {
+            "Thu Feb 17 10:00:00 +0000 2016", // wrong day name
+            "Tue Feb 30 10:00:00 +0000 2016", // past end of month
+            "Wed Feb 17 10:00:00 +1900 2016", // offset out of range
+            "Wed Feb 17 10:00:00 +0060 2016", // offset minutes out of range
+            "Wed Feb 17 24:00:00 +0000 2016", // hour out of range
+            "Wed Fbr 17 10:00:00 +0000 2016", // unknown month
+            "wed Feb 17 10:00:00 +0000 2016", // day name in wrong case
+            "Wed Feb 17 1O:00:00 +0000 2016", // letter instead of digit
+            "Wed Feb 17 10:00:00 +0000 201", // too short
+            "Wed Feb 17 10:00:00 +0000 20160", // five-digit year
+            "",
+        };
+        for (String timestamp: timestamps) {
+            assertAgrees(timestamp);
+        }
+    }
+
+    /*
+     * Assert that the decoder and the general formatter give the same epoch
+     * second for timestamp, or both throw DateTimeParseException.
+     */
+    private static void assertAgrees(String timestamp) {
+        Long expected;
+        try {
+            expected = ZonedDateTime.parse(timestamp, CreatedAtDecoder.FORMAT).toEpochSecond();
+        } catch (DateTimeParseException dtpe) {
+            expected = null;
+        }
+        Long actual;
+        try {
+            actual = CreatedAtDecoder.parseEpochSecond(timestamp);
+        } catch (DateTimeParseException dtpe) {
+            actual = null;
+        }
+        assertEquals("expected same result as formatter for \"" + timestamp + "\"", expected, actual);
+    }
+}
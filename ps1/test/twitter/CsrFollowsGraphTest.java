@@ -0,0 +1,147 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CsrFollowsGraphTest {
+
+    /* Testing strategy for CsrFollowsGraph
+     * Input space: graph = empty, users that are not keys, keys following nobody,
+     *      keys differing only in case, users followed but not keys
+     *      source = int[][] form, Map form, tweets (mentions in varying case, self-mentions)
+     * Output space: the same graph back through toIds and toMap; degrees, follows
+     *      and neighbor/edge iteration agreeing with the int[][] form; influencers
+     *      the same as IdSocialNetwork.influencers
+     * Testing strategy: partition testing, plus differential testing against
+     *      IdSocialNetwork over random graphs and tweets
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: no users
+    @Test
+    public void testEmpty() {
+        CsrFollowsGraph graph = CsrFollowsGraph.fromIds(new int[0][]);
+        assertEquals("expected no users", 0, graph.userCount());
+        assertEquals("expected no edges", 0, graph.edgeCount());
+        assertEquals("expected no influencers", 0, graph.influencers().length);
+        assertEquals("expected empty map", Collections.emptyMap(), graph.toMap(new UsernameDictionary()));
+    }
+
+    //Test: keys, non-keys, keys following nobody, degrees and iteration
+    @Test
+    public void testSmallGraph() {
+        int[][] ids = { { 2, 3 }, null, { 3 }, null, {} };
+        CsrFollowsGraph graph = CsrFollowsGraph.fromIds(ids);
+        assertEquals("expected five users", 5, graph.userCount());
+        assertEquals("expected three edges", 3, graph.edgeCount());
+        assertTrue("expected 4 a key", graph.isKey(4));
+        assertFalse("expected 3 not a key", graph.isKey(3));
+        assertEquals("expected out-degree", 2, graph.outDegree(0));
+        assertEquals("expected in-degree", 2, graph.inDegree(3));
+        assertEquals("expected no followers", 0, graph.inDegree(0));
+        assertTrue("expected 0 follows 3", graph.follows(0, 3));
+        assertFalse("expected 2 does not follow 0", graph.follows(2, 0));
+        assertArrayEquals("expected neighbors", new int[] { 2, 3 }, graph.neighbors(0));
+        final List<Integer> seen = new ArrayList<>();
+        graph.forEachNeighbor(0, seen::add);
+        assertEquals("expected neighbors in order", Arrays.asList(2, 3), seen);
+        final List<String> edges = new ArrayList<>();
+        graph.forEachEdge((follower, followed) -> edges.add(follower + "->" + followed));
+        assertEquals("expected edges in order", Arrays.asList("0->2", "0->3", "2->3"), edges);
+        assertArrayEquals("expected same as IdSocialNetwork", IdSocialNetwork.influencers(ids), graph.influencers());
+        assertArrayEquals("expected same rows back", ids, graph.toIds());
+    }
+
+    //Test: ids out of range
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testUserOutOfRange() {
+        CsrFollowsGraph.fromIds(new int[][] { {} }).outDegree(1);
+    }
+
+    //Test: Map form with keys differing in case round-trips in lowercase
+    @Test
+    public void testFromAndToMap() {
+        Map<String, Set<String>> map = new HashMap<>();
+        map.put("Alyssa", new HashSet<>(Arrays.asList("BOB", "carol")));
+        map.put("alyssa", new HashSet<>(Arrays.asList("dave")));
+        map.put("bob", new HashSet<String>());
+        UsernameDictionary usernames = new UsernameDictionary();
+        CsrFollowsGraph graph = CsrFollowsGraph.fromMap(map, usernames);
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put("alyssa", new HashSet<>(Arrays.asList("bob", "carol", "dave")));
+        expected.put("bob", new HashSet<String>());
+        assertEquals("expected lowercase map", expected, graph.toMap(usernames));
+        assertEquals("expected carol followed once", 1, graph.inDegree(usernames.find("carol")));
+    }
+
+    //Test: random graphs agree with the int[][] form
+    @Test
+    public void testRandomAgainstIds() {
+        Random random = new Random(37);
+        for (int round = 0; round < 100; round++) {
+            int users = random.nextInt(40);
+            int[][] ids = new int[users][];
+            for (int a = 0; a < users; a++) {
+                if (random.nextInt(4) != 0) {
+                    Set<Integer> follows = new HashSet<>();
+                    for (int i = random.nextInt(8); i > 0; i--) {
+                        follows.add(random.nextInt(users));
+                    }
+                    ids[a] = new int[follows.size()];
+                    int i = 0;
+                    for (int b: follows) {
+                        ids[a][i++] = b;
+                    }
+                    Arrays.sort(ids[a]);
+                }
+            }
+            CsrFollowsGraph graph = CsrFollowsGraph.fromIds(ids);
+            assertArrayEquals("expected same rows back", ids, graph.toIds());
+            assertArrayEquals("expected same influencers", IdSocialNetwork.influencers(ids), graph.influencers());
+            for (int b = 0; b < users; b++) {
+                int followers = 0;
+                for (int a = 0; a < users; a++) {
+                    boolean follows = ids[a] != null && Arrays.binarySearch(ids[a], b) >= 0;
+                    assertEquals("expected same follows", follows, graph.follows(a, b));
+                    followers += follows ? 1 : 0;
+                }
+                assertEquals("expected same in-degree", followers, graph.inDegree(b));
+            }
+        }
+    }
+
+    //Test: graphs from tweets, same as IdSocialNetwork and SocialNetwork
+    @Test
+    public void testFromTweets() {
+        Random random = new Random(41);
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String text = "hi @" + (random.nextBoolean() ? "User" : "user") + random.nextInt(50) + " and @user" + random.nextInt(50);
+            tweets.add(new Tweet(i, "USER" + random.nextInt(40), text, D1));
+        }
+        UsernameDictionary usernames = new UsernameDictionary();
+        CsrFollowsGraph mentions = CsrFollowsGraph.mentionGraph(tweets, usernames);
+        assertEquals("expected same mention graph", new FollowsGraphBuilder().mentionGraph(tweets), mentions.toMap(usernames));
+        CsrFollowsGraph follows = CsrFollowsGraph.guessFollowsGraph(tweets, usernames);
+        assertEquals("expected same follows graph", SocialNetwork.guessFollowsGraph(tweets), follows.toMap(usernames));
+        assertEquals("expected same as from ids", CsrFollowsGraph.fromIds(IdSocialNetwork.guessFollowsGraph(tweets, usernames)), follows);
+    }
+}
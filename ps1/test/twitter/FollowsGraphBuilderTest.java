@@ -0,0 +1,195 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class FollowsGraphBuilderTest {
+
+    /* Testing strategy for FollowsGraphBuilder
+     * Input space: tweets = none, few (one partition), many (several partitions)
+     *      authors in varying case, mentioning themselves, mentioning nobody
+     *      list = RandomAccess, sequential; pool = common, single thread, several threads
+     *      closure: graph = empty, one partition, many partitions, with follow cycles
+     *      (so closure infers self-follows) and users that are not keys
+     *      threshold = negative, 0, 1, 2, 3, more than any degree
+     * Output space: mention graph the same as grouping with Filter.writtenBy and
+     *      Extract.getMentionedUsers per author; follows graph the same as its
+     *      triadic closure; parallel closure the same as the sequential one, and as
+     *      a String triadic closure written independently
+     * Testing strategy: partition testing, plus differential testing against
+     *      the per-author Filter and Extract calls, and against the sequential closures
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: no tweets
+    @Test
+    public void testEmpty() {
+        assertEquals("expected empty graph", Collections.emptyMap(),
+                new FollowsGraphBuilder().guessFollowsGraph(Collections.<Tweet>emptyList()));
+    }
+
+    //Test: few tweets, case variants and self-mentions
+    @Test
+    public void testFewTweets() {
+        List<Tweet> tweets = new ArrayList<>();
+        tweets.add(new Tweet(1, "Alyssa", "hi @Bob and @alyssa", D1));
+        tweets.add(new Tweet(2, "bob", "nothing to say", D1));
+        tweets.add(new Tweet(3, "ALYSSA", "@carol!", D1));
+        assertEquals("expected mention graph", referenceMentionGraph(tweets), new FollowsGraphBuilder().mentionGraph(tweets));
+    }
+
+    //Test: many tweets split into partitions, on pools of several sizes
+    @Test
+    public void testManyTweetsAgainstReference() {
+        List<Tweet> tweets = randomTweets(new Random(23), 20000, 300);
+        Map<String, Set<String>> expected = referenceMentionGraph(tweets);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            assertEquals("expected same graph on one thread", expected, new FollowsGraphBuilder(single).mentionGraph(tweets));
+            assertEquals("expected same graph on four threads", expected, new FollowsGraphBuilder(several).mentionGraph(tweets));
+            assertEquals("expected same graph from a sequential list", expected,
+                    new FollowsGraphBuilder(several).mentionGraph(new LinkedList<>(tweets)));
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+        assertEquals("expected closure of the mention graph", SocialNetwork.triadicClosure(expected, 2),
+                SocialNetwork.guessFollowsGraph(tweets));
+    }
+
+    //Test: closure of an empty graph, and of a follow cycle, which infers self-follows
+    @Test
+    public void testClosureSmall() {
+        assertEquals("expected no rows", 0, new FollowsGraphBuilder().triadicClosure(new int[0][], 2).length);
+        Map<String, Set<String>> map = new HashMap<>();
+        map.put("a", new HashSet<>(Arrays.asList("b")));
+        map.put("b", new HashSet<>(Arrays.asList("a")));
+        assertEquals("expected same closure as sequential", SocialNetwork.triadicClosure(map, 1),
+                new FollowsGraphBuilder().triadicClosure(map, 1));
+    }
+
+    //Test: large random graphs split into many partitions, on pools of several sizes
+    @Test
+    public void testClosureAgainstSequential() {
+        Random random = new Random(43);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            for (int threshold = 1; threshold <= 3; threshold++) {
+                int[][] graph = randomGraph(random, 3000, 12);
+                int[][] expected = IdSocialNetwork.triadicClosure(graph, threshold);
+                assertArrayEquals("expected same closure on one thread", expected,
+                        new FollowsGraphBuilder(single).triadicClosure(graph, threshold));
+                assertArrayEquals("expected same closure on four threads", expected,
+                        new FollowsGraphBuilder(several).triadicClosure(graph, threshold));
+            }
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    //Test: Map graphs split into partitions, for thresholds below 1 and above every degree
+    @Test
+    public void testClosureMapAgainstSocialNetwork() {
+        Random random = new Random(53);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            int[][] graph = randomGraph(random, 3000, 12);
+            Map<String, Set<String>> map = new HashMap<>();
+            for (int a = 0; a < graph.length; a++) {
+                if (graph[a] != null) {
+                    Set<String> follows = new HashSet<>();
+                    for (int b: graph[a]) {
+                        follows.add("user" + b);
+                    }
+                    map.put("user" + a, follows);
+                }
+            }
+            for (int threshold: new int[] { -3, 0, 1, 2, 13 }) {
+                Map<String, Set<String>> closed = new FollowsGraphBuilder(several).triadicClosure(map, threshold);
+                assertEquals("expected same closure as SocialNetwork for threshold " + threshold,
+                        SocialNetwork.triadicClosure(map, threshold), closed);
+                assertEquals("expected same closure as the String reference for threshold " + threshold,
+                        IdSocialNetworkTest.referenceTriadicClosure(map, threshold), closed);
+            }
+        } finally {
+            several.shutdown();
+        }
+    }
+
+    /*
+     * A graph of the given number of users, a quarter of them not keys, the
+     * rest following up to maxDegree users each, skewed towards low ids.
+     */
+    private static int[][] randomGraph(Random random, int users, int maxDegree) {
+        int[][] graph = new int[users][];
+        for (int a = 0; a < users; a++) {
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+            Set<Integer> follows = new HashSet<>();
+            for (int i = random.nextInt(maxDegree + 1); i > 0; i--) {
+                follows.add((int) (users * Math.pow(random.nextDouble(), 2)));
+            }
+            graph[a] = new int[follows.size()];
+            int i = 0;
+            for (int b: follows) {
+                graph[a][i++] = b;
+            }
+            Arrays.sort(graph[a]);
+        }
+        return graph;
+    }
+
+    /*
+     * The mention graph found one author at a time, with Filter and Extract.
+     */
+    private static Map<String, Set<String>> referenceMentionGraph(List<Tweet> tweets) {
+        Map<String, Set<String>> graph = new HashMap<>();
+        for (Tweet tweet: tweets) {
+            String author = tweet.getAuthor().toLowerCase();
+            if (!graph.containsKey(author)) {
+                Set<String> mentions = Extract.getMentionedUsers(Filter.writtenBy(tweets, author));
+                mentions.remove(author);
+                graph.put(author, mentions);
+            }
+        }
+        return graph;
+    }
+
+    private static List<Tweet> randomTweets(Random random, int count, int users) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // skewed, so some authors hold far more tweets than others
+            int author = (int) (users * Math.pow(random.nextDouble(), 3));
+            StringBuilder text = new StringBuilder("tweet");
+            for (int j = random.nextInt(4); j > 0; j--) {
+                text.append(" @").append(random.nextBoolean() ? "User" : "user").append(random.nextInt(users));
+            }
+            tweets.add(new Tweet(i, (random.nextBoolean() ? "USER" : "user") + author, text.toString(), D1));
+        }
+        return tweets;
+    }
+}
@@ -0,0 +1,141 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class IdSocialNetworkTest {
+
+    /* Testing strategy for IdSocialNetwork
+     * Input space: graph = empty, users that are not keys, follow cycles (so closure
+     *      infers self-follows), keys differing only in case
+     *      threshold = 1, 2, 3
+     *      tweets = mentions in varying case, self-mentions
+     * Output space: same graphs as the String algorithms of SocialNetwork, after
+     *      converting at the boundary; influencers in descending follower count
+     * Testing strategy: partition testing, plus differential testing against a
+     *      String triadic closure over random graphs
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: conversion at the boundary, with users that are not keys and keys differing in case
+    @Test
+    public void testFromAndToMap() {
+        Map<String, Set<String>> map = new HashMap<>();
+        map.put("Alyssa", new HashSet<>(Arrays.asList("BOB", "carol")));
+        map.put("alyssa", new HashSet<>(Arrays.asList("dave")));
+        map.put("bob", new HashSet<String>());
+        UsernameDictionary usernames = new UsernameDictionary();
+        int[][] graph = IdSocialNetwork.fromMap(map, usernames);
+        assertEquals("expected a row per user", usernames.size(), graph.length);
+        assertNull("expected carol not a key", graph[usernames.find("carol")]);
+        assertEquals("expected merged keys", 3, graph[usernames.find("alyssa")].length);
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put("alyssa", new HashSet<>(Arrays.asList("bob", "carol", "dave")));
+        expected.put("bob", new HashSet<String>());
+        assertEquals("expected lowercase map", expected, IdSocialNetwork.toMap(graph, usernames));
+    }
+
+    //Test: a follow cycle makes closure infer a self-follow, as the String version does
+    @Test
+    public void testSelfFollowFromCycle() {
+        Map<String, Set<String>> map = new HashMap<>();
+        map.put("a", new HashSet<>(Arrays.asList("b")));
+        map.put("b", new HashSet<>(Arrays.asList("a")));
+        UsernameDictionary usernames = new UsernameDictionary();
+        int[][] closed = IdSocialNetwork.triadicClosure(IdSocialNetwork.fromMap(map, usernames), 1);
+        assertEquals("expected closure of the String version", referenceTriadicClosure(map, 1),
+                IdSocialNetwork.toMap(closed, usernames));
+        assertTrue("expected self-follow", IdSocialNetwork.toMap(closed, usernames).get("a").contains("a"));
+    }
+
+    //Test: influencers by follower count, ties by id
+    @Test
+    public void testInfluencers() {
+        int[][] graph = { { 2, 3 }, null, { 3 }, null, { 2, 3 } };
+        assertArrayEquals("expected most followed first", new int[] { 3, 2, 0, 4 }, IdSocialNetwork.influencers(graph));
+        assertEquals("expected no users", 0, IdSocialNetwork.influencers(new int[0][]).length);
+    }
+
+    //Test: random graphs agree with the String triadic closure
+    @Test
+    public void testRandomAgainstStrings() {
+        Random random = new Random(29);
+        for (int round = 0; round < 100; round++) {
+            Map<String, Set<String>> map = new HashMap<>();
+            int users = 1 + random.nextInt(30);
+            for (int user = 0; user < users; user++) {
+                if (random.nextInt(4) == 0) {
+                    continue; // not a key
+                }
+                Set<String> follows = new HashSet<>();
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    follows.add("user" + random.nextInt(users));
+                }
+                map.put("user" + user, follows);
+            }
+            int threshold = 1 + random.nextInt(3);
+            UsernameDictionary usernames = new UsernameDictionary();
+            int[][] graph = IdSocialNetwork.fromMap(map, usernames);
+            assertEquals("expected same closure", referenceTriadicClosure(map, threshold),
+                    IdSocialNetwork.toMap(IdSocialNetwork.triadicClosure(graph, threshold), usernames));
+            assertEquals("expected same closure through SocialNetwork", referenceTriadicClosure(map, threshold),
+                    SocialNetwork.triadicClosure(map, threshold));
+        }
+    }
+
+    //Test: graph guessed from tweets, same as SocialNetwork.guessFollowsGraph
+    @Test
+    public void testGuessFollowsGraph() {
+        Random random = new Random(31);
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String text = "hi @" + (random.nextBoolean() ? "User" : "user") + random.nextInt(50) + " and @user" + random.nextInt(50);
+            tweets.add(new Tweet(i, "USER" + random.nextInt(40), text, D1));
+        }
+        UsernameDictionary usernames = new UsernameDictionary();
+        int[][] graph = IdSocialNetwork.guessFollowsGraph(tweets, usernames);
+        assertEquals("expected same graph", SocialNetwork.guessFollowsGraph(tweets), IdSocialNetwork.toMap(graph, usernames));
+    }
+
+    /*
+     * Triadic closure on String usernames, one author at a time; also used by
+     * FollowsGraphBuilderTest.
+     */
+    static Map<String, Set<String>> referenceTriadicClosure(Map<String, Set<String>> map, int threshold) {
+        Map<String, Set<String>> closed = new HashMap<>();
+        for (String author: map.keySet()) {
+            Map<String, Integer> tally = new HashMap<>();
+            Set<String> follows = new HashSet<>(map.get(author));
+            for (String first: map.get(author)) {
+                if (map.get(first) == null) {
+                    continue;
+                }
+                for (String second: map.get(first)) {
+                    tally.merge(second, 1, Integer::sum);
+                    if (tally.get(second) >= threshold) {
+                        follows.add(second);
+                    }
+                }
+            }
+            closed.put(author, follows);
+        }
+        return closed;
+    }
+}
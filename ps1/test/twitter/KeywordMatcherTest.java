@@ -0,0 +1,116 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class KeywordMatcherTest {
+
+    /* Testing strategy for KeywordMatcher
+     * Input space: words = none, one, many sharing prefixes, empty word, words with
+     *      regex metacharacters; case of words and text differ
+     *      text = empty, ASCII, non-ASCII with special lowercasing (final sigma, dotted I),
+     *      runs of space characters, final line terminator other than \n
+     *      default locale = root, Turkish
+     * Output space: same result as the regex Filter.containing used, on each word quoted
+     * Testing strategy: partition testing, plus differential testing against the
+     *      regex over random texts and words from a small alphabet
+     */
+
+    private static final String RANDOM_ALPHABET = "aAbB.\u03a3\u03c3\u0130i \t\n\u2028";
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: case-insensitive whole words
+    @Test
+    public void testWholeWords() {
+        KeywordMatcher matcher = new KeywordMatcher(Arrays.asList("Obama", "rivest", "rive"));
+        assertTrue("expected match ignoring case", matcher.matches("talk by OBAMA today"));
+        assertTrue("expected match at end", matcher.matches("talk by\tRivest"));
+        assertFalse("expected no match inside a word", matcher.matches("obamacare and rivests"));
+        assertFalse("expected no match across punctuation", matcher.matches("obama, rivest."));
+        assertFalse("expected no match in empty text", matcher.matches(""));
+    }
+
+    //Test: no words
+    @Test
+    public void testNoWords() {
+        assertFalse("expected no match", new KeywordMatcher(Collections.<String>emptyList()).matches("anything at all"));
+    }
+
+    //Test: words with regex metacharacters are literal
+    @Test
+    public void testLiteralWords() {
+        KeywordMatcher matcher = new KeywordMatcher(Arrays.asList("a.b", "(c"));
+        assertTrue("expected literal match", matcher.matches("x a.b y"));
+        assertFalse("expected . to be literal", matcher.matches("x axb y"));
+        assertTrue("expected ( to be literal", matcher.matches("(c"));
+    }
+
+    //Test: random texts and words agree with the regex
+    @Test
+    public void testRandomAgainstRegex() {
+        assertAgreesWithRegex(new Random(3));
+    }
+
+    //Test: random texts and words agree with the regex under a Turkish default locale
+    @Test
+    public void testRandomAgainstRegexTurkish() {
+        Locale original = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertAgreesWithRegex(new Random(4));
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    private static void assertAgreesWithRegex(Random random) {
+        for (int round = 0; round < 5000; round++) {
+            List<String> words = new ArrayList<>();
+            int count = random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                words.add(randomText(random, 3).replaceAll("\\s", ""));
+            }
+            KeywordMatcher matcher = new KeywordMatcher(words);
+            for (int i = 0; i < 10; i++) {
+                String text = randomText(random, 12);
+                assertEquals("expected result for " + words + " in " + text, regexMatches(text, words), matcher.matches(text));
+            }
+        }
+    }
+
+    private static String randomText(Random random, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            text.append(RANDOM_ALPHABET.charAt(random.nextInt(RANDOM_ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    /*
+     * The regex Filter.containing compiled per word, with the word quoted.
+     */
+    private static boolean regexMatches(String text, List<String> words) {
+        String tweetText = text.toLowerCase();
+        for (String word: words) {
+            Pattern pattern = Pattern.compile("(?<=(^|[\\s]))(" + Pattern.quote(word.toLowerCase()) + ")(?=($|[\\s]))");
+            if (pattern.matcher(tweetText).find(0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
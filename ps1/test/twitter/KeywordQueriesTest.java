@@ -0,0 +1,98 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class KeywordQueriesTest {
+
+    /* Testing strategy for KeywordQueries
+     * Input space: queries = none, one, many; query = no words, one word, many words,
+     *      a word repeated, a word shared with other queries, a word prefix of another
+     *      tweets = none, some; text = ASCII, non-ASCII, several words of one query,
+     *      final line terminator other than \n
+     * Output space: each result the same as Filter.containing with its query, in list order
+     * Testing strategy: partition testing, plus differential testing against
+     *      Filter.containing over random texts and queries from a small alphabet
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final String RANDOM_ALPHABET = "aAbB\u03a3\u03c3 \t\u2028";
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: shared, repeated and prefix words; a query with no words
+    @Test
+    public void testSmall() {
+        Tweet t1 = new Tweet(1, "alyssa", "talk by Rivest about rivest", D1);
+        Tweet t2 = new Tweet(2, "bob", "no talking", D1);
+        Tweet t3 = new Tweet(3, "carol", "TALK", D1);
+        List<Tweet> tweets = Arrays.asList(t1, t2, t3);
+        KeywordQueries queries = new KeywordQueries(Arrays.asList(
+                Arrays.asList("rivest", "talk", "RIVEST"),
+                Arrays.asList("talking"),
+                Collections.<String>emptyList(),
+                Arrays.asList("talk")));
+        assertEquals("expected size", 4, queries.size());
+        List<List<Tweet>> results = queries.containing(tweets);
+        assertEquals("expected a result per query", 4, results.size());
+        assertEquals("expected each tweet once", Arrays.asList(t1, t3), results.get(0));
+        assertEquals("expected whole word", Arrays.asList(t2), results.get(1));
+        assertEquals("expected no tweets", Collections.emptyList(), results.get(2));
+        assertEquals("expected shared word", Arrays.asList(t1, t3), results.get(3));
+    }
+
+    //Test: no queries, no tweets
+    @Test
+    public void testEmpty() {
+        assertEquals("expected no results", 0, new KeywordQueries(Collections.<List<String>>emptyList())
+                .containing(Arrays.asList(new Tweet(1, "a", "b", D1))).size());
+        List<List<Tweet>> results = new KeywordQueries(Arrays.asList(Arrays.asList("a"))).containing(Collections.<Tweet>emptyList());
+        assertEquals("expected no tweets", Collections.emptyList(), results.get(0));
+    }
+
+    //Test: random queries and texts agree with Filter.containing
+    @Test
+    public void testRandomAgainstFilter() {
+        Random random = new Random(13);
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tweets.add(new Tweet(i, "user", randomString(random, 12), D1));
+        }
+        List<List<String>> queries = new ArrayList<>();
+        for (int q = 0; q < 200; q++) {
+            List<String> words = new ArrayList<>();
+            for (int w = random.nextInt(4); w > 0; w--) {
+                words.add(randomWord(random));
+            }
+            queries.add(words);
+        }
+        List<List<Tweet>> results = new KeywordQueries(queries).containing(tweets);
+        for (int q = 0; q < queries.size(); q++) {
+            TweetStreamReaderTest.assertSameTweets(Filter.containing(tweets, queries.get(q)), results.get(q));
+        }
+    }
+
+    private static String randomWord(Random random) {
+        String word = randomString(random, 3).replaceAll("\\s", "");
+        return word.isEmpty() ? "a" : word;
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(maxLength + 1); i > 0; i--) {
+            text.append(RANDOM_ALPHABET.charAt(random.nextInt(RANDOM_ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class LazyFilterTest {
+
+    /* Testing strategy for LazyFilter
+     * Input space: method = writtenBy, inTimespan, containing
+     *      list = RandomAccess, sequential; consumer = sequential, parallel,
+     *      limited, iterator, spliterator split
+     * Output space: same tweets as Filter, in list order;
+     *      tweets tested = only up to the last one consumed
+     * Testing strategy: partition testing, plus differential testing against Filter
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: each method, sequential and parallel, over both kinds of list
+    @Test
+    public void testSameAsFilter() {
+        List<Tweet> tweets = tweets(5000);
+        Timespan span = new Timespan(D1.plusSeconds(1000), D1.plusSeconds(2999));
+        List<String> words = Arrays.asList("EVEN", "tweet7");
+        for (List<Tweet> list: Arrays.asList(tweets, new LinkedList<>(tweets))) {
+            TweetStreamReaderTest.assertSameTweets(Filter.writtenBy(tweets, "USER3"),
+                    LazyFilter.writtenBy(list, "USER3").collect(Collectors.toList()));
+            TweetStreamReaderTest.assertSameTweets(Filter.inTimespan(tweets, span),
+                    LazyFilter.inTimespan(list, span).parallel().collect(Collectors.toList()));
+            TweetStreamReaderTest.assertSameTweets(Filter.containing(tweets, words),
+                    LazyFilter.containing(list, words).parallel().collect(Collectors.toList()));
+        }
+        assertEquals("expected count", Filter.writtenBy(tweets, "user1").size(),
+                LazyFilter.writtenBy(tweets, "user1").parallel().count());
+    }
+
+    //Test: a limited stream and an iterator test only the tweets they need
+    @Test
+    public void testOnDemand() {
+        CountingList tweets = new CountingList(tweets(10000));
+        List<Tweet> first = LazyFilter.writtenBy(tweets, "user2").limit(3).collect(Collectors.toList());
+        assertEquals("expected first three by user2", Arrays.asList(2L, 9L, 16L),
+                first.stream().map(Tweet::getId).collect(Collectors.toList()));
+        assertEquals("expected tweets up to the third match", 17, tweets.gets);
+        tweets.gets = 0;
+        Iterator<Tweet> iterator = LazyFilter.containing(tweets, Arrays.asList("odd")).iterator();
+        assertEquals("expected first odd tweet", 1, iterator.next().getId());
+        assertTrue("expected only a few tweets tested", tweets.gets <= 2);
+    }
+
+    //Test: spliterators split evenly by position
+    @Test
+    public void testSplit() {
+        Spliterator<Tweet> suffix = LazyFilter.inTimespan(tweets(1000), new Timespan(D1, D1.plusSeconds(999))).spliterator();
+        Spliterator<Tweet> prefix = suffix.trySplit();
+        assertNotNull("expected a split", prefix);
+        assertEquals("expected half", 500, prefix.estimateSize());
+        assertEquals("expected half", 500, suffix.estimateSize());
+        assertTrue("expected ordered", suffix.hasCharacteristics(Spliterator.ORDERED));
+    }
+
+    /* RandomAccess list that counts calls to get. */
+    private static class CountingList extends AbstractList<Tweet> implements RandomAccess {
+        private final List<Tweet> tweets;
+        int gets = 0;
+
+        CountingList(List<Tweet> tweets) {
+            this.tweets = tweets;
+        }
+
+        @Override public Tweet get(int index) {
+            gets++;
+            return tweets.get(index);
+        }
+
+        @Override public int size() {
+            return tweets.size();
+        }
+    }
+
+    private static List<Tweet> tweets(int count) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String text = "tweet" + i + (i % 2 == 0 ? " even" : " odd");
+            tweets.add(new Tweet(i, "user" + (i % 7), text, D1.plusSeconds(i)));
+        }
+        return tweets;
+    }
+}
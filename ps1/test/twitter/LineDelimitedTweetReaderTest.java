@@ -0,0 +1,120 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.json.JsonException;
+
+import org.junit.Test;
+
+public class LineDelimitedTweetReaderTest {
+
+    /* Testing strategy for LineDelimitedTweetReader
+     * Input space: source = Reader, file
+     *      number of lines = 0, 1, enough for several chunks
+     *      blank lines, lines ending in \r\n, last line with and without newline
+     *      malformed line
+     * Output space: all tweets, in input order; JsonException for a malformed line
+     * Testing strategy: partition testing, checking order against the generated input
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: empty input gives no tweets
+    @Test
+    public void testReadTweetsEmpty() throws IOException {
+        assertEquals("expected no tweets", 0, LineDelimitedTweetReader.readTweets(new StringReader("")).size());
+    }
+
+    //Test: single line with \r\n ending and blank lines around it
+    @Test
+    public void testReadTweetsSingleLineBlankLines() throws IOException {
+        String text = "\n" + tweetLine(42) + "\r\n  \n";
+        List<Tweet> tweets = LineDelimitedTweetReader.readTweets(new StringReader(text));
+        assertEquals("expected one tweet", 1, tweets.size());
+        assertEquals("expected id", 42, tweets.get(0).getId());
+        assertEquals("expected timestamp", D1.plusSeconds(42), tweets.get(0).getTimestamp());
+    }
+
+    //Test: many lines read from a Reader in several chunks come back in order
+    @Test
+    public void testReadTweetsManyChunksInOrder() throws IOException {
+        int count = LineDelimitedTweetReader.LINES_PER_CHUNK * 3 + 17;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Tweet> tweets = LineDelimitedTweetReader.readTweets(new StringReader(ndjson(count, true)), pool);
+            assertInOrder(count, tweets);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //Test: file large enough for several chunks, last line without newline, comes back in order
+    @Test
+    public void testReadTweetsFromFileManyChunksInOrder() throws IOException {
+        int count = 30000;
+        Path file = Files.createTempFile("tweets", ".ndjson");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            String text = ndjson(count, false);
+            assertTrue("expected several chunks", text.length() > 2 * LineDelimitedTweetReader.MIN_CHUNK_BYTES);
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+            assertInOrder(count, LineDelimitedTweetReader.readTweetsFromFile(file, pool));
+        } finally {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    //Test: malformed line is reported
+    @Test(expected=JsonException.class)
+    public void testReadTweetsMalformedLine() throws IOException {
+        LineDelimitedTweetReader.readTweets(new StringReader(tweetLine(1) + "\n[1, 2]\n"));
+    }
+
+    private static String tweetLine(int id) {
+        return "{\"id\": " + id + ", \"user.screen_name\": \"user" + (id % 97) + "\", \"text\": \"tweet number " + id
+                + " with some padding text to make the line longer\", \"created_at\": \""
+                + CreatedAtDecoder.FORMAT.format(D1.plusSeconds(id).atOffset(ZoneOffset.UTC)) + "\"}";
+    }
+
+    private static String ndjson(int count, boolean trailingNewline) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append('\n');
+            }
+            text.append(tweetLine(i));
+        }
+        if (trailingNewline) {
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void assertInOrder(int count, List<Tweet> tweets) {
+        List<Long> ids = new ArrayList<>();
+        List<Long> expectedIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expectedIds.add((long) i);
+            ids.add(tweets.get(i).getId());
+        }
+        assertEquals("expected all tweets", count, tweets.size());
+        assertEquals("expected input order", expectedIds, ids);
+    }
+}
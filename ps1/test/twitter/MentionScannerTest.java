@@ -0,0 +1,140 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class MentionScannerTest {
+
+    /* Testing strategy for MentionScanner
+     * Input space: text = empty, no "@", mention at start / middle / end,
+     *      "@" preceded by a username char (email), "@@", "@" alone, adjacent mentions,
+     *      non-ASCII chars around and inside mentions
+     * Output space: spans equal to the matches of the original lookbehind regex
+     * Testing strategy: partition testing, plus differential testing against the
+     *      regex over random texts from a small alphabet
+     *
+     * Testing strategy for UsernameDictionary
+     * Input space: usernames in different cases, from Strings and from spans of a text,
+     *      non-ASCII usernames, enough usernames to grow the table
+     * Output space: same id for case variants, dense ids, lowercase usernames, -1 from find
+     * Testing strategy: partition testing, plus differential testing against a HashMap
+     */
+
+    private static final Pattern MENTION = Pattern.compile("(?<=(^|[^\\w\\-])@)[\\w\\-]+");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: edge cases of the mention definition
+    @Test
+    public void testEdgeCases() {
+        for (String text: Arrays.asList("", "no mentions here", "@alyssa at start", "end @Bob_9",
+                "bitdiddle@mit.edu", "@@double", "lone @ sign", "@a@b @c-d,@e", "x-@f", "(@g)",
+                "caf\u00e9@h", "\u00e9@i", "@j\u00e9k", "@")) {
+            assertEquals("expected mentions of " + text, regexMentions(text), scannedMentions(text));
+        }
+    }
+
+    //Test: random texts agree with the regex
+    @Test
+    public void testRandomAgainstRegex() {
+        Random random = new Random(11);
+        String alphabet = "aZ9_-@@ .#\u00e9";
+        for (int round = 0; round < 20000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertEquals("expected mentions of " + text, regexMentions(text.toString()), scannedMentions(text.toString()));
+        }
+    }
+
+    //Test: username alphabet
+    @Test
+    public void testIsUsernameChar() {
+        for (char c = 0; c < 512; c++) {
+            boolean expected = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+            assertEquals("expected class of char " + (int) c, expected, MentionScanner.isUsernameChar(c));
+        }
+    }
+
+    //Test: case variants from Strings and spans share an id and a lowercase username
+    @Test
+    public void testDictionaryCaseVariants() {
+        UsernameDictionary usernames = new UsernameDictionary();
+        int id = usernames.idOf("Alyssa");
+        assertEquals("expected first id", 0, id);
+        assertEquals("expected same id", id, usernames.idOf("ALYSSA"));
+        assertEquals("expected same id from span", id, usernames.idOf("hi @aLySsA!", 4, 10));
+        assertEquals("expected lowercase", "alyssa", usernames.username(id));
+        assertEquals("expected absent", -1, usernames.find("bob"));
+        assertEquals("expected absent span", -1, usernames.find("@bob", 1, 4));
+        assertEquals("expected next id", 1, usernames.idOf("Bob"));
+        assertEquals("expected size", 2, usernames.size());
+        assertEquals("expected usernames", Arrays.asList("alyssa", "bob"), usernames.usernames());
+    }
+
+    //Test: non-ASCII usernames fold with the Unicode rules
+    @Test
+    public void testDictionaryNonAscii() {
+        UsernameDictionary usernames = new UsernameDictionary();
+        int id = usernames.idOf("Ren\u00c9");
+        assertEquals("expected same id", id, usernames.idOf("ren\u00e9"));
+        assertEquals("expected lowercase", "ren\u00e9", usernames.username(id));
+        assertEquals("expected Kelvin sign to fold to k", usernames.idOf("k"), usernames.idOf("\u212a"));
+    }
+
+    //Test: many usernames agree with a HashMap of lowercase names
+    @Test
+    public void testDictionaryAgainstHashMap() {
+        Random random = new Random(5);
+        UsernameDictionary usernames = new UsernameDictionary();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            String username = "User" + random.nextInt(20000);
+            if (random.nextBoolean()) {
+                username = username.toUpperCase();
+            }
+            Integer id = expected.get(username.toLowerCase());
+            if (id == null) {
+                id = expected.size();
+                expected.put(username.toLowerCase(), id);
+            }
+            assertEquals("expected id of " + username, (int) id, usernames.idOf(username));
+        }
+        assertEquals("expected size", expected.size(), usernames.size());
+        for (Map.Entry<String, Integer> entry: expected.entrySet()) {
+            assertEquals("expected username", entry.getKey(), usernames.username(entry.getValue()));
+        }
+    }
+
+    private static List<String> regexMentions(String text) {
+        List<String> mentions = new ArrayList<>();
+        Matcher matcher = MENTION.matcher(text);
+        while (matcher.find()) {
+            mentions.add(matcher.start() + ":" + matcher.group());
+        }
+        return mentions;
+    }
+
+    private static List<String> scannedMentions(String text) {
+        List<String> mentions = new ArrayList<>();
+        int count = MentionScanner.scan(text, (source, start, end) ->
+                mentions.add(start + ":" + source.subSequence(start, end)));
+        assertEquals("expected count of mentions", mentions.size(), count);
+        return mentions;
+    }
+}
@@ -0,0 +1,103 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class RegexFilterTest {
+
+    /* Testing strategy for RegexFilter
+     * Input space: pattern = plain literals, literals with quantifiers, groups,
+     *      character classes, alternation, escapes, \Q..\E quoting, inline flags
+     *      flags = none, CASE_INSENSITIVE (with and without UNICODE_CASE), LITERAL, COMMENTS
+     *      text = containing a match, containing the literals but no match, neither
+     * Output space: same result as Matcher.find; required literals read from the pattern
+     * Testing strategy: partition testing, plus differential testing against
+     *      Matcher.find over random patterns and texts from a small alphabet
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final String[] PIECES = {
+        "a", "b", "K", "\u212a", "s", "\u017f", ".", "\\.", "[ab]", "[^a]", "(ab)", "(?:a|b)",
+        "|", "*", "+", "?", "{2}", "*?", "\\d", "\\Qa.\\E", "(?i)", "^", "$", " ", "\\b", "(?=b)"
+    };
+    private static final String TEXT_ALPHABET = "abkKs\u212a\u017fS. 1";
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: literals read from patterns
+    @Test
+    public void testRequiredLiterals() {
+        assertEquals("expected literal before group", Arrays.asList("rivest"),
+                new RegexFilter("rivest.*(talk|lecture)").requiredLiterals());
+        assertEquals("expected optional char dropped", Arrays.asList("obama", "ca"),
+                new RegexFilter("obamax?ca").requiredLiterals());
+        assertEquals("expected escaped and quoted chars", Arrays.asList("a.b(c"),
+                new RegexFilter("a\\.b\\Q(c\\E").requiredLiterals());
+        assertEquals("expected none with alternation", Collections.emptyList(),
+                new RegexFilter("rivest|obama").requiredLiterals());
+        assertEquals("expected none with inline flags", Collections.emptyList(),
+                new RegexFilter("rivest(?i)obama").requiredLiterals());
+        assertEquals("expected whole literal pattern", Arrays.asList("a|b"),
+                new RegexFilter(Pattern.compile("a|b", Pattern.LITERAL)).requiredLiterals());
+    }
+
+    //Test: tweets filtered in list order, with text that has the literal but no match
+    @Test
+    public void testFilter() {
+        Tweet t1 = new Tweet(1, "alyssa", "rivest talk today", D1);
+        Tweet t2 = new Tweet(2, "bob", "rivest", D1);
+        Tweet t3 = new Tweet(3, "carol", "talk by Rivest then a lecture", D1);
+        List<Tweet> tweets = Arrays.asList(t1, t2, t3);
+        RegexFilter filter = new RegexFilter(Pattern.compile("rivest.*(talk|lecture)", Pattern.CASE_INSENSITIVE));
+        assertEquals("expected matches in order", Arrays.asList(t1, t3), filter.filter(tweets));
+        assertEquals("expected same stream", Arrays.asList(t1, t3), filter.stream(tweets).collect(Collectors.toList()));
+        assertTrue("expected no tweets", new RegexFilter("x+y").filter(tweets).isEmpty());
+    }
+
+    //Test: random patterns and flags agree with Matcher.find
+    @Test
+    public void testRandomAgainstMatcher() {
+        Random random = new Random(19);
+        int[] flagChoices = { 0, Pattern.CASE_INSENSITIVE, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE,
+                Pattern.LITERAL, Pattern.COMMENTS };
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = random.nextInt(10); j > 0; j--) {
+                text.append(TEXT_ALPHABET.charAt(random.nextInt(TEXT_ALPHABET.length())));
+            }
+            texts.add(text.toString());
+        }
+        for (int round = 0; round < 1000; round++) {
+            StringBuilder regex = new StringBuilder();
+            for (int j = 1 + random.nextInt(6); j > 0; j--) {
+                regex.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(regex.toString(), flagChoices[random.nextInt(flagChoices.length)]);
+            } catch (PatternSyntaxException e) {
+                continue;
+            }
+            RegexFilter filter = new RegexFilter(pattern);
+            for (String text: texts) {
+                assertEquals("expected same as find for /" + pattern + "/ on " + text,
+                        pattern.matcher(text).find(), filter.matches(text));
+            }
+        }
+    }
+}
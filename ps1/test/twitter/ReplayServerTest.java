@@ -0,0 +1,126 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class ReplayServerTest {
+
+    /* Testing strategy for TweetWriter
+     * Input space: format = JSON array, NDJSON; tweets with quotes and escapes
+     * Output space: text read back by TweetReader / LineDelimitedTweetReader as the same tweets
+     * Testing strategy: round-trip testing
+     */
+
+    /* Testing strategy for ReplayServer
+     * Input space: source = sample, file
+     *      transfer = fixed length, chunked
+     *      tweet count = sample size, several times the sample size
+     *      throughput = unlimited, limited; latency = 0, >0
+     * Output space: TweetReader.readTweetsFromWeb returns the served tweets with distinct ids;
+     *      throttled responses take at least payload / rate
+     * Testing strategy: end-to-end partition testing on localhost
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    private static final List<Tweet> SAMPLE = Arrays.asList(
+            new Tweet(1, "alyssa", "is it reasonable to talk about \"rivest\" so much?", D1),
+            new Tweet(2, "bbitdiddle", "rivest talk in 30 minutes #hype", D1.plusSeconds(3600)),
+            new Tweet(3, "krotus", "@alyssa despair", D1.plusSeconds(7200)));
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: JSON array written by TweetWriter reads back through TweetStreamReader
+    @Test
+    public void testWriteTweetsRoundTrip() {
+        StringWriter writer = new StringWriter();
+        TweetWriter.writeTweets(SAMPLE, writer);
+        TweetStreamReaderTest.assertSameTweets(SAMPLE,
+                TweetStreamReader.streamTweets(new StringReader(writer.toString())).collect(Collectors.toList()));
+    }
+
+    //Test: NDJSON written by TweetWriter reads back through LineDelimitedTweetReader
+    @Test
+    public void testWriteTweetsLineDelimitedRoundTrip() throws IOException {
+        StringWriter writer = new StringWriter();
+        TweetWriter.writeTweetsLineDelimited(SAMPLE, writer);
+        TweetStreamReaderTest.assertSameTweets(SAMPLE, LineDelimitedTweetReader.readTweets(new StringReader(writer.toString())));
+    }
+
+    //Test: fixed-length response of the sample, read by TweetReader
+    @Test
+    public void testServeSampleFixedLength() throws IOException {
+        try (ReplayServer server = new ReplayServer(SAMPLE)) {
+            server.start();
+            TweetStreamReaderTest.assertSameTweets(SAMPLE, TweetReader.readTweetsFromWeb(server.getUrl()));
+            assertEquals("expected one request", 1, server.getRequestCount());
+        }
+    }
+
+    //Test: chunked response repeating the sample, with latency, read by TweetReader
+    @Test
+    public void testServeRepeatedChunkedWithLatency() throws IOException {
+        try (ReplayServer server = new ReplayServer(SAMPLE).withTweetCount(1000).withChunkedTransfer(true)
+                .withLatency(Duration.ofMillis(20))) {
+            server.start();
+            List<Tweet> tweets = TweetReader.readTweetsFromWeb(server.getUrl());
+            assertEquals("expected tweet count", 1000, tweets.size());
+            Set<Long> ids = new HashSet<>();
+            for (Tweet tweet: tweets) {
+                ids.add(tweet.getId());
+            }
+            assertEquals("expected distinct ids", 1000, ids.size());
+        }
+    }
+
+    //Test: throttled response takes at least payload size / rate
+    @Test
+    public void testServeThrottled() throws IOException {
+        try (ReplayServer server = new ReplayServer(SAMPLE).withTweetCount(3000).withBytesPerSecond(1_000_000)) {
+            server.start();
+            long start = System.nanoTime();
+            List<Tweet> tweets = TweetReader.readTweetsFromWeb(server.getUrl());
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertEquals("expected tweet count", 3000, tweets.size());
+            assertTrue("expected throttled transfer", elapsedMillis >= server.getPayloadSize() / 1000 - 50);
+        }
+    }
+
+    //Test: file served as-is through the streaming reader
+    @Test
+    public void testServeFile() throws IOException {
+        Path file = Files.createTempFile("tweets", ".json");
+        try {
+            Files.write(file, TweetStreamReaderTest.TWEETS_JSON.getBytes(StandardCharsets.UTF_8));
+            try (ReplayServer server = new ReplayServer(file)) {
+                server.start();
+                List<Tweet> tweets;
+                try (Stream<Tweet> stream = TweetStreamReader.streamTweetsFromWeb(server.getUrl())) {
+                    tweets = stream.collect(Collectors.toList());
+                }
+                TweetStreamReaderTest.assertSameTweets(TweetStreamReaderTest.readWithTweetReader(TweetStreamReaderTest.TWEETS_JSON), tweets);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
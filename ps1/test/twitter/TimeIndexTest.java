@@ -0,0 +1,113 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimeIndexTest {
+
+    /* Testing strategy for TimeIndex
+     * Input space: tweets = none, some; list order = time order, shuffled
+     *      timestamps with sub-millisecond parts, equal timestamps
+     *      timespan = empty of tweets, single instant, ends at tweet timestamps,
+     *      ends in the same millisecond as a tweet, covering everything
+     *      appended batch = newer, older or interleaved
+     * Output space: same tweets as Filter.inTimespan on all the tweets, in list order;
+     *      latest positions in time order
+     * Testing strategy: partition testing, plus differential testing against
+     *      Filter.inTimespan over random tweets and timespans
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: no tweets
+    @Test
+    public void testEmpty() {
+        TimeIndex index = new TimeIndex(Collections.<Tweet>emptyList());
+        assertEquals("expected no tweets", 0, index.inTimespan(new Timespan(D1, D1.plusSeconds(10))).size());
+        assertEquals("expected no latest", 0, index.latestPositions(3).length);
+    }
+
+    //Test: ends in the same millisecond as tweets with sub-millisecond timestamps
+    @Test
+    public void testSubMillisecondEnds() {
+        List<Tweet> tweets = new ArrayList<>();
+        tweets.add(new Tweet(1, "a", "x", D1.plusNanos(100)));
+        tweets.add(new Tweet(2, "b", "x", D1.plusNanos(900_000)));
+        tweets.add(new Tweet(3, "c", "x", D1.plusNanos(500_000)));
+        TimeIndex index = new TimeIndex(tweets);
+        Timespan span = new Timespan(D1.plusNanos(200), D1.plusNanos(500_000));
+        TweetStreamReaderTest.assertSameTweets(Filter.inTimespan(tweets, span), index.inTimespan(span));
+        assertArrayEquals("expected same millisecond, latest position first", new int[] {2, 1}, index.latestPositions(2));
+        index.addAll(Collections.singletonList(new Tweet(4, "d", "x", D1.minusMillis(1))));
+        assertArrayEquals("expected latest first", new int[] {2, 1, 0, 3}, index.latestPositions(10));
+    }
+
+    //Test: random tweets and timespans, with appended batches, agree with Filter.inTimespan
+    @Test
+    public void testRandomAgainstFilter() {
+        Random random = new Random(17);
+        List<Tweet> all = randomTweets(random, 0, 2000, 0);
+        TimeIndex index = new TimeIndex(all);
+        assertAgrees(random, all, index);
+        // newer batch, appended
+        List<Tweet> newer = randomTweets(random, 2000, 500, 10_000);
+        index.addAll(newer);
+        all.addAll(newer);
+        assertAgrees(random, all, index);
+        // batch spread over the whole range, merged
+        List<Tweet> interleaved = randomTweets(random, 2500, 700, 0);
+        index.addAll(interleaved);
+        all.addAll(interleaved);
+        assertAgrees(random, all, index);
+        assertEquals("expected size", all.size(), index.size());
+    }
+
+    private static void assertAgrees(Random random, List<Tweet> all, TimeIndex index) {
+        for (int round = 0; round < 300; round++) {
+            Instant a = randomInstant(random, all);
+            Instant b = randomInstant(random, all);
+            Timespan span = a.isAfter(b) ? new Timespan(b, a) : new Timespan(a, b);
+            TweetStreamReaderTest.assertSameTweets(Filter.inTimespan(all, span), index.inTimespan(span));
+            assertEquals("expected bitmap", TweetBitmap.of(index.positionsIn(span)), index.bitmapIn(span));
+        }
+    }
+
+    /*
+     * An instant at, next to, or in the same millisecond as a tweet, or anywhere in range.
+     */
+    private static Instant randomInstant(Random random, List<Tweet> tweets) {
+        Instant timestamp = tweets.get(random.nextInt(tweets.size())).getTimestamp();
+        switch (random.nextInt(4)) {
+        case 0:
+            return timestamp;
+        case 1:
+            return timestamp.plusNanos(random.nextInt(3) - 1);
+        case 2:
+            return timestamp.plusNanos(random.nextInt(2_000_000) - 1_000_000);
+        default:
+            return D1.plusMillis(random.nextInt(15_000));
+        }
+    }
+
+    private static List<Tweet> randomTweets(Random random, int firstId, int count, int offsetMillis) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long millis = offsetMillis + random.nextInt(5000);
+            int nanos = random.nextBoolean() ? 0 : random.nextInt(1_000_000);
+            tweets.add(new Tweet(firstId + i, "user", "text", D1.plusMillis(millis).plusNanos(nanos)));
+        }
+        return tweets;
+    }
+}
@@ -0,0 +1,125 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TriadicClosureEngineTest {
+
+    /* Testing strategy for TriadicClosureEngine
+     * Input space: graph = empty, no keys, follow cycles (so closure infers
+     *      self-follows), users that are not keys, hubs following most users
+     *      next to low-degree rows, rows with fewer intermediaries than threshold
+     *      threshold = 1, 2, 3, more than any degree
+     *      memory budget = smaller than one row, a few rows, default
+     *      output = graph, rows handed to a RowConsumer
+     * Output space: same closure as IdSocialNetwork.triadicClosure; rows in
+     *      ascending order of user, each row ascending
+     * Testing strategy: partition testing, plus differential testing against
+     *      IdSocialNetwork over random graphs with hubs
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: empty graph, and a graph of users that are not keys
+    @Test
+    public void testEmpty() {
+        TriadicClosureEngine engine = new TriadicClosureEngine();
+        assertEquals("expected no users", 0, engine.close(CsrFollowsGraph.fromIds(new int[0][]), 2).userCount());
+        CsrFollowsGraph noKeys = CsrFollowsGraph.fromIds(new int[3][]);
+        assertEquals("expected the same graph", noKeys, engine.close(noKeys, 1));
+    }
+
+    //Test: a follow cycle infers self-follows, as SocialNetwork.triadicClosure does
+    @Test
+    public void testSelfFollowFromCycle() {
+        Map<String, Set<String>> map = new HashMap<>();
+        map.put("a", new HashSet<>(Arrays.asList("b")));
+        map.put("b", new HashSet<>(Arrays.asList("a")));
+        UsernameDictionary usernames = new UsernameDictionary();
+        CsrFollowsGraph closed = new TriadicClosureEngine().close(CsrFollowsGraph.fromMap(map, usernames), 1);
+        assertEquals("expected closure of SocialNetwork", SocialNetwork.triadicClosure(map, 1), closed.toMap(usernames));
+        assertTrue("expected self-follow", closed.follows(usernames.find("a"), usernames.find("a")));
+    }
+
+    //Test: threshold higher than any degree infers nothing
+    @Test
+    public void testHighThreshold() {
+        int[][] ids = { { 1, 2 }, { 2 }, { 0 } };
+        CsrFollowsGraph graph = CsrFollowsGraph.fromIds(ids);
+        assertEquals("expected the same graph", graph, new TriadicClosureEngine().close(graph, 5));
+    }
+
+    //Test: threshold below 1
+    @Test(expected=IllegalArgumentException.class)
+    public void testThresholdZero() {
+        new TriadicClosureEngine().close(CsrFollowsGraph.fromIds(new int[0][]), 0);
+    }
+
+    //Test: rows handed to a consumer, keys only, in ascending order, with a budget smaller than one row
+    @Test
+    public void testRowConsumer() {
+        int[][] ids = { { 1, 2, 3 }, null, { 1, 3 }, { 1 } };
+        final List<String> rows = new ArrayList<>();
+        new TriadicClosureEngine(4).close(CsrFollowsGraph.fromIds(ids), 1, new TriadicClosureEngine.RowConsumer() {
+            @Override public void row(int user, int[] neighbors, int from, int to) {
+                rows.add(user + ":" + Arrays.toString(Arrays.copyOfRange(neighbors, from, to)));
+            }
+        });
+        assertEquals("expected closed rows of the keys", Arrays.asList("0:[1, 2, 3]", "2:[1, 3]", "3:[1]"), rows);
+    }
+
+    //Test: random graphs with hubs and low-degree rows, under several budgets
+    @Test
+    public void testRandomAgainstIds() {
+        Random random = new Random(47);
+        long[] budgets = { 4, 256, 1 << 20 };
+        for (int round = 0; round < 60; round++) {
+            int users = 1 + random.nextInt(round < 50 ? 60 : 2000);
+            int[][] ids = randomGraph(random, users);
+            int threshold = 1 + random.nextInt(3);
+            CsrFollowsGraph expected = CsrFollowsGraph.fromIds(IdSocialNetwork.triadicClosure(ids, threshold));
+            for (long budget: budgets) {
+                assertEquals("expected same closure with budget " + budget, expected,
+                        new TriadicClosureEngine(budget).close(CsrFollowsGraph.fromIds(ids), threshold));
+            }
+        }
+    }
+
+    /*
+     * A graph in which a quarter of the users are not keys, a few hubs follow
+     * about half of all users, and the rest follow a handful each.
+     */
+    private static int[][] randomGraph(Random random, int users) {
+        int[][] ids = new int[users][];
+        for (int a = 0; a < users; a++) {
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+            int degree = random.nextInt(20) == 0 ? users / 2 : random.nextInt(6);
+            Set<Integer> follows = new HashSet<>();
+            for (int i = degree; i > 0; i--) {
+                follows.add(random.nextInt(users));
+            }
+            ids[a] = new int[follows.size()];
+            int i = 0;
+            for (int b: follows) {
+                ids[a][i++] = b;
+            }
+            Arrays.sort(ids[a]);
+        }
+        return ids;
+    }
+}
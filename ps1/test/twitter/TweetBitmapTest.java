@@ -0,0 +1,178 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class TweetBitmapTest {
+
+    /* Testing strategy for TweetBitmap
+     * Input space: sets = empty, sparse (array chunks), dense (bitmap chunks),
+     *      consecutive stretches (run chunks), spread over one or several chunks;
+     *      ordinals at chunk boundaries; repeated ordinals
+     *      operation = and, or, andNot, contains, toArray, tweetsIn
+     *      source list = RandomAccess, sequential, TweetStore
+     * Output space: same sets as TreeSet operations; tweets in list order;
+     *      same tweets as Filter on a TweetStore; compact size for runs
+     * Testing strategy: partition testing, plus differential testing against TreeSet
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: small sets, repeats, chunk boundaries
+    @Test
+    public void testSmallSets() {
+        TweetBitmap a = TweetBitmap.of(5, 1, 65535, 65536, 5);
+        assertArrayEquals("expected sorted distinct ordinals", new int[] {1, 5, 65535, 65536}, a.toArray());
+        assertEquals("expected cardinality", 4, a.cardinality());
+        assertTrue("expected member across chunk boundary", a.contains(65536));
+        assertFalse("expected non-member", a.contains(2));
+        assertFalse("expected negative non-member", a.contains(-1));
+        TweetBitmap b = TweetBitmap.range(4, 65537);
+        assertArrayEquals("expected intersection", new int[] {5, 65535, 65536}, a.and(b).toArray());
+        assertArrayEquals("expected difference", new int[] {1}, a.andNot(b).toArray());
+        assertEquals("expected union cardinality", 65534, a.or(b).cardinality());
+        assertTrue("expected empty", TweetBitmap.empty().and(a).isEmpty());
+        assertEquals("expected equal sets", a, TweetBitmap.of(1, 5, 65535, 65536));
+    }
+
+    //Test: random sets of each density agree with TreeSet
+    @Test
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(21);
+        for (int round = 0; round < 60; round++) {
+            TreeSet<Integer> x = randomSet(random);
+            TreeSet<Integer> y = randomSet(random);
+            TweetBitmap a = bitmapOf(x);
+            TweetBitmap b = bitmapOf(y);
+            assertEquals("expected set", x, setOf(a));
+            TreeSet<Integer> and = new TreeSet<>(x);
+            and.retainAll(y);
+            TreeSet<Integer> or = new TreeSet<>(x);
+            or.addAll(y);
+            TreeSet<Integer> andNot = new TreeSet<>(x);
+            andNot.removeAll(y);
+            assertEquals("expected intersection", and, setOf(a.and(b)));
+            assertEquals("expected union", or, setOf(a.or(b)));
+            assertEquals("expected difference", andNot, setOf(a.andNot(b)));
+            assertEquals("expected intersection cardinality", and.size(), a.and(b).cardinality());
+            assertEquals("expected union cardinality", or.size(), a.or(b).cardinality());
+            for (int i = 0; i < 200; i++) {
+                int probe = random.nextInt(200000);
+                assertEquals("expected membership of " + probe, x.contains(probe), a.contains(probe));
+            }
+        }
+    }
+
+    //Test: consecutive stretches are stored compactly
+    @Test
+    public void testRunsCompact() {
+        TweetBitmap runs = TweetBitmap.range(10, 150000);
+        assertTrue("expected run containers", runs.sizeInBytes() < 64);
+        assertEquals("expected cardinality", 149990, runs.cardinality());
+        TweetBitmap dense = runs.andNot(TweetBitmap.of(evenNumbers(0, 150000)));
+        assertEquals("expected odd ordinals", 74995, dense.cardinality());
+    }
+
+    //Test: materialized tweets keep list order, for each kind of list
+    @Test
+    public void testTweetsIn() {
+        List<Tweet> tweets = tweets(1000);
+        TweetBitmap bitmap = TweetBitmap.of(999, 3, 500, 0);
+        List<Tweet> expected = Arrays.asList(tweets.get(0), tweets.get(3), tweets.get(500), tweets.get(999));
+        TweetStreamReaderTest.assertSameTweets(expected, bitmap.tweetsIn(tweets));
+        TweetStreamReaderTest.assertSameTweets(expected, bitmap.tweetsIn(new LinkedList<>(tweets)));
+        TweetStreamReaderTest.assertSameTweets(expected, bitmap.tweetsIn(new TweetStore(tweets)));
+    }
+
+    //Test: bitmaps of Filter predicates on a store, combined
+    @Test
+    public void testPredicatesOnStore() {
+        List<Tweet> tweets = tweets(5000);
+        TweetStore store = new TweetStore(tweets);
+        Timespan span = new Timespan(D1.plusSeconds(1000), D1.plusSeconds(3999));
+        TweetBitmap byUser = TweetBitmap.writtenBy(store, "USER3");
+        TweetBitmap inSpan = TweetBitmap.inTimespan(store, span);
+        TweetBitmap withWord = TweetBitmap.containing(store, Arrays.asList("even"));
+        List<Tweet> expected = Filter.containing(Filter.inTimespan(Filter.writtenBy(tweets, "USER3"), span), Arrays.asList("even"));
+        TweetStreamReaderTest.assertSameTweets(expected, byUser.and(inSpan).and(withWord).tweetsIn(store));
+        TweetStreamReaderTest.assertSameTweets(Filter.containing(tweets, Arrays.asList("even")),
+                TweetBitmap.containing(new TweetIndex(tweets), Arrays.asList("even")).tweetsIn(tweets));
+    }
+
+    private static TreeSet<Integer> randomSet(Random random) {
+        TreeSet<Integer> set = new TreeSet<>();
+        int chunks = 1 + random.nextInt(3);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int base = random.nextInt(3) << 16;
+            switch (random.nextInt(4)) {
+            case 0: // sparse
+                for (int i = 0; i < random.nextInt(3000); i++) {
+                    set.add(base + random.nextInt(65536));
+                }
+                break;
+            case 1: // dense
+                for (int i = 0; i < 20000; i++) {
+                    set.add(base + random.nextInt(65536));
+                }
+                break;
+            case 2: // runs
+                for (int run = 0; run < 1 + random.nextInt(20); run++) {
+                    int start = base + random.nextInt(65536);
+                    for (int i = start; i < start + random.nextInt(10000); i++) {
+                        set.add(i);
+                    }
+                }
+                break;
+            default: // empty
+                break;
+            }
+        }
+        return set;
+    }
+
+    private static TweetBitmap bitmapOf(TreeSet<Integer> set) {
+        int[] ordinals = new int[set.size()];
+        int count = 0;
+        for (int ordinal: set) {
+            ordinals[count++] = ordinal;
+        }
+        return TweetBitmap.fromSorted(ordinals, count);
+    }
+
+    private static TreeSet<Integer> setOf(TweetBitmap bitmap) {
+        TreeSet<Integer> set = new TreeSet<>();
+        bitmap.forEach(set::add);
+        return set;
+    }
+
+    private static int[] evenNumbers(int from, int to) {
+        int[] evens = new int[(to - from + 1) / 2];
+        for (int i = 0; i < evens.length; i++) {
+            evens[i] = from + 2 * i;
+        }
+        return evens;
+    }
+
+    private static List<Tweet> tweets(int count) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String text = "tweet " + i + (i % 2 == 0 ? " even" : " odd");
+            tweets.add(new Tweet(i, "user" + (i % 7), text, D1.plusSeconds(i)));
+        }
+        return tweets;
+    }
+}
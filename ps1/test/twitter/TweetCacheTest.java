@@ -0,0 +1,202 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TweetCacheTest {
+
+    /* Testing strategy for TweetCache
+     * Input space: cached response = none, fresh, stale, corrupt properties; cache reopened from disk
+     *      response = plain, gzip; validators = ETag, Last-Modified only
+     *      server = up, stopped
+     *      streamed response = read to the end, abandoned early
+     * Output space: tweets equal to TweetReader.readTweetsFromWeb; number of requests
+     *      and 304 replies seen by the server; IOException when the server is needed and down;
+     *      streamed tweets available before the response is stored; response stored
+     *      only once read to the end
+     * Testing strategy: partition testing against a local ReplayServer
+     */
+
+    private static final Instant T0 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: fresh response is served from disk without contacting the server
+    @Test
+    public void testFreshServedLocally() throws IOException {
+        try (ReplayServer server = new ReplayServer(tweets(500))) {
+            server.start();
+            TweetCache cache = new TweetCache(folder.getRoot().toPath(), Duration.ofMinutes(5), Clock.fixed(T0, ZoneOffset.UTC));
+            List<Tweet> expected = TweetReader.readTweetsFromWeb(server.getUrl());
+            TweetStreamReaderTest.assertSameTweets(expected, cache.readTweetsFromWeb(server.getUrl()));
+            TweetStreamReaderTest.assertSameTweets(expected, cache.readTweetsFromWeb(server.getUrl()));
+            assertEquals("expected one request by TweetReader and one by the cache", 2, server.getRequestCount());
+        }
+    }
+
+    //Test: stale response, in a cache reopened later, is revalidated with a 304
+    @Test
+    public void testStaleRevalidated() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReplayServer server = new ReplayServer(tweets(500))) {
+            server.start();
+            List<Tweet> first = new TweetCache(directory, Duration.ofMinutes(5), Clock.fixed(T0, ZoneOffset.UTC))
+                    .readTweetsFromWeb(server.getUrl());
+            TweetCache later = new TweetCache(directory, Duration.ofMinutes(5), Clock.fixed(T0.plusSeconds(600), ZoneOffset.UTC));
+            TweetStreamReaderTest.assertSameTweets(first, later.readTweetsFromWeb(server.getUrl()));
+            assertEquals("expected a conditional request", 2, server.getRequestCount());
+            assertEquals("expected a 304 reply", 1, server.getNotModifiedCount());
+            later.readTweetsFromWeb(server.getUrl());
+            assertEquals("expected revalidation to renew the response", 2, server.getRequestCount());
+        }
+    }
+
+    //Test: gzip response is decompressed and stored; TweetReader still gets the plain payload
+    @Test
+    public void testGzip() throws IOException {
+        try (ReplayServer server = new ReplayServer(tweets(2000)).withGzip(true).withChunkedTransfer(true)) {
+            server.start();
+            TweetCache cache = new TweetCache(folder.getRoot().toPath());
+            List<Tweet> expected = TweetReader.readTweetsFromWeb(server.getUrl());
+            TweetStreamReaderTest.assertSameTweets(expected, cache.readTweetsFromWeb(server.getUrl()));
+            assertEquals("expected decompressed body on disk", server.getPayloadSize(), Files.size(cache.fetch(server.getUrl())));
+        }
+    }
+
+    //Test: server answers If-Modified-Since alone with a 304
+    @Test
+    public void testServerLastModified() throws IOException {
+        try (ReplayServer server = new ReplayServer(tweets(3))) {
+            server.start();
+            HttpURLConnection first = (HttpURLConnection) server.getUrl().openConnection();
+            assertEquals("expected full response", 200, first.getResponseCode());
+            String lastModified = first.getHeaderField("Last-Modified");
+            first.getInputStream().close();
+            HttpURLConnection second = (HttpURLConnection) server.getUrl().openConnection();
+            second.setUseCaches(false);
+            second.setRequestProperty("If-Modified-Since", lastModified);
+            assertEquals("expected not modified", 304, second.getResponseCode());
+            second.disconnect();
+        }
+    }
+
+    //Test: stale response with the server stopped
+    @Test(expected=IOException.class)
+    public void testStaleServerDown() throws IOException {
+        TweetCache cache = new TweetCache(folder.getRoot().toPath(), Duration.ZERO);
+        ReplayServer server = new ReplayServer(tweets(3));
+        try {
+            server.start();
+            cache.readTweetsFromWeb(server.getUrl());
+        } finally {
+            server.close();
+        }
+        cache.readTweetsFromWeb(server.getUrl());
+    }
+
+    //Test: a missing response is decoded as it arrives, and stored once read to the end
+    @Test
+    public void testMissStreamsWhileDownloading() throws IOException {
+        List<Tweet> tweets = tweets(20000);
+        Path directory = folder.getRoot().toPath();
+        try (ReplayServer server = new ReplayServer(tweets).withChunkedTransfer(true)) {
+            server.start();
+            TweetCache cache = new TweetCache(directory, Duration.ofMinutes(5), Clock.fixed(T0, ZoneOffset.UTC));
+            List<Tweet> streamed = new ArrayList<>();
+            try (Stream<Tweet> stream = cache.streamTweetsFromWeb(server.getUrl())) {
+                Iterator<Tweet> iterator = stream.iterator();
+                streamed.add(iterator.next());
+                assertEquals("expected nothing stored before the end", 0, countFiles(directory, "*.body"));
+                iterator.forEachRemaining(streamed::add);
+            }
+            TweetStreamReaderTest.assertSameTweets(tweets, streamed);
+            assertEquals("expected the response stored", 1, countFiles(directory, "*.body"));
+            try (Stream<Tweet> stream = cache.streamTweetsFromWeb(server.getUrl())) {
+                TweetStreamReaderTest.assertSameTweets(tweets, stream.collect(Collectors.toList()));
+            }
+            assertEquals("expected the second read from disk", 1, server.getRequestCount());
+        }
+    }
+
+    //Test: a stream abandoned early is not stored
+    @Test
+    public void testAbandonedStreamNotStored() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReplayServer server = new ReplayServer(tweets(20000))) {
+            server.start();
+            TweetCache cache = new TweetCache(directory);
+            try (Stream<Tweet> stream = cache.streamTweetsFromWeb(server.getUrl())) {
+                stream.iterator().next();
+            }
+            assertEquals("expected nothing stored", 0, countFiles(directory, "*.body"));
+            assertEquals("expected no temporary files left", 0, countFiles(directory, "*.tmp"));
+        }
+    }
+
+    //Test: corrupt or truncated properties are a miss, so the response is fetched again
+    @Test
+    public void testCorruptMetadataRefetched() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReplayServer server = new ReplayServer(tweets(50))) {
+            server.start();
+            TweetCache cache = new TweetCache(directory, Duration.ofMinutes(5), Clock.fixed(T0, ZoneOffset.UTC));
+            List<Tweet> expected = cache.readTweetsFromWeb(server.getUrl());
+            String[] corruptions = {
+                "url=" + server.getUrl(), // truncated before fetched-at
+                "url=" + server.getUrl() + "\nfetched-at=12x",
+                "url=\\u00",
+            };
+            for (int i = 0; i < corruptions.length; i++) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.properties")) {
+                    for (Path file: files) {
+                        Files.write(file, corruptions[i].getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                }
+                TweetStreamReaderTest.assertSameTweets(expected, cache.readTweetsFromWeb(server.getUrl()));
+                assertEquals("expected a new request", i + 2, server.getRequestCount());
+            }
+        }
+    }
+
+    private static int countFiles(Path directory, String glob) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file: files) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Tweet> tweets(int count) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tweets.add(new Tweet(i, "user" + (i % 13), "tweet " + i + " @user" + (i % 5), T0.plusSeconds(i)));
+        }
+        return tweets;
+    }
+}
@@ -0,0 +1,144 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TweetDeduplicatorTest {
+
+    /* Testing strategy for LongHashSet
+     * Input space: values = 0 (the internal empty marker), positive, negative, colliding probe runs
+     *      operations = add, remove, contains, interleaved; set small, set grown past initial capacity
+     * Output space: same membership and size as a HashSet<Long>
+     * Testing strategy: differential testing against HashSet<Long> over random operation sequences,
+     *      plus handpicked cases for 0
+     */
+
+    /* Testing strategy for TweetDeduplicator
+     * Input space: no window, window
+     *      repeated ids: adjacent, far apart, repeated after falling out of the window
+     *      tweets arriving later than the window, with ids remembered or not
+     *      tweets arriving out of timestamp order
+     * Output space: tweets admitted, in input order; number of remembered ids
+     * Testing strategy: partition testing
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: zero is stored and removed like any other value
+    @Test
+    public void testLongHashSetZero() {
+        LongHashSet set = new LongHashSet();
+        assertFalse("expected zero absent", set.contains(0));
+        assertTrue("expected zero added", set.add(0));
+        assertFalse("expected zero not added twice", set.add(0));
+        assertTrue("expected zero present", set.contains(0));
+        assertEquals("expected size 1", 1, set.size());
+        assertTrue("expected zero removed", set.remove(0));
+        assertTrue("expected empty set", set.isEmpty());
+    }
+
+    //Test: random adds and removes over a small value range agree with HashSet
+    @Test
+    public void testLongHashSetAgreesWithHashSet() {
+        Random random = new Random(6005);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            long value = random.nextInt(5000) - 2500;
+            if (random.nextInt(3) == 0) {
+                assertEquals("expected same remove result", expected.remove(value), set.remove(value));
+            } else {
+                assertEquals("expected same add result", expected.add(value), set.add(value));
+            }
+            if (i % 1000 == 0) {
+                for (long probe = -2500; probe < 2500; probe++) {
+                    assertEquals("expected same membership", expected.contains(probe), set.contains(probe));
+                }
+            }
+        }
+        assertEquals("expected same size", expected.size(), set.size());
+    }
+
+    //Test: without a window, every repeat is dropped and order is kept
+    @Test
+    public void testDedupeNoWindow() {
+        List<Tweet> tweets = Arrays.asList(tweet(3, 0), tweet(1, 1), tweet(3, 2), tweet(2, 3), tweet(1, 4));
+        List<Tweet> admitted = new TweetDeduplicator().dedupe(tweets);
+        assertEquals("expected first occurrences in order", Arrays.asList(tweets.get(0), tweets.get(1), tweets.get(3)), admitted);
+    }
+
+    //Test: with a window, old ids are forgotten and late tweets are passed through
+    @Test
+    public void testDedupeWindow() {
+        TweetDeduplicator deduplicator = new TweetDeduplicator(Duration.ofMinutes(10));
+        assertTrue("expected first sighting", deduplicator.test(tweet(1, 0)));
+        assertFalse("expected repeat inside window", deduplicator.test(tweet(1, 0)));
+        assertTrue("expected new tweet", deduplicator.test(tweet(2, 5)));
+        assertTrue("expected new tweet that moves the window", deduplicator.test(tweet(3, 12)));
+        assertEquals("expected id 1 forgotten", 2, deduplicator.size());
+        assertTrue("expected late tweet passed through", deduplicator.test(tweet(1, 0)));
+        assertFalse("expected repeat inside window", deduplicator.test(tweet(2, 5)));
+    }
+
+    //Test: memory stays bounded on a long feed with a window
+    @Test
+    public void testDedupeWindowBoundedMemory() {
+        TweetDeduplicator deduplicator = new TweetDeduplicator(Duration.ofMinutes(1));
+        for (int minute = 0; minute < 1000; minute++) {
+            for (int i = 0; i < 10; i++) {
+                long id = minute * 10L + i;
+                assertTrue("expected new tweet admitted", deduplicator.test(tweet(id, minute)));
+                assertFalse("expected repeat dropped", deduplicator.test(tweet(id, minute)));
+            }
+        }
+        assertTrue("expected only recent ids remembered", deduplicator.size() <= 20);
+    }
+
+    //Test: a late tweet whose id is still remembered is dropped
+    @Test
+    public void testLateRepeatDropped() {
+        TweetDeduplicator deduplicator = new TweetDeduplicator(Duration.ofMinutes(10));
+        assertTrue("expected new tweet that moves the window", deduplicator.test(tweet(1, 20)));
+        assertTrue("expected out-of-order tweet inside the window", deduplicator.test(tweet(2, 12)));
+        assertTrue("expected tweet that moves the window", deduplicator.test(tweet(3, 21)));
+        assertFalse("expected late repeat of a remembered id dropped", deduplicator.test(tweet(1, 5)));
+        assertTrue("expected late tweet with a new id passed through", deduplicator.test(tweet(4, 5)));
+        assertTrue("expected late tweet not remembered", deduplicator.test(tweet(4, 5)));
+    }
+
+    //Test: ids of out-of-order tweets are forgotten once outside the window
+    @Test
+    public void testOutOfOrderEvicted() {
+        TweetDeduplicator deduplicator = new TweetDeduplicator(Duration.ofMinutes(10));
+        assertTrue("expected new tweet", deduplicator.test(tweet(1, 30)));
+        assertTrue("expected out-of-order tweet inside the window", deduplicator.test(tweet(2, 21)));
+        assertTrue("expected new tweet", deduplicator.test(tweet(3, 30)));
+        assertTrue("expected tweet that moves the window past id 2", deduplicator.test(tweet(4, 32)));
+        assertEquals("expected id 2 forgotten, though it arrived before ids 3 and 4", 3, deduplicator.size());
+        Random random = new Random(6007);
+        for (int minute = 40; minute < 5000; minute++) {
+            for (int i = 0; i < 10; i++) {
+                deduplicator.test(tweet(minute * 10L + i, minute - random.nextInt(10)));
+            }
+        }
+        assertTrue("expected only ids within the window remembered", deduplicator.size() <= 110);
+    }
+
+    private static Tweet tweet(long id, int minutes) {
+        return new Tweet(id, "alyssa", "tweet " + id, D1.plusSeconds(60L * minutes));
+    }
+}
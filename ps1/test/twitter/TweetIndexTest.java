@@ -0,0 +1,90 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TweetIndexTest {
+
+    /* Testing strategy for TweetIndex
+     * Input space: tweets = none, some; list = ArrayList, LinkedList, TweetStore.asList()
+     *      query words = none, one, many, absent, repeated, empty word, different case;
+     *      word repeated within a tweet; texts with runs of spaces and final line terminators
+     * Output space: same tweets as Filter.containing, in order; posting lists ascending
+     *      and without repeats; frequencies
+     * Testing strategy: partition testing, plus differential testing against
+     *      Filter.containing over random texts from a small vocabulary
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final List<String> VOCABULARY = Arrays.asList(
+            "rivest", "Rivest", "obama", "talk", "#hype", "a.b", "", " ", "  ", "\t", "\u2028", "\u03a3");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: postings and frequencies of a small list
+    @Test
+    public void testPostings() {
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "alyssa", "rivest talk rivest", D1),
+                new Tweet(2, "bbitdiddle", "no match here", D1),
+                new Tweet(3, "krotus", "RIVEST  again", D1));
+        TweetIndex index = new TweetIndex(tweets);
+        assertEquals("expected size", 3, index.size());
+        assertArrayEquals("expected postings without repeats", new int[] {0, 2}, index.postings("Rivest"));
+        assertEquals("expected frequency", 2, index.frequency("rivest"));
+        assertEquals("expected absent word", 0, index.frequency("obama"));
+        assertArrayEquals("expected empty word from the run of spaces", new int[] {2}, index.postings(""));
+        assertEquals("expected no words, no tweets", 0, index.containing(Collections.<String>emptyList()).size());
+    }
+
+    //Test: no tweets
+    @Test
+    public void testEmpty() {
+        TweetIndex index = new TweetIndex(Collections.<Tweet>emptyList());
+        assertEquals("expected no tweets", 0, index.containing(Arrays.asList("rivest")).size());
+        assertEquals("expected no words", 0, index.wordCount());
+    }
+
+    //Test: random queries agree with Filter.containing, over each kind of list
+    @Test
+    public void testRandomAgainstFilter() {
+        Random random = new Random(13);
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            StringBuilder text = new StringBuilder();
+            int words = random.nextInt(6);
+            for (int j = 0; j < words; j++) {
+                if (j > 0) {
+                    text.append(' ');
+                }
+                text.append(VOCABULARY.get(random.nextInt(VOCABULARY.size())));
+            }
+            tweets.add(new Tweet(i, "user" + (i % 9), text.toString(), D1.plusSeconds(i)));
+        }
+        List<TweetIndex> indexes = Arrays.asList(new TweetIndex(tweets), new TweetIndex(new LinkedList<>(tweets)),
+                new TweetIndex(new TweetStore(tweets).asList()));
+        for (int round = 0; round < 200; round++) {
+            List<String> query = new ArrayList<>();
+            int count = random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                query.add(VOCABULARY.get(random.nextInt(VOCABULARY.size())).trim());
+            }
+            List<Tweet> expected = Filter.containing(tweets, query);
+            for (TweetIndex index: indexes) {
+                TweetStreamReaderTest.assertSameTweets(expected, index.containing(query));
+            }
+        }
+    }
+}
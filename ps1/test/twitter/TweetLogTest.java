@@ -0,0 +1,172 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TweetLogTest {
+
+    /* Testing strategy for TweetLog
+     * Input space: log = new, reopened after close
+     *      number of segments = 1, >1
+     *      tweets with sub-second timestamps, non-ASCII text, empty text
+     *      last segment with a torn final record, with a corrupt checksum, with a torn header;
+     *      corrupt record in an earlier segment
+     * Output space: replay gives every intact tweet in append order; appends after
+     *      recovery follow the intact records; IOException for unrecoverable corruption
+     * Testing strategy: partition testing
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: tweets appended, then replayed after the log is closed and reopened
+    @Test
+    public void testReplayAfterReopen() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("log");
+        List<Tweet> tweets = tweets(0, 50);
+        try (TweetLog log = TweetLog.open(directory)) {
+            for (Tweet tweet: tweets) {
+                log.append(tweet);
+            }
+            TweetStreamReaderTest.assertSameTweets(tweets, log.readAll());
+        }
+        try (TweetLog log = TweetLog.open(directory)) {
+            TweetStreamReaderTest.assertSameTweets(tweets, log.readAll());
+        }
+    }
+
+    //Test: small segment limit spreads tweets over several segments, replayed in order
+    @Test
+    public void testSeveralSegments() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        List<Tweet> tweets = tweets(0, 200);
+        try (TweetLog log = TweetLog.open(directory, 1024, 7)) {
+            for (Tweet tweet: tweets) {
+                log.append(tweet);
+            }
+            assertTrue("expected several segments", log.segmentCount() > 5);
+        }
+        try (TweetLog log = TweetLog.open(directory, 1024, 7)) {
+            List<Tweet> replayed = new ArrayList<>();
+            assertEquals("expected count of tweets", tweets.size(), log.replay(replayed::add));
+            TweetStreamReaderTest.assertSameTweets(tweets, replayed);
+        }
+    }
+
+    //Test: torn final record is cut off, and later appends follow the intact records
+    @Test
+    public void testTornTailTruncated() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (TweetLog log = TweetLog.open(directory)) {
+            for (Tweet tweet: tweets(0, 10)) {
+                log.append(tweet);
+            }
+        }
+        Path segment = lastSegment(directory);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+        List<Tweet> expected = tweets(0, 9);
+        try (TweetLog log = TweetLog.open(directory)) {
+            TweetStreamReaderTest.assertSameTweets(expected, log.readAll());
+            log.append(tweets(100, 1).get(0));
+            expected.addAll(tweets(100, 1));
+        }
+        try (TweetLog log = TweetLog.open(directory)) {
+            TweetStreamReaderTest.assertSameTweets(expected, log.readAll());
+        }
+    }
+
+    //Test: final record with a bad checksum is cut off
+    @Test
+    public void testCorruptChecksumTruncated() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (TweetLog log = TweetLog.open(directory)) {
+            for (Tweet tweet: tweets(0, 3)) {
+                log.append(tweet);
+            }
+        }
+        flipLastByte(lastSegment(directory));
+        try (TweetLog log = TweetLog.open(directory)) {
+            TweetStreamReaderTest.assertSameTweets(tweets(0, 2), log.readAll());
+        }
+    }
+
+    //Test: last segment with a torn header is reset and reused
+    @Test
+    public void testTornHeaderReset() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Files.write(directory.resolve("segment-0000000000000000.log"), new byte[] {0x54, 0x57});
+        try (TweetLog log = TweetLog.open(directory)) {
+            assertEquals("expected empty log", 0, log.readAll().size());
+            log.append(tweets(0, 1).get(0));
+        }
+        try (TweetLog log = TweetLog.open(directory)) {
+            TweetStreamReaderTest.assertSameTweets(tweets(0, 1), log.readAll());
+        }
+    }
+
+    //Test: corruption in an earlier segment is reported
+    @Test(expected=IOException.class)
+    public void testCorruptEarlierSegment() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (TweetLog log = TweetLog.open(directory, 512, 1)) {
+            for (Tweet tweet: tweets(0, 50)) {
+                log.append(tweet);
+            }
+        }
+        flipLastByte(segments(directory).get(0));
+        TweetLog.open(directory, 512, 1).close();
+    }
+
+    private static List<Tweet> tweets(int first, int count) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            String text = i % 5 == 0 ? "" : "tweet " + i + " caf\u00e9 @alyssa";
+            tweets.add(new Tweet(i, "user_" + (i % 7), text, D1.plusSeconds(i).plusNanos(i * 1000)));
+        }
+        return tweets;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.log")) {
+            for (Path file: files) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static Path lastSegment(Path directory) throws IOException {
+        List<Path> segments = segments(directory);
+        return segments.get(segments.size() - 1);
+    }
+
+    private static void flipLastByte(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x5a;
+        Files.write(file, bytes);
+    }
+}
@@ -0,0 +1,148 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class TweetPipelineTest {
+
+    /* Testing strategy for TweetPipeline
+     * Input space: number of tweets = 0, less than a batch, many batches
+     *      tweets with repeated ids; source = stream, ReplayServer over HTTP
+     *      source that fails to open, source that fails part way
+     *      stage that fails part way, on more batches than its queue holds
+     * Output space: every result equals Main's sequential computation on the
+     *      deduplicated tweets; every result completes exceptionally on failure;
+     *      only the failed stage's result fails when a stage fails
+     * Testing strategy: differential testing against Extract and SocialNetwork
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: no tweets
+    @Test
+    public void testEmpty() {
+        assertMatchesSequential(Collections.<Tweet>emptyList());
+    }
+
+    //Test: fewer tweets than a batch, with a repeated id
+    @Test
+    public void testSmallWithRepeats() {
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "alyssa", "@bbitdiddle @Krotus rivest talk", D1),
+                new Tweet(2, "BBitdiddle", "@krotus hi @bbitdiddle", D1.plusSeconds(60)),
+                new Tweet(1, "alyssa", "@bbitdiddle @Krotus rivest talk", D1),
+                new Tweet(3, "krotus", "@alyssa despair", D1.minusSeconds(60)));
+        assertMatchesSequential(tweets);
+    }
+
+    //Test: many batches of generated tweets
+    @Test
+    public void testManyBatches() {
+        assertMatchesSequential(generate(10 * TweetPipeline.BATCH_SIZE + 17));
+    }
+
+    //Test: tweets fetched from a ReplayServer
+    @Test
+    public void testFromWeb() throws IOException {
+        List<Tweet> tweets = generate(2000);
+        try (ReplayServer server = new ReplayServer(tweets).withChunkedTransfer(true)) {
+            server.start();
+            TweetPipeline pipeline = TweetPipeline.fromWeb(server.getUrl()).start();
+            assertEquals("expected tweet count", 2000, (int) pipeline.tweetCount().join());
+            assertEquals("expected mentioned users", Extract.getMentionedUsers(tweets), pipeline.mentionedUsers().join());
+            assertEquals("expected follows graph", SocialNetwork.guessFollowsGraph(tweets), pipeline.followsGraph().join());
+        }
+    }
+
+    //Test: source that cannot be opened fails every result
+    @Test
+    public void testSourceFailsToOpen() {
+        TweetPipeline pipeline = new TweetPipeline(() -> {
+            throw new IOException("unreachable");
+        }).start();
+        assertFailed(pipeline);
+    }
+
+    //Test: source that fails after some batches fails every result
+    @Test
+    public void testSourceFailsPartWay() {
+        List<Tweet> tweets = generate(3 * TweetPipeline.BATCH_SIZE);
+        TweetPipeline pipeline = new TweetPipeline(() -> Stream.concat(tweets.stream(),
+                Stream.<Tweet>generate(() -> {
+                    throw new UncheckedIOException(new IOException("connection reset"));
+                }))).start();
+        assertFailed(pipeline);
+    }
+
+    //Test: a stage that throws on more batches than its queue holds fails alone, and nothing hangs
+    @Test(timeout=30000)
+    public void testStageFailsWithFullQueue() {
+        List<Tweet> tweets = new ArrayList<>();
+        tweets.add(new Tweet(-1, "alyssa", "no timestamp", null)); // the timespan stage throws on this
+        tweets.addAll(generate((TweetPipeline.QUEUE_BATCHES + 10) * TweetPipeline.BATCH_SIZE));
+        TweetPipeline pipeline = new TweetPipeline(() -> tweets.stream()).start();
+        assertEquals("expected tweet count", tweets.size(), (int) pipeline.tweetCount().join());
+        try {
+            pipeline.timespan().join();
+            fail("expected failure");
+        } catch (CompletionException ce) {
+            assertTrue("expected failure of the stage", ce.getCause() instanceof NullPointerException);
+        }
+        assertEquals("expected mentioned users", Extract.getMentionedUsers(tweets), pipeline.mentionedUsers().join());
+        assertEquals("expected follows graph", SocialNetwork.guessFollowsGraph(tweets), pipeline.followsGraph().join());
+    }
+
+    private static void assertMatchesSequential(List<Tweet> tweets) {
+        List<Tweet> distinct = new TweetDeduplicator().dedupe(tweets);
+        TweetPipeline pipeline = new TweetPipeline(() -> tweets.stream()).start();
+        assertEquals("expected tweet count", distinct.size(), (int) pipeline.tweetCount().join());
+        Timespan expectedSpan = Extract.getTimespan(distinct);
+        Timespan span = pipeline.timespan().join();
+        assertEquals("expected start", expectedSpan.getStart(), span.getStart());
+        assertEquals("expected end", expectedSpan.getEnd(), span.getEnd());
+        assertEquals("expected mentioned users", Extract.getMentionedUsers(distinct), pipeline.mentionedUsers().join());
+        assertEquals("expected follows graph", SocialNetwork.guessFollowsGraph(distinct), pipeline.followsGraph().join());
+        assertEquals("expected influencers", SocialNetwork.influencers(SocialNetwork.guessFollowsGraph(distinct)),
+                pipeline.influencers().join());
+    }
+
+    private static void assertFailed(TweetPipeline pipeline) {
+        List<Runnable> joins = Arrays.<Runnable>asList(
+                pipeline.tweetCount()::join, pipeline.timespan()::join, pipeline.mentionedUsers()::join,
+                pipeline.followsGraph()::join, pipeline.influencers()::join);
+        for (Runnable join: joins) {
+            try {
+                join.run();
+                fail("expected failure");
+            } catch (CompletionException ce) {
+                assertTrue("expected I/O failure", ce.getCause() instanceof IOException
+                        || ce.getCause() instanceof UncheckedIOException);
+            }
+        }
+    }
+
+    private static List<Tweet> generate(int count) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String text = "@user" + (i * 7 % 31) + " and @USER" + (i * 11 % 29) + " #" + i;
+            tweets.add(new Tweet(i, "user" + (i % 37), text, D1.plusSeconds(i * 13 % 5000)));
+        }
+        return tweets;
+    }
+}
@@ -0,0 +1,162 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class TweetQueryTest {
+
+    /* Testing strategy for TweetQuery
+     * Input space: query = writtenBy, inTimespan, containing, and, or, not, nested
+     *      tweets = none, some; list = RandomAccess, sequential
+     *      evaluation = filter, stream
+     *      indexes = none, some, all
+     *      index of a different list size
+     * Output space: same tweets as the nested Filter calls, in list order;
+     *      plan with the cheap selective operand first
+     * Testing strategy: partition testing, plus differential testing of random
+     *      queries against Filter applied to each tweet
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: conjunction of all three conditions, same as nested Filter calls
+    @Test
+    public void testNestedFilterCalls() {
+        List<Tweet> tweets = randomTweets(new Random(3), 2000);
+        Timespan span = new Timespan(D1.plusSeconds(100), D1.plusSeconds(900));
+        List<String> words = Arrays.asList("Rivest", "talk");
+        List<Tweet> expected = Filter.containing(Filter.inTimespan(Filter.writtenBy(tweets, "USER2"), span), words);
+        TweetQuery query = TweetQuery.containing(words).and(TweetQuery.inTimespan(span)).and(TweetQuery.writtenBy("user2"));
+        TweetStreamReaderTest.assertSameTweets(expected, query.filter(tweets));
+        TweetStreamReaderTest.assertSameTweets(expected, query.filter(new LinkedList<>(tweets)));
+        TweetStreamReaderTest.assertSameTweets(expected,
+                query.filter(tweets, new AuthorIndex(tweets), new TimeIndex(tweets), new TweetIndex(tweets)));
+        TweetStreamReaderTest.assertSameTweets(expected, query.filter(tweets, null, new TimeIndex(tweets), null));
+    }
+
+    //Test: no tweets
+    @Test
+    public void testEmpty() {
+        TweetQuery query = TweetQuery.writtenBy("alyssa").not();
+        assertEquals("expected no tweets", 0, query.filter(Collections.<Tweet>emptyList()).size());
+    }
+
+    //Test: the cheap operand that rejects most tweets is tested first
+    @Test
+    public void testPlanOrder() {
+        List<Tweet> tweets = randomTweets(new Random(5), 1000);
+        TweetQuery query = TweetQuery.containing(Arrays.asList("talk")).and(TweetQuery.writtenBy("user1"));
+        assertEquals("expected author first", "(writtenBy(user1) and containing[talk])",
+                query.explain(tweets, null, null, null));
+        TweetQuery either = TweetQuery.writtenBy("nobody").or(TweetQuery.containing(Arrays.asList("talk")));
+        assertEquals("expected likely operand first", "(containing[talk] or writtenBy(nobody))",
+                either.explain(tweets, null, null, null));
+    }
+
+    //Test: index of another list
+    @Test(expected=IllegalArgumentException.class)
+    public void testIndexOfOtherList() {
+        List<Tweet> tweets = randomTweets(new Random(6), 10);
+        TweetQuery.writtenBy("user1").filter(tweets, new AuthorIndex(tweets.subList(0, 5)), null, null);
+    }
+
+    //Test: random queries, with and without indexes, agree with Filter
+    @Test
+    public void testRandomAgainstFilter() {
+        Random random = new Random(11);
+        List<Tweet> tweets = randomTweets(random, 3000);
+        AuthorIndex authors = new AuthorIndex(tweets);
+        TimeIndex times = new TimeIndex(tweets);
+        TweetIndex words = new TweetIndex(tweets);
+        for (int round = 0; round < 200; round++) {
+            List<Predicate<Tweet>> reference = new ArrayList<>();
+            TweetQuery query = randomQuery(random, 3, reference);
+            List<Tweet> expected = new ArrayList<>();
+            for (Tweet tweet: tweets) {
+                if (reference.get(0).test(tweet)) {
+                    expected.add(tweet);
+                }
+            }
+            TweetStreamReaderTest.assertSameTweets(expected, query.filter(tweets));
+            TweetStreamReaderTest.assertSameTweets(expected, query.stream(tweets).parallel().collect(Collectors.toList()));
+            TweetStreamReaderTest.assertSameTweets(expected, query.filter(tweets, authors, times, words));
+            TweetStreamReaderTest.assertSameTweets(expected,
+                    query.filter(tweets, random.nextBoolean() ? authors : null, null, random.nextBoolean() ? words : null));
+        }
+    }
+
+    /*
+     * A random query of at most the given depth; adds to reference a test of one
+     * tweet with the same meaning, made of Filter calls on a one-tweet list.
+     */
+    private static TweetQuery randomQuery(Random random, int depth, List<Predicate<Tweet>> reference) {
+        int kind = random.nextInt(depth == 0 ? 3 : 6);
+        switch (kind) {
+        case 0: {
+            String username = (random.nextBoolean() ? "USER" : "user") + random.nextInt(6);
+            reference.add(tweet -> !Filter.writtenBy(Collections.singletonList(tweet), username).isEmpty());
+            return TweetQuery.writtenBy(username);
+        }
+        case 1: {
+            Instant start = D1.plusSeconds(random.nextInt(3000));
+            Timespan span = new Timespan(start, start.plusSeconds(random.nextInt(1500)));
+            reference.add(tweet -> !Filter.inTimespan(Collections.singletonList(tweet), span).isEmpty());
+            return TweetQuery.inTimespan(span);
+        }
+        case 2: {
+            List<String> words = new ArrayList<>();
+            for (int i = 0; i <= random.nextInt(3); i++) {
+                words.add(WORDS[random.nextInt(WORDS.length)]);
+            }
+            reference.add(tweet -> !Filter.containing(Collections.singletonList(tweet), words).isEmpty());
+            return TweetQuery.containing(words);
+        }
+        case 3: {
+            TweetQuery operand = randomQuery(random, depth - 1, reference);
+            Predicate<Tweet> test = reference.remove(reference.size() - 1);
+            reference.add(test.negate());
+            return operand.not();
+        }
+        default: {
+            TweetQuery left = randomQuery(random, depth - 1, reference);
+            TweetQuery right = randomQuery(random, depth - 1, reference);
+            Predicate<Tweet> rightTest = reference.remove(reference.size() - 1);
+            Predicate<Tweet> leftTest = reference.remove(reference.size() - 1);
+            boolean isAnd = kind == 4;
+            reference.add(isAnd ? leftTest.and(rightTest) : leftTest.or(rightTest));
+            return isAnd ? left.and(right) : left.or(right);
+        }
+        }
+    }
+
+    private static final String[] WORDS = { "talk", "Rivest", "obama", "bitdiddle", "the" };
+
+    private static List<Tweet> randomTweets(Random random, int count) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int word = 0; word < 1 + random.nextInt(6); word++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(4) == 0 ? "! " : " ");
+            }
+            String author = (random.nextBoolean() ? "user" : "User") + random.nextInt(5);
+            tweets.add(new Tweet(i, author, text.toString(), D1.plusSeconds(random.nextInt(4000))));
+        }
+        return tweets;
+    }
+}
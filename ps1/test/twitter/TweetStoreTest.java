@@ -0,0 +1,86 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TweetStoreTest {
+
+    /* Testing strategy for TweetStore
+     * Input space: number of tweets = 0, 1, >1
+     *      authors differing only in case, repeated authors
+     *      texts: empty, ASCII, non-ASCII (multi-byte UTF-8)
+     * Output space: Tweets read back equal to those added, in order, by every observer
+     * Testing strategy: partition testing
+     */
+
+    /* Testing strategy for the TweetStore overloads of Filter and Extract
+     * Input space: store empty, store with several tweets
+     *      timespan boundaries equal to tweet timestamps, timespan with sub-millisecond ends
+     *      username matching no tweet, several tweets in different case
+     * Output space: same results as the List overloads on the same tweets
+     * Testing strategy: differential testing against the List overloads
+     */
+
+    private static final Instant D1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant D2 = Instant.parse("2016-02-17T11:00:00Z");
+    private static final Instant D3 = Instant.parse("2016-02-17T12:00:00Z");
+
+    private static final List<Tweet> TWEETS = Arrays.asList(
+            new Tweet(1, "alyssa", "is it reasonable to talk about rivest so much?", D1),
+            new Tweet(2, "BBITDIDDLE", "rivest talk in 30 minutes #hype @Alyssa", D2),
+            new Tweet(3, "bbitdiddle", "@allCourse6 I don't UnDersTand, caf\u00e9 \u2603 @krotus", D3),
+            new Tweet(4, "krotus", "", D2),
+            new Tweet(5, "alyssa", "Talk talk TALK", D1.plusSeconds(1)));
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: empty store
+    @Test
+    public void testEmptyStore() {
+        TweetStore store = new TweetStore();
+        assertEquals("expected size 0", 0, store.size());
+        assertTrue("expected empty view", store.asList().isEmpty());
+        assertEquals("expected empty timespan", Extract.getTimespan(new ArrayList<Tweet>()), Extract.getTimespan(store));
+    }
+
+    //Test: tweets read back through views match the tweets added
+    @Test
+    public void testRoundTrip() {
+        TweetStore store = new TweetStore(TWEETS);
+        assertEquals("expected size", TWEETS.size(), store.size());
+        assertEquals("expected case-sensitive author dictionary", 4, store.authorCount());
+        TweetStreamReaderTest.assertSameTweets(TWEETS, store.asList());
+        assertEquals("expected text with multi-byte characters", TWEETS.get(2).getText(), store.getText(2));
+    }
+
+    //Test: columnar Filter and Extract operations agree with the List versions
+    @Test
+    public void testColumnarOperationsAgreeWithLists() {
+        TweetStore store = new TweetStore(TWEETS);
+        for (String username: Arrays.asList("alyssa", "BBitDiddle", "nobody")) {
+            assertEquals("expected same writtenBy " + username, Filter.writtenBy(TWEETS, username), Filter.writtenBy(store, username));
+        }
+        List<Timespan> timespans = Arrays.asList(
+                new Timespan(D1, D2),
+                new Timespan(D2, D2),
+                new Timespan(D1.plusNanos(1), D2.minusNanos(1)),
+                new Timespan(Instant.MIN, Instant.MAX));
+        for (Timespan timespan: timespans) {
+            assertEquals("expected same inTimespan " + timespan, Filter.inTimespan(TWEETS, timespan), Filter.inTimespan(store, timespan));
+        }
+        for (List<String> words: Arrays.asList(Arrays.asList("talk"), Arrays.asList("CAF\u00c9", "nothing"), new ArrayList<String>())) {
+            assertEquals("expected same containing " + words, Filter.containing(TWEETS, words), Filter.containing(store, words));
+        }
+        assertEquals("expected same timespan", Extract.getTimespan(TWEETS), Extract.getTimespan(store));
+        assertEquals("expected same mentions", Extract.getMentionedUsers(TWEETS), Extract.getMentionedUsers(store));
+    }
+}
@@ -0,0 +1,177 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.json.JsonException;
+
+import org.junit.Test;
+
+public class TweetStreamReaderTest {
+
+    /* Testing strategy for TweetStreamReader
+     * Input space: number of tweets in the array = 0, 1, >1
+     *      screen name given as flattened "user.screen_name" key, as nested "user" object
+     *      tweets with extra fields: scalars, nested objects, nested arrays
+     *      malformed input: not an array, tweet missing a required field
+     * Output space: tweets equal (by all observers) to those returned by TweetReader
+     * Testing strategy: partition testing, plus differential testing against TweetReader
+     */
+
+    /* Testing strategy for TweetFileReader and MappedInputStream
+     * Input space: file encoding = UTF-8, UTF-16
+     *      file fits in one mapped window, file spans several windows
+     * Output space: same tweets as the streaming reader over the same text
+     */
+
+    static final String TWEETS_JSON = "["
+            + "{\"id\": 1, \"user.screen_name\": \"alyssa\", \"text\": \"is it reasonable to talk about rivest so much?\","
+            + " \"created_at\": \"Wed Feb 17 10:00:00 +0000 2016\", \"retweet_count\": 3, \"favorited\": false},"
+            + "{\"id\": 2, \"text\": \"rivest talk in 30 minutes #hype\", \"entities\": {\"hashtags\": [{\"text\": \"hype\"}]},"
+            + " \"user.screen_name\": \"bbitdiddle\", \"coordinates\": null, \"created_at\": \"Wed Feb 17 11:30:15 -0500 2016\"},"
+            + "{\"created_at\": \"Thu Dec 31 23:59:59 +0100 2015\", \"text\": \"@alyssa \\\"quoted\\\"\", \"id\": \"3\","
+            + " \"user.screen_name\": \"Ben_Bit-diddle\", \"tags\": [[1, 2], {\"count\": 99}]}"
+            + "]";
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    //Test: empty array gives no tweets
+    @Test
+    public void testEmptyArray() {
+        Iterator<Tweet> tweets = new TweetStreamReader(new StringReader("[ ]"));
+        assertFalse("expected no tweets", tweets.hasNext());
+    }
+
+    //Test: multiple tweets with extra fields match what TweetReader produces
+    @Test
+    public void testMultipleTweetsMatchTweetReader() throws IOException {
+        List<Tweet> expected = readWithTweetReader(TWEETS_JSON);
+        List<Tweet> actual;
+        try (Stream<Tweet> stream = TweetStreamReader.streamTweets(new StringReader(TWEETS_JSON))) {
+            actual = stream.collect(Collectors.toList());
+        }
+        assertSameTweets(expected, actual);
+    }
+
+    //Test: single tweet with the screen name given in a nested user object
+    @Test
+    public void testNestedUserObject() {
+        String json = "[{\"id\": 7, \"user\": {\"id\": 8, \"screen_name\": \"krotus\", \"urls\": []},"
+                + " \"text\": \"despair\", \"created_at\": \"Wed Feb 17 10:00:00 +0000 2016\"}]";
+        TweetStreamReader reader = new TweetStreamReader(new StringReader(json));
+        Tweet tweet = reader.next();
+        assertEquals("expected id", 7, tweet.getId());
+        assertEquals("expected author", "krotus", tweet.getAuthor());
+        assertEquals("expected timestamp", Instant.parse("2016-02-17T10:00:00Z"), tweet.getTimestamp());
+        assertFalse("expected a single tweet", reader.hasNext());
+    }
+
+    //Test: input that is not an array is rejected
+    @Test(expected=JsonException.class)
+    public void testNotAnArray() {
+        new TweetStreamReader(new StringReader("{\"id\": 1}"));
+    }
+
+    //Test: tweet missing a required field is rejected
+    @Test(expected=JsonException.class)
+    public void testMissingField() {
+        TweetStreamReader reader = new TweetStreamReader(new StringReader("[{\"id\": 1, \"text\": \"hi\"}]"));
+        reader.next();
+    }
+
+    //Test: UTF-8 file read through a memory mapping matches TweetReader
+    @Test
+    public void testReadTweetsFromFileUtf8() throws IOException {
+        Path file = Files.createTempFile("tweets", ".json");
+        try {
+            Files.write(file, TWEETS_JSON.getBytes(StandardCharsets.UTF_8));
+            assertSameTweets(readWithTweetReader(TWEETS_JSON), TweetFileReader.readTweetsFromFile(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //Test: UTF-16 file is detected and decoded from the mapped bytes
+    @Test
+    public void testStreamTweetsFromFileUtf16() throws IOException {
+        Path file = Files.createTempFile("tweets", ".json");
+        try {
+            Files.write(file, TWEETS_JSON.getBytes(StandardCharsets.UTF_16BE));
+            List<Tweet> tweets;
+            try (Stream<Tweet> stream = TweetFileReader.streamTweetsFromFile(file)) {
+                tweets = stream.collect(Collectors.toList());
+            }
+            assertSameTweets(readWithTweetReader(TWEETS_JSON), tweets);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //Test: region spanning several small windows is read back byte for byte
+    @Test
+    public void testMappedInputStreamAcrossWindows() throws IOException {
+        Path file = Files.createTempFile("tweets", ".json");
+        try {
+            byte[] contents = TWEETS_JSON.getBytes(StandardCharsets.UTF_8);
+            Files.write(file, contents);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                    InputStream in = new MappedInputStream(channel, 5, contents.length, false, 7)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[10];
+                int count;
+                while ((count = in.read(buffer, 0, buffer.length)) >= 0) {
+                    out.write(buffer, 0, count);
+                }
+                assertArrayEquals("expected region contents", Arrays.copyOfRange(contents, 5, contents.length), out.toByteArray());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /*
+     * Read a JSON array of tweets through TweetReader, by way of a temporary file.
+     */
+    static List<Tweet> readWithTweetReader(String json) throws IOException {
+        Path file = Files.createTempFile("tweets", ".json");
+        try {
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+            return TweetReader.readTweetsFromWeb(file.toUri().toURL());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /*
+     * Assert that two lists hold tweets that agree on every observer, in the same order.
+     */
+    static void assertSameTweets(List<Tweet> expected, List<Tweet> actual) {
+        assertEquals("expected same number of tweets", expected.size(), actual.size());
+        List<String> expectedStrings = new ArrayList<>();
+        List<String> actualStrings = new ArrayList<>();
+        for (int i = 0; i < expected.size(); i++) {
+            expectedStrings.add(expected.get(i).toString());
+            actualStrings.add(actual.get(i).toString());
+        }
+        assertEquals("expected same tweets in same order", expectedStrings, actualStrings);
+    }
+}